@@ -0,0 +1,84 @@
+package com.automatedattendance.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.automatedattendance.AttendanceProcessor;
+import com.automatedattendance.CompactRoster;
+import com.automatedattendance.ShopAttendanceAggregator;
+import com.automatedattendance.Student;
+
+/**
+ * Aggregation benchmarks: attendance statistics, per-shop totals and the plain summary report,
+ * from Student lists and from the equivalent CompactRoster
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    @Param({"0.05", "0.30"})
+    public double absentRatio;
+
+    private List<Student> students;
+    private CompactRoster roster;
+    private AttendanceProcessor attendanceProcessor;
+    private ShopAttendanceAggregator shopAggregator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        students = BenchmarkData.createStudents(rows, absentRatio);
+        roster = CompactRoster.fromStudents(students);
+        attendanceProcessor = new AttendanceProcessor();
+        shopAggregator = new ShopAttendanceAggregator();
+    }
+
+    @Benchmark
+    public AttendanceProcessor.AttendanceSummary calculateAttendanceSummary() {
+        return attendanceProcessor.calculateAttendanceSummary(students);
+    }
+
+    @Benchmark
+    public String generateSummaryText() {
+        return attendanceProcessor.generateSummaryText(students);
+    }
+
+    @Benchmark
+    public AttendanceProcessor.AttendanceSummary calculateAttendanceSummaryCompact() {
+        return attendanceProcessor.calculateAttendanceSummary(roster);
+    }
+
+    @Benchmark
+    public String generateSummaryTextCompact() {
+        return attendanceProcessor.generateSummaryText(roster);
+    }
+
+    @Benchmark
+    public List<ShopAttendanceAggregator.ShopSummary> aggregateByShop() {
+        return shopAggregator.aggregate(students);
+    }
+
+    @Benchmark
+    public List<ShopAttendanceAggregator.ShopSummary> aggregateByShopCompact() {
+        return shopAggregator.aggregate(roster);
+    }
+}
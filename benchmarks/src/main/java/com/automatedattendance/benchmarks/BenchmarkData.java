@@ -0,0 +1,77 @@
+package com.automatedattendance.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.automatedattendance.AttendanceWorkbookGenerator;
+import com.automatedattendance.ColumnarRowStore;
+import com.automatedattendance.FlexibleExcelReader;
+import com.automatedattendance.Student;
+
+/**
+ * Builds deterministic benchmark inputs: attendance workbooks on disk and
+ * the equivalent in-memory student lists and flexible attendance data.
+ */
+final class BenchmarkData {
+
+    static final List<String> HEADERS = Arrays.asList("P.no", "Name", "Status", "Shop");
+    private static final int SHOP_COUNT = 12;
+    private static final long SEED = 42L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Writes an .xlsx attendance sheet with P.no, Name, Status and Shop columns to a temporary file
+     */
+    static File createWorkbook(int rows, double absentRatio) throws IOException {
+        File file = File.createTempFile("attendance-bench-" + rows + "-", ".xlsx");
+        file.deleteOnExit();
+
+        AttendanceWorkbookGenerator generator = new AttendanceWorkbookGenerator();
+        generator.setRowCount(rows);
+        generator.setShopCount(SHOP_COUNT);
+        generator.setAbsentRatio(absentRatio);
+        generator.setSeed(SEED);
+        generator.generate(file.getPath());
+        return file;
+    }
+
+    /**
+     * @return students with normalized statuses, as produced by the readers
+     */
+    static List<Student> createStudents(int rows, double absentRatio) {
+        Random random = new Random(SEED);
+        List<Student> students = new ArrayList<>(rows);
+        for (int r = 1; r <= rows; r++) {
+            Student student = new Student(String.valueOf(100000 + r), "Employee " + r,
+                random.nextDouble() < absentRatio ? "absent" : "present");
+            student.setShop("Shop " + (r % SHOP_COUNT));
+            students.add(student);
+        }
+        return students;
+    }
+
+    /**
+     * @return flexible attendance data shaped like the sheet written by {@link #createWorkbook}
+     */
+    static FlexibleExcelReader.FlexibleAttendanceData createFlexibleData(int rows, double absentRatio) {
+        List<Student> students = createStudents(rows, absentRatio);
+        ColumnarRowStore.Builder rowStore = new ColumnarRowStore.Builder(HEADERS);
+        for (Student student : students) {
+            rowStore.addRow(Arrays.asList(student.getPNo(), student.getName(), student.getStatus(), student.getShop()));
+        }
+
+        Map<String, Integer> columnMappings = new HashMap<>();
+        for (int i = 0; i < HEADERS.size(); i++) {
+            columnMappings.put(HEADERS.get(i), i);
+        }
+        return new FlexibleExcelReader.FlexibleAttendanceData(HEADERS, columnMappings, rowStore.build(), students);
+    }
+}
@@ -0,0 +1,71 @@
+package com.automatedattendance.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.automatedattendance.EmailSender;
+import com.automatedattendance.FlexibleEmailGenerator;
+import com.automatedattendance.SmtpConnectionPool;
+import com.automatedattendance.SmtpStubServer;
+
+/**
+ * Send benchmark: delivering a rendered report through the pooled SMTP
+ * transport to an in-process SMTP stub, so network latency is excluded
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailSenderBenchmark {
+
+    @Param({"1000", "10000"})
+    public int rows;
+
+    @Param({"0.05", "0.30"})
+    public double absentRatio;
+
+    private SmtpStubServer smtpServer;
+    private SmtpConnectionPool pool;
+    private EmailSender emailSender;
+    private String htmlBody;
+    private final List<String> recipients = Collections.singletonList("manager@example.com");
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        smtpServer = new SmtpStubServer();
+        pool = new SmtpConnectionPool("localhost", smtpServer.getPort(), null, null, false,
+            4, 60000L, 5000L, 30000L);
+        emailSender = new EmailSender(pool);
+        htmlBody = new FlexibleEmailGenerator().generateFlexibleEmail(
+            BenchmarkData.createFlexibleData(rows, absentRatio));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.close();
+        smtpServer.close();
+    }
+
+    @Benchmark
+    public boolean sendEmailToRecipients() {
+        return emailSender.sendEmailToRecipients("Attendance Summary Report", htmlBody, recipients);
+    }
+}
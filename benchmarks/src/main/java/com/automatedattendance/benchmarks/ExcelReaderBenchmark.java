@@ -0,0 +1,71 @@
+package com.automatedattendance.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.automatedattendance.ExcelReader;
+import com.automatedattendance.FlexibleExcelReader;
+import com.automatedattendance.Student;
+
+/**
+ * Ingestion benchmarks: reading an attendance workbook with each reader
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExcelReaderBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    @Param({"0.05", "0.30"})
+    public double absentRatio;
+
+    private File workbook;
+    private ExcelReader excelReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workbook = BenchmarkData.createWorkbook(rows, absentRatio);
+        excelReader = new ExcelReader();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        workbook.delete();
+    }
+
+    @Benchmark
+    public List<Student> readExcelFile() throws IOException {
+        return excelReader.readExcelFile(workbook.getPath());
+    }
+
+    @Benchmark
+    public FlexibleExcelReader.FlexibleAttendanceData readFlexibleExcelFile() throws IOException {
+        return FlexibleExcelReader.readFlexibleExcelFile(workbook.getPath());
+    }
+
+    @Benchmark
+    public FlexibleExcelReader.FlexibleAttendanceData readFlexibleExcelFileStreaming() throws IOException {
+        return FlexibleExcelReader.readFlexibleExcelFileStreaming(workbook.getPath());
+    }
+}
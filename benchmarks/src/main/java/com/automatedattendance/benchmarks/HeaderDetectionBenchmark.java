@@ -0,0 +1,56 @@
+package com.automatedattendance.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.automatedattendance.FlexibleExcelReader;
+
+/**
+ * Header detection benchmark: mapping a header row to the canonical columns
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderDetectionBenchmark {
+
+    /** Number of columns; columns beyond the four required ones are unrelated extras */
+    @Param({"4", "20", "100"})
+    public int columns;
+
+    private List<String> headers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        headers = new ArrayList<>(columns);
+        headers.add("Ticket No.");
+        headers.add("Employee Name");
+        headers.add("Attendance Status");
+        headers.add("Shop/Department");
+        for (int i = headers.size(); i < columns; i++) {
+            headers.add("Remarks (Week " + i + ")");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> detectColumnMappings() {
+        return FlexibleExcelReader.detectColumnMappings(headers);
+    }
+}
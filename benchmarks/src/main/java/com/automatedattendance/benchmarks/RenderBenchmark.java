@@ -0,0 +1,51 @@
+package com.automatedattendance.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.automatedattendance.FlexibleEmailGenerator;
+import com.automatedattendance.FlexibleExcelReader;
+
+/**
+ * Rendering benchmark: the flexible HTML report with the absent employees table
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    @Param({"0.05", "0.30"})
+    public double absentRatio;
+
+    private FlexibleExcelReader.FlexibleAttendanceData attendanceData;
+    private FlexibleEmailGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        attendanceData = BenchmarkData.createFlexibleData(rows, absentRatio);
+        generator = new FlexibleEmailGenerator();
+    }
+
+    @Benchmark
+    public String generateFlexibleEmail() {
+        return generator.generateFlexibleEmail(attendanceData);
+    }
+}
@@ -1,7 +1,12 @@
 package com.automatedattendance;
 
+import java.awt.GraphicsEnvironment;
+import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -17,8 +22,18 @@ public class App {
     private AttendanceProcessor attendanceProcessor;
     private EmailSender emailSender;
     private FlexibleEmailGenerator flexibleEmailGenerator;
+    private final boolean interactive;
     
     public App() {
+        this(true);
+    }
+    
+    /**
+     * @param interactive Whether an SMTP authentication failure opens the password reset dialog;
+     *                    false for unattended runs such as the directory watcher, which only log it
+     */
+    public App(boolean interactive) {
+        this.interactive = interactive;
         this.excelReader = new ExcelReader();
         this.flexibleExcelReader = new FlexibleExcelReader();
         this.attendanceProcessor = new AttendanceProcessor();
@@ -34,61 +49,70 @@ public class App {
      */
     public boolean processFlexibleAttendanceFile(String excelFilePath, List<String> recipients) {
         LoggerUtil.logInfo("Starting flexible attendance processing for file: " + excelFilePath);
+        PipelineMetrics.Run run = PipelineMetrics.getShared().startRun(excelFilePath);
+        boolean success = false;
         
         try {
-            // 1. Validate Excel file with flexible reader
-            LoggerUtil.logInfo("Validating Excel file with flexible reader: " + excelFilePath);
-            if (!flexibleExcelReader.validateFlexibleExcelFile(excelFilePath)) {
-                String errorMsg = "Excel file validation failed with flexible reader.";
-                LoggerUtil.logError(errorMsg);
-                System.err.println(errorMsg);
+            // 1. Validate and read Excel file with flexible column detection in a single pass
+            LoggerUtil.logInfo("Validating and reading Excel file with flexible reader: " + excelFilePath);
+            ExcelReadResult<FlexibleExcelReader.FlexibleAttendanceData> readResult =
+                run.time("read", () -> flexibleExcelReader.readAndValidateFlexibleExcelFile(excelFilePath));
+            run.count("input.bytes", new File(excelFilePath).length());
+            FlexibleExcelReader.FlexibleAttendanceData attendanceData =
+                run.time("validate", () -> checkReadResult(readResult, " with flexible reader"));
+            if (attendanceData == null) {
                 return false;
             }
-            LoggerUtil.logInfo("Excel file validation successful with flexible reader");
-            
-            // 2. Read Excel file with flexible column detection
-            LoggerUtil.logInfo("Reading Excel file with flexible detection: " + excelFilePath);
-            FlexibleExcelReader.FlexibleAttendanceData attendanceData = flexibleExcelReader.readFlexibleExcelFile(excelFilePath);
             List<Student> students = attendanceData.getStudents();
+            run.count("rows.read", students.size());
             
             LoggerUtil.logExcelProcessing(excelFilePath, students.size(), 
                 "Successfully read " + students.size() + " student records with flexible detection");
             LoggerUtil.logInfo("Successfully read " + students.size() + " student records from Excel file");
+            run.time("history", () -> recordHistory(excelFilePath, students));
+            RollingAttendanceAnalytics analytics = run.time("analytics", () -> updateAnalytics(excelFilePath, students));
             
-            // 3. Generate flexible HTML email
+            // 2. Generate flexible HTML email
             LoggerUtil.logInfo("Generating flexible tabular email");
-            String htmlEmailContent = flexibleEmailGenerator.generateFlexibleEmail(attendanceData);
+            FlexibleEmailGenerator.PreparedReport report = run.time("aggregate", () -> {
+                LoggerUtil.logAttendanceSummary(excelFilePath, attendanceProcessor.calculateAttendanceSummary(students));
+                return flexibleEmailGenerator.prepareReport(attendanceData, analytics);
+            });
+            String htmlEmailContent = run.time("render", () -> flexibleEmailGenerator.renderReport(report, null));
+            run.count("report.chars", htmlEmailContent.length());
             LoggerUtil.logInfo("Flexible email content generated successfully");
             
-            // 4. Send email
+            // 3. Send email
             LoggerUtil.logInfo("Sending flexible attendance summary email");
             
-            // Try to send email with authentication failure handling
-            boolean emailSent = attemptToSendEmail(Config.getEmailSubject(), htmlEmailContent, recipients);
-            
-            // Log email status
-            LoggerUtil.logEmailStatus(Config.getEmailSubject(), recipients, emailSent, 
-                emailSent ? "Flexible email sent successfully" : "Failed to send flexible email");
-            
-            if (emailSent) {
-                LoggerUtil.logInfo("Flexible attendance summary email sent successfully to " + 
-                    recipients.size() + " receivers");
-                return true;
-            } else {
-                LoggerUtil.logError("Failed to send flexible attendance summary email");
-                return false;
-            }
+            success = run.time("send", () -> {
+                // Try to send email with authentication failure handling
+                boolean emailSent = attemptToSendEmail(Config.getEmailSubject(), htmlEmailContent, recipients);
+                
+                // Log email status
+                logSendOutcome(Config.getEmailSubject(), recipients, emailSent, "flexible email");
+                
+                // 4. Send personalized per-shop reports
+                boolean personalizedSent = sendPersonalizedReports(report);
+                
+                if (emailSent) {
+                    LoggerUtil.logInfo("Flexible attendance summary email " + (isQueuingEmails() ? "queued for " : "sent successfully to ")
+                        + recipients.size() + " receivers");
+                    return personalizedSent;
+                } else {
+                    LoggerUtil.logError("Failed to send flexible attendance summary email");
+                    return false;
+                }
+            });
+            return success;
             
-        } catch (IOException e) {
-            String errorMsg = "Error processing Excel file with flexible reader: " + e.getMessage();
-            LoggerUtil.logError(errorMsg, e);
-            System.err.println(errorMsg);
-            return false;
         } catch (Exception e) {
             String errorMsg = "Unexpected error during flexible attendance processing: " + e.getMessage();
             LoggerUtil.logError(errorMsg, e);
             System.err.println(errorMsg);
             return false;
+        } finally {
+            run.finish(success);
         }
     }
     
@@ -110,75 +134,210 @@ public class App {
      */
     public boolean processAttendanceFile(String excelFilePath, List<String> recipients) {
         LoggerUtil.logInfo("Starting attendance processing for file: " + excelFilePath);
+        PipelineMetrics.Run run = PipelineMetrics.getShared().startRun(excelFilePath);
+        boolean success = false;
         
         try {
-            // 1. Validate Excel file
-            LoggerUtil.logInfo("Validating Excel file: " + excelFilePath);
-            if (!excelReader.validateExcelFile(excelFilePath)) {
-                String errorMsg = "Excel file validation failed. Required columns (P.no, Name, Status) are missing.";
-                LoggerUtil.logError(errorMsg);
-                System.err.println(errorMsg);
+            // 1. Validate and read Excel file in a single pass
+            LoggerUtil.logInfo("Validating and reading Excel file: " + excelFilePath);
+            long inputBytes = new File(excelFilePath).length();
+            final CompactRoster roster;
+            final List<Student> students;
+            if (CsvAttendanceReader.isCsvFile(excelFilePath)
+                    || inputBytes >= ConfigManager.getInstance().getCompactRosterThresholdBytes()) {
+                // Large inputs are read straight into primitive arrays instead of one Student per row
+                ExcelReadResult<CompactRoster> readResult = run.time("read", () -> excelReader.readAndValidateCompactRoster(excelFilePath));
+                roster = run.time("validate", () -> checkReadResult(readResult, ""));
+                students = roster != null ? roster.asStudentList() : null;
+            } else {
+                ExcelReadResult<List<Student>> readResult = run.time("read", () -> excelReader.readAndValidateExcelFile(excelFilePath));
+                roster = null;
+                students = run.time("validate", () -> checkReadResult(readResult, ""));
+            }
+            run.count("input.bytes", inputBytes);
+            if (students == null) {
                 return false;
             }
-            LoggerUtil.logInfo("Excel file validation successful");
-            
-            // 2. Read Excel file
-            LoggerUtil.logInfo("Reading Excel file: " + excelFilePath);
-            List<Student> students = excelReader.readExcelFile(excelFilePath);
+            run.count("rows.read", students.size());
             LoggerUtil.logExcelProcessing(excelFilePath, students.size(), 
                 "Successfully read " + students.size() + " student records");
             LoggerUtil.logInfo("Successfully read " + students.size() + " student records from Excel file");
+            run.time("history", () -> recordHistory(excelFilePath, students));
+            run.time("analytics", () -> updateAnalytics(excelFilePath, students));
             
-            // 3. Process attendance
+            // 2. Process attendance
             LoggerUtil.logInfo("Processing attendance data");
-            String summaryText = attendanceProcessor.generateSummaryText(students);
-            LoggerUtil.logAttendanceSummary(summaryText);
+            AttendanceProcessor.AttendanceSummary summary = run.time("aggregate", () -> roster != null
+                ? attendanceProcessor.calculateAttendanceSummary(roster)
+                : attendanceProcessor.calculateAttendanceSummary(students));
+            LoggerUtil.logAttendanceSummary(excelFilePath, summary);
+            String summaryText = run.time("render", () -> attendanceProcessor.generateSummaryText(summary,
+                roster != null ? roster.absentStudents() : students));
+            run.count("report.chars", summaryText.length());
             LoggerUtil.logInfo("Attendance processing completed");
             
-            // 4. Send email
+            // 3. Send email
             LoggerUtil.logInfo("Sending attendance summary email");
             
             // Try to send email with authentication failure handling
-            boolean emailSent = attemptToSendEmail(Config.getEmailSubject(), summaryText, recipients);
+            boolean emailSent = run.time("send", () -> attemptToSendEmail(Config.getEmailSubject(), summaryText, recipients));
             
             // Log email status
-            LoggerUtil.logEmailStatus(Config.getEmailSubject(), recipients, emailSent, 
-                emailSent ? "Email sent successfully" : "Failed to send email");
+            logSendOutcome(Config.getEmailSubject(), recipients, emailSent, "email");
             
             if (emailSent) {
-                LoggerUtil.logInfo("Attendance summary email sent successfully to " + 
-                    recipients.size() + " receivers");
+                LoggerUtil.logInfo("Attendance summary email " + (isQueuingEmails() ? "queued for " : "sent successfully to ")
+                    + recipients.size() + " receivers");
+                success = true;
                 return true;
             } else {
                 LoggerUtil.logError("Failed to send attendance summary email");
                 return false;
             }
             
-        } catch (IOException e) {
-            String errorMsg = "Error processing Excel file: " + e.getMessage();
-            LoggerUtil.logError(errorMsg, e);
-            System.err.println(errorMsg);
-            return false;
         } catch (Exception e) {
             String errorMsg = "Unexpected error during attendance processing: " + e.getMessage();
             LoggerUtil.logError(errorMsg, e);
             System.err.println(errorMsg);
             return false;
+        } finally {
+            run.finish(success);
         }
     }
     
     /**
-     * Attempts to send email and handles authentication failures by prompting user to update credentials
+     * Logs the outcome of a single-pass read and its diagnostics
+     * @param readResult Result of the read
+     * @param readerDescription Suffix naming the reader in the log messages, e.g. " with flexible reader"
+     * @return the data read, or null if the file failed validation
+     */
+    private static <T> T checkReadResult(ExcelReadResult<T> readResult, String readerDescription) {
+        if (!readResult.isValid()) {
+            String errorMsg = "Excel file validation failed" + readerDescription + ": " + readResult.getErrorMessage();
+            LoggerUtil.logError(errorMsg);
+            System.err.println(errorMsg);
+            return null;
+        }
+        LoggerUtil.logInfo("Excel file validation successful" + readerDescription);
+        for (String diagnostic : readResult.getDiagnostics()) {
+            LoggerUtil.logInfo(diagnostic);
+        }
+        return readResult.getData();
+    }
+    
+    /**
+     * Appends the day's attendance to the history store when it is enabled.
+     * The date is taken from the file name (yyyy-MM-dd) or is today.
+     * A failure is logged and does not stop the report from being sent.
+     */
+    private void recordHistory(String excelFilePath, List<Student> students) {
+        if (!ConfigManager.getInstance().isHistoryEnabled()) {
+            return;
+        }
+        try {
+            LocalDate date = AttendanceHistoryStore.dateForFile(excelFilePath);
+            AttendanceHistoryStore.getShared().appendDay(date, new File(excelFilePath).getName(), students);
+            LoggerUtil.logInfo("Recorded " + students.size() + " attendance records for " + date + " in the history store");
+        } catch (IOException e) {
+            LoggerUtil.logWarning("Failed to record attendance history for " + excelFilePath + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Adds the day to the shared rolling analytics when they are enabled
+     * @return the updated analytics, or null if they are disabled
+     */
+    private RollingAttendanceAnalytics updateAnalytics(String excelFilePath, List<Student> students) {
+        if (!ConfigManager.getInstance().isAnalyticsEnabled()) {
+            return null;
+        }
+        RollingAttendanceAnalytics analytics = RollingAttendanceAnalytics.getShared();
+        analytics.addDay(AttendanceHistoryStore.dateForFile(excelFilePath), new File(excelFilePath).getName(), students);
+        return analytics;
+    }
+    
+    /**
+     * Sends the personalized reports of the recipient mapping file when fan-out is enabled
+     * @param report Report prepared for the full email
+     * @return true if fan-out is disabled or every personalized report was sent
+     */
+    private boolean sendPersonalizedReports(FlexibleEmailGenerator.PreparedReport report) {
+        ConfigManager configManager = ConfigManager.getInstance();
+        if (!configManager.isFanOutEnabled()) {
+            return true;
+        }
+        
+        Map<String, List<String>> mapping;
+        try {
+            mapping = ReportFanOut.loadMapping(configManager.getFanOutMappingFile());
+        } catch (IOException e) {
+            String errorMsg = "Failed to read recipient mapping " + configManager.getFanOutMappingFile() + ": " + e.getMessage();
+            LoggerUtil.logError(errorMsg);
+            System.err.println(errorMsg);
+            return false;
+        }
+        if (mapping.isEmpty()) {
+            LoggerUtil.logWarning("Recipient mapping " + configManager.getFanOutMappingFile() + " is empty, no personalized reports sent");
+            return true;
+        }
+        
+        LoggerUtil.logInfo("Sending personalized reports to " + mapping.size() + " recipients");
+        ReportFanOut fanOut = new ReportFanOut(flexibleEmailGenerator, emailSender, configManager.getFanOutSendConcurrency());
+        return fanOut.send(report, Config.getEmailSubject(), mapping);
+    }
+    
+    /**
+     * @return true if emails are queued in the outbox instead of being sent right away
+     */
+    private static boolean isQueuingEmails() {
+        return ConfigManager.getInstance().isOutboxEnabled();
+    }
+    
+    /**
+     * Logs the result of {@link #attemptToSendEmail}. A queued email is only logged as queued;
+     * its delivery status is logged by the {@link OutboxDispatcher} once it is delivered or dead-lettered.
+     * @param description What was sent, e.g. "flexible email"
+     */
+    private static void logSendOutcome(String subject, List<String> recipients, boolean accepted, String description) {
+        if (isQueuingEmails()) {
+            if (accepted) {
+                LoggerUtil.logInfo("Queued " + description + " '" + subject + "' in the outbox for "
+                    + recipients.size() + " receivers");
+            } else {
+                LoggerUtil.logEmailStatus(subject, recipients, false, "Failed to queue " + description + " in the outbox");
+            }
+            return;
+        }
+        String sentDescription = Character.toUpperCase(description.charAt(0)) + description.substring(1);
+        LoggerUtil.logEmailStatus(subject, recipients, accepted,
+            accepted ? sentDescription + " sent successfully" : "Failed to send " + description);
+    }
+    
+    /**
+     * Attempts to send email and handles authentication failures by prompting user to update credentials,
+     * unless the app is not interactive or there is no display, in which case the failure is only logged.
+     * When the outbox is enabled the email is queued for background delivery instead.
      */
     private boolean attemptToSendEmail(String subject, String body, List<String> recipients) {
+        // With the outbox enabled the email is persisted and delivered in the background
+        if (isQueuingEmails()) {
+            return emailSender.enqueueEmailToRecipients(subject, body, recipients);
+        }
+        
         try {
-            return emailSender.sendEmailToRecipients(subject, body, recipients);
+            return emailSender.sendEmailToRecipients(subject, body, recipients, interactive);
         } catch (Exception e) {
             // Check if the error is related to authentication
             if (e.getMessage() != null && (e.getMessage().contains("535") || 
                 e.getMessage().contains("Authentication failed") || 
                 e.getMessage().contains("Username and Password not accepted"))) {
                 
+                if (!interactive || GraphicsEnvironment.isHeadless()) {
+                    LoggerUtil.logError("SMTP authentication failed; update the sender credentials in the configuration: "
+                        + e.getMessage());
+                    return false;
+                }
+                
                 // Show the password reset dialog synchronously
                 JFrame parentFrame = new JFrame();
                 parentFrame.setAlwaysOnTop(true);
@@ -228,11 +387,35 @@ public class App {
      * @param args Command line arguments - first argument should be the Excel file path
      */
     public static void main(String[] args) {
+        // Daemon mode: process files as they land in the watch directory, never opening dialogs
+        if (args.length > 0 && args[0].equals("--watch")) {
+            runWatchMode(new App(false), args.length > 1 ? args[1] : null);
+            return;
+        }
+        
+        // Batch mode: read, aggregate and render many files in parallel
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchProcessor.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        // Audit mode: query the audit log, e.g. recent runs or failed emails
+        if (args.length > 0 && args[0].equals("--audit")) {
+            AuditLog.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
+        // Deliver emails left in the outbox by an earlier run
+        OutboxDispatcher.startSharedIfEnabled();
+        
         App app = new App();
         
         // Check if Excel file path is provided as command line argument
         if (args.length == 0) {
             System.out.println("Usage: java -jar automated-attendance-system.jar <excel-file-path>");
+            System.out.println("       java -jar automated-attendance-system.jar --watch [directory]");
+            System.out.println("       java -jar automated-attendance-system.jar --batch <directory|glob> [--out <report-dir>] [--parse-concurrency N]");
+            System.out.println("       java -jar automated-attendance-system.jar --audit runs [count] | summaries [count] | email-failures [days] | errors [days]");
             System.out.println("Or run with a default file path for testing purposes.");
             
             // For demonstration purposes, you can set a default file path here
@@ -257,5 +440,48 @@ public class App {
                 System.out.println("Attendance processing failed. Check logs for details.");
             }
         }
+        
+        shutdownSharedResources();
+    }
+    
+    /**
+     * Runs the directory watcher until the JVM is asked to stop (e.g. Ctrl+C)
+     * @param app Application instance reused for every file
+     * @param watchDir Directory to watch, or null for the configured one
+     */
+    private static void runWatchMode(App app, String watchDir) {
+        AttendanceDirectoryWatcher watcher;
+        try {
+            watcher = AttendanceDirectoryWatcher.fromConfig(app, watchDir);
+        } catch (Exception e) {
+            String errorMsg = "Failed to start directory watcher: " + e.getMessage();
+            LoggerUtil.logError(errorMsg, e);
+            System.err.println(errorMsg);
+            shutdownSharedResources();
+            return;
+        }
+        
+        // Deliver emails left in the outbox by an earlier run, even before a new file arrives
+        OutboxDispatcher.startSharedIfEnabled();
+        
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            System.out.println("Stopping directory watcher...");
+            watcher.close();
+            shutdownSharedResources();
+        }, "watch-shutdown"));
+        
+        watcher.run();
+    }
+    
+    /**
+     * Gives queued emails a last delivery attempt, then closes pooled SMTP connections, the history store,
+     * the metrics endpoint and the audit log
+     */
+    private static void shutdownSharedResources() {
+        OutboxDispatcher.shutdownShared(ConfigManager.getInstance().getOutboxShutdownTimeoutMillis());
+        EmailSender.closeSharedPool();
+        AttendanceHistoryStore.closeShared();
+        PipelineMetrics.closeShared();
+        AuditLog.closeShared();
     }
 }
\ No newline at end of file
@@ -0,0 +1,278 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AsyncLogWriter appends log lines to a file from a single background flusher thread.
+ *
+ * Callers publish lines into a lock-free multi-producer ring buffer and return
+ * immediately; the flusher drains the ring into a direct buffer and writes it
+ * through a {@link FileChannel}. The buffer is written out when it fills up,
+ * when the flush interval has elapsed, and - with flush-on-error enabled -
+ * as soon as an error line has been drained. {@link #close()} drains every
+ * published line before the file is closed; lines offered once closing has
+ * started are rejected, so the caller can write them synchronously.
+ */
+public class AsyncLogWriter implements AutoCloseable {
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    private final AtomicReferenceArray<LogRecord> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();      // next sequence to claim
+    private final AtomicLong head = new AtomicLong();      // next sequence to drain
+    private final AtomicLong written = new AtomicLong();   // sequences handed to the channel
+    private long encoded;                                   // sequences fully encoded into the buffer (flusher only)
+
+    private final FileChannel channel;
+    private final Object channelLock = new Object();
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final long flushIntervalNanos;
+    private final boolean flushOnError;
+    private final Thread flusher;
+
+    private volatile boolean running = true;
+    private volatile boolean urgentFlush;
+    /** Producers between their running check and publishing their line; the flusher outlives them */
+    private final AtomicInteger activeProducers = new AtomicInteger();
+
+    /**
+     * Opens the log file for appending and starts the flusher thread
+     * @param filePath Log file to append to
+     * @param capacity Number of lines the ring buffer can hold; rounded up to a power of two
+     * @param flushIntervalMillis Maximum time a drained line stays in the write buffer
+     * @param flushOnError Whether error lines are written and forced to disk immediately
+     * @throws IOException if the log file cannot be opened
+     */
+    public AsyncLogWriter(String filePath, int capacity, long flushIntervalMillis, boolean flushOnError) throws IOException {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.channel = FileChannel.open(Paths.get(filePath),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.buffer = ByteBuffer.allocateDirect(64 * 1024);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.flushOnError = flushOnError;
+
+        this.flusher = new Thread(this::runFlusher, "async-log-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Publishes a line to be appended to the log file. Blocks only while the ring buffer is full.
+     * @param line The line to append, without line separator
+     * @param error Whether the line is an error, which triggers flush-on-error
+     * @return false if the writer has been closed and the line was not accepted
+     */
+    public boolean append(String line, boolean error) {
+        // Registered before running is read, so a flusher that still sees no producers has already
+        // stopped running and this producer sees that and falls back instead of losing its line
+        activeProducers.incrementAndGet();
+        try {
+            return publish(line, error);
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Claims a ring slot and publishes the line into it
+     * @return false if the writer is closing and the line was not accepted
+     */
+    private boolean publish(String line, boolean error) {
+        if (!running) {
+            return false;
+        }
+
+        long sequence;
+        int spins = 0;
+        while (true) {
+            sequence = tail.get();
+            if (sequence - head.get() >= ring.length()) {
+                // Ring is full: wait for the flusher to drain
+                if (!running) {
+                    return false;
+                }
+                if (++spins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.unpark(flusher);
+                    LockSupport.parkNanos(100_000L);
+                }
+                continue;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+
+        ring.set((int) sequence & mask, new LogRecord(line, error));
+        if (error && flushOnError) {
+            urgentFlush = true;
+            LockSupport.unpark(flusher);
+        }
+        return true;
+    }
+
+    /**
+     * Blocks until every line published before this call has been written to the file
+     * @param timeoutMillis Maximum time to wait
+     */
+    public void flush(long timeoutMillis) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        urgentFlush = true;
+        while (written.get() < target && System.nanoTime() < deadline && flusher.isAlive()) {
+            LockSupport.unpark(flusher);
+            LockSupport.parkNanos(200_000L);
+        }
+    }
+
+    /**
+     * Discards the content of the log file, after writing out lines already published
+     * @throws IOException if the file cannot be truncated
+     */
+    public void truncate() throws IOException {
+        flush(5000);
+        synchronized (channelLock) {
+            channel.truncate(0);
+        }
+    }
+
+    private void runFlusher() {
+        long lastFlush = System.nanoTime();
+        while (running || activeProducers.get() > 0 || head.get() < tail.get()) {
+            boolean sawError = drain();
+
+            boolean intervalElapsed = System.nanoTime() - lastFlush >= flushIntervalNanos;
+            boolean urgent = urgentFlush || (sawError && flushOnError);
+            if (urgent || intervalElapsed) {
+                urgentFlush = false;
+                writeBuffer(urgent);
+                lastFlush = System.nanoTime();
+            }
+
+            if (head.get() == tail.get()) {
+                if (running) {
+                    LockSupport.parkNanos(this, flushIntervalNanos);
+                } else {
+                    // Closing: wait for the producers still publishing
+                    Thread.onSpinWait();
+                }
+            }
+        }
+        writeBuffer(true);
+    }
+
+    /**
+     * Moves every published line from the ring into the write buffer
+     * @return true if an error line was drained
+     */
+    private boolean drain() {
+        boolean sawError = false;
+        long sequence = head.get();
+        while (sequence < tail.get()) {
+            int index = (int) sequence & mask;
+            LogRecord record = ring.get(index);
+            if (record == null) {
+                // Slot claimed but not yet published
+                Thread.onSpinWait();
+                continue;
+            }
+            ring.set(index, null);
+            head.lazySet(++sequence);
+
+            encode(record.line);
+            encode(LINE_SEPARATOR);
+            encoded = sequence;
+            sawError |= record.error;
+        }
+        return sawError;
+    }
+
+    private void encode(String text) {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, true);
+            if (result.isOverflow()) {
+                writeBuffer(false);
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel, optionally forcing them to disk
+     */
+    private void writeBuffer(boolean force) {
+        long completed = encoded;
+        synchronized (channelLock) {
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (force) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to write to log file: " + e.getMessage());
+            } finally {
+                buffer.clear();
+            }
+        }
+        written.set(completed);
+    }
+
+    /**
+     * Stops accepting lines, drains everything already published and closes the file
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(10000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (channelLock) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close log file: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class LogRecord {
+        private final String line;
+        private final boolean error;
+
+        LogRecord(String line, boolean error) {
+            this.line = line;
+            this.error = error;
+        }
+    }
+}
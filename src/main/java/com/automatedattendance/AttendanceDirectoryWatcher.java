@@ -0,0 +1,341 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AttendanceDirectoryWatcher runs the application as a long-lived daemon that
+ * processes attendance files as they are dropped into a directory.
+ *
+ * New .xls/.xlsx/.csv/.tsv files are picked up through a {@link WatchService} once their
+ * size has stopped changing for the settle time (so half-copied files are not
+ * read), processed through the flexible pipeline of a single shared {@link App}
+ * on a bounded worker pool, and moved to the done or failed folder. Keeping one
+ * JVM and one App means POI classes, pooled SMTP connections and the log writer
+ * stay warm across files.
+ */
+public class AttendanceDirectoryWatcher implements AutoCloseable {
+
+    private final App app;
+    private final Path watchDir;
+    private final Path doneDir;
+    private final Path failedDir;
+    private final List<String> recipients;
+    private final long settleMillis;
+
+    private final WatchService watchService;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService settleChecker;
+
+    /** Files seen but not yet handed to a worker, with their last observed size and modification time */
+    private final Map<Path, FileState> settling = new ConcurrentHashMap<>();
+    /** Files queued or being processed, so repeated events do not submit them twice */
+    private final Set<Path> inProgress = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running = true;
+
+    /**
+     * Creates a watcher; call {@link #run()} to start processing
+     * @param app Application instance shared by all workers
+     * @param watchDir Directory to watch for incoming files
+     * @param doneDir Directory successfully processed files are moved to
+     * @param failedDir Directory files that failed processing are moved to
+     * @param recipients Recipients of the report emails
+     * @param workerThreads Number of files processed concurrently
+     * @param queueCapacity Number of settled files that may wait for a worker
+     * @param settleMillis How long a file's size must stay unchanged before it is processed
+     * @throws IOException if the directories cannot be created or watched
+     */
+    public AttendanceDirectoryWatcher(App app, String watchDir, String doneDir, String failedDir,
+                                      List<String> recipients, int workerThreads, int queueCapacity,
+                                      long settleMillis) throws IOException {
+        this.app = app;
+        this.watchDir = Paths.get(watchDir).toAbsolutePath().normalize();
+        this.doneDir = Paths.get(doneDir).toAbsolutePath().normalize();
+        this.failedDir = Paths.get(failedDir).toAbsolutePath().normalize();
+        this.recipients = recipients;
+        this.settleMillis = Math.max(0, settleMillis);
+
+        Files.createDirectories(this.watchDir);
+        Files.createDirectories(this.doneDir);
+        Files.createDirectories(this.failedDir);
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watchDir.register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        int threads = Math.max(1, workerThreads);
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                Thread thread = new Thread(runnable, "watch-worker-" + workerNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+        this.settleChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "watch-settle-checker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long checkInterval = Math.max(100, this.settleMillis / 2);
+        settleChecker.scheduleWithFixedDelay(this::submitSettledFiles, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a watcher configured from the ConfigManager, sending reports to the default recipients
+     * @param app Application instance shared by all workers
+     * @param watchDir Directory to watch, or null for the configured one
+     */
+    public static AttendanceDirectoryWatcher fromConfig(App app, String watchDir) throws IOException {
+        ConfigManager configManager = ConfigManager.getInstance();
+        String directory = watchDir != null ? watchDir : configManager.getWatchDirectory();
+        return new AttendanceDirectoryWatcher(app, directory,
+            watchDir != null ? directory + "/done" : configManager.getWatchDoneDirectory(),
+            watchDir != null ? directory + "/failed" : configManager.getWatchFailedDirectory(),
+            Config.getReceiverEmails(),
+            configManager.getWatchWorkerThreads(),
+            configManager.getWatchQueueCapacity(),
+            configManager.getWatchSettleMillis());
+    }
+
+    /**
+     * Processes files already waiting in the directory, then watches for new ones until {@link #close()} is called.
+     * Blocks the calling thread.
+     */
+    public void run() {
+        LoggerUtil.logInfo("Watching " + watchDir + " for attendance files");
+        System.out.println("Watching " + watchDir + " for attendance files (Ctrl+C to stop)");
+        scanDirectory();
+
+        while (running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ClosedWatchServiceException e) {
+                break;
+            }
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Events were lost; fall back to a full scan
+                    scanDirectory();
+                } else {
+                    track(watchDir.resolve((Path) event.context()));
+                }
+            }
+
+            if (!key.reset()) {
+                LoggerUtil.logError("Watch directory " + watchDir + " is no longer accessible");
+                break;
+            }
+        }
+    }
+
+    private void scanDirectory() {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(watchDir)) {
+            for (Path file : stream) {
+                track(file);
+            }
+        } catch (IOException e) {
+            LoggerUtil.logError("Failed to scan watch directory " + watchDir, e);
+        }
+    }
+
+    /**
+     * Starts (or restarts) the settle timer of a candidate file
+     */
+    private void track(Path file) {
+        if (!isAttendanceFile(file) || inProgress.contains(file)) {
+            return;
+        }
+        FileState state = FileState.of(file);
+        if (state != null) {
+            settling.put(file, state);
+        }
+    }
+
+    private static boolean isAttendanceFile(Path file) {
+        String name = file.getFileName().toString();
+        String lowerName = name.toLowerCase();
+        // Skip Office lock files (~$name.xlsx) and hidden files
+        return !name.startsWith("~$") && !name.startsWith(".")
+            && (lowerName.endsWith(".xlsx") || lowerName.endsWith(".xls") || CsvAttendanceReader.isCsvFile(lowerName))
+            && Files.isRegularFile(file);
+    }
+
+    /**
+     * Hands every file whose size and modification time have not changed for the settle time to the workers
+     */
+    private void submitSettledFiles() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Path, FileState> entry : settling.entrySet()) {
+            Path file = entry.getKey();
+            FileState previous = entry.getValue();
+            FileState current = FileState.of(file);
+
+            if (current == null) {
+                // Deleted or moved away before it settled
+                settling.remove(file, previous);
+            } else if (!current.sameContentAs(previous)) {
+                settling.replace(file, previous, current);
+            } else if (now - previous.observedAt >= settleMillis && settling.remove(file, previous)) {
+                submit(file);
+            }
+        }
+    }
+
+    private void submit(Path file) {
+        if (!inProgress.add(file)) {
+            return;
+        }
+        try {
+            workers.execute(() -> process(file));
+        } catch (RejectedExecutionException e) {
+            // Queue is full (or shutting down): keep the file and try again on the next check
+            inProgress.remove(file);
+            FileState state = FileState.settled(file);
+            if (running && state != null) {
+                settling.putIfAbsent(file, state);
+            }
+        }
+    }
+
+    private void process(Path file) {
+        long start = System.currentTimeMillis();
+        try {
+            LoggerUtil.logInfo("Picked up attendance file: " + file);
+            boolean success = app.processFlexibleAttendanceFile(file.toString(), recipients);
+            Path target = moveTo(file, success ? doneDir : failedDir);
+            String message = "Processed " + file.getFileName() + (success ? " successfully" : " with errors")
+                + " in " + (System.currentTimeMillis() - start) + " ms; moved to " + target;
+            if (success) {
+                LoggerUtil.logInfo(message);
+            } else {
+                LoggerUtil.logWarning(message);
+            }
+            System.out.println(message);
+        } catch (IOException e) {
+            LoggerUtil.logError("Failed to move processed file " + file, e);
+        } catch (RuntimeException e) {
+            LoggerUtil.logError("Unexpected error while processing " + file, e);
+            try {
+                moveTo(file, failedDir);
+            } catch (IOException moveException) {
+                LoggerUtil.logError("Failed to move " + file + " to " + failedDir, moveException);
+            }
+        } finally {
+            inProgress.remove(file);
+        }
+    }
+
+    /**
+     * Moves a file into the target directory, adding a timestamp if a file with the same name is already there
+     */
+    private static Path moveTo(Path file, Path directory) throws IOException {
+        Path target = directory.resolve(file.getFileName());
+        if (Files.exists(target)) {
+            target = directory.resolve(System.currentTimeMillis() + "-" + file.getFileName());
+        }
+        try {
+            return Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            return Files.move(file, target);
+        }
+    }
+
+    /**
+     * Stops watching, lets queued files finish and releases the watch service
+     * @param timeoutMillis Maximum time to wait for files being processed
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        settleChecker.shutdownNow();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LoggerUtil.logWarning("Failed to close watch service: " + e.getMessage());
+        }
+
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                LoggerUtil.logWarning("Attendance files still processing after " + timeoutMillis
+                    + " ms; they remain in " + watchDir + " and are picked up on the next start");
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        shutdown(60000);
+    }
+
+    /**
+     * Size and modification time of a file at the moment it was observed
+     */
+    private static class FileState {
+        private final long size;
+        private final long lastModified;
+        private final long observedAt;
+
+        private FileState(long size, long lastModified, long observedAt) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.observedAt = observedAt;
+        }
+
+        /**
+         * @return the current state, or null if the file no longer exists
+         */
+        static FileState of(Path file) {
+            try {
+                return new FileState(Files.size(file), Files.getLastModifiedTime(file).toMillis(),
+                    System.currentTimeMillis());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @return a state that counts as settled on the next check, for files that were already settled once
+         */
+        static FileState settled(Path file) {
+            FileState state = of(file);
+            return state != null ? new FileState(state.size, state.lastModified, 0L) : null;
+        }
+
+        boolean sameContentAs(FileState other) {
+            return size == other.size && lastModified == other.lastModified;
+        }
+    }
+}
@@ -182,7 +182,7 @@ public class AttendanceGUI extends JFrame {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Select Excel File");
         fileChooser.setFileFilter(new FileNameExtensionFilter(
-            "Excel Files (.xls, .xlsx)", "xls", "xlsx"));
+            "Attendance Files (.xls, .xlsx, .csv, .tsv)", "xls", "xlsx", "csv", "tsv"));
         
         int result = fileChooser.showOpenDialog(this);
         if (result == JFileChooser.APPROVE_OPTION) {
@@ -327,6 +327,9 @@ public class AttendanceGUI extends JFrame {
      * Main method to launch the GUI application
      */
     public static void main(String[] args) {
+        // Deliver emails left in the outbox by an earlier run
+        OutboxDispatcher.startSharedIfEnabled();
+        
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
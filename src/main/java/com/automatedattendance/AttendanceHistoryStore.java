@@ -0,0 +1,646 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AttendanceHistoryStore keeps every processed day of attendance on local disk
+ * so trends can be queried later without re-reading the spreadsheets.
+ *
+ * Data lives in append-only segments. Each segment is a pair of files:
+ * {@code segment-NNNNNN.dat} holds the records of each appended day one after
+ * another, and {@code segment-NNNNNN.idx} holds one block per appended day with
+ * the day, a batch number, the location of its records, the name of the source
+ * file and an index of (P.no hash, record offset) entries sorted by hash. A
+ * record is a status code (see {@link #statusCode}) followed by the P.no, name
+ * and shop as length-prefixed UTF-8. Segments roll over once the data file
+ * reaches the configured size.
+ *
+ * Records are written and synced before their index block, so a crash can at
+ * worst leave unindexed data or a truncated last block, which is dropped when
+ * the store is opened. Reads go through read-only memory-mapped views of the
+ * files. A day can hold batches from several source files; when the same file
+ * is processed again for a day its newest batch replaces the older one.
+ *
+ * All methods are synchronized; one store instance should own the directory.
+ */
+public class AttendanceHistoryStore implements AutoCloseable {
+
+    /** Block followed by its source name, with records holding status codes */
+    private static final int BLOCK_MAGIC = 0x41484932; // "AHI2"
+    /** magic, epoch day, batch, data offset, data length, entry count; followed by the source name in a block */
+    private static final int BLOCK_HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4;
+    /** P.no hash, record offset */
+    private static final int ENTRY_BYTES = 4 + 8;
+    private static final int NULL_LENGTH = 0xFFFF;
+    private static final int MAX_STRING_BYTES = 0xFFFE;
+    private static final Pattern ISO_DATE = Pattern.compile("(\\d{4}-\\d{2}-\\d{2})");
+
+    private static AttendanceHistoryStore sharedInstance;
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+
+    private final List<Segment> segments = new ArrayList<>();
+    /** Newest batch of every source file, per recorded day */
+    private final NavigableMap<Long, Map<String, Batch>> batchesByDay = new TreeMap<>();
+    private long lastBatchNumber;
+
+    /**
+     * Opens (and creates if needed) a history store in the given directory
+     * @param directory Directory holding the segment files
+     * @param segmentMaxBytes Data file size at which a new segment is started
+     * @throws IOException if the directory or existing segments cannot be read
+     */
+    public AttendanceHistoryStore(String directory, long segmentMaxBytes) throws IOException {
+        this.directory = Paths.get(directory);
+        // Offsets within a segment are read through int-indexed mapped views
+        this.segmentMaxBytes = Math.min(Math.max(1024, segmentMaxBytes), 1L << 30);
+        Files.createDirectories(this.directory);
+
+        List<Path> indexFiles = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "segment-*.idx")) {
+            for (Path file : stream) {
+                indexFiles.add(file);
+            }
+        }
+        indexFiles.sort(null);
+        for (Path indexFile : indexFiles) {
+            String name = indexFile.getFileName().toString();
+            int number = Integer.parseInt(name.substring("segment-".length(), name.length() - ".idx".length()));
+            Segment segment = new Segment(number);
+            segments.add(segment);
+            loadIndex(segment);
+        }
+    }
+
+    /**
+     * Returns the store configured in the ConfigManager, opening it on first use
+     * @throws IOException if the store cannot be opened
+     */
+    public static synchronized AttendanceHistoryStore getShared() throws IOException {
+        if (sharedInstance == null) {
+            ConfigManager configManager = ConfigManager.getInstance();
+            sharedInstance = new AttendanceHistoryStore(configManager.getHistoryDirectory(),
+                configManager.getHistorySegmentMaxBytes());
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Closes the shared store if it was opened
+     */
+    public static synchronized void closeShared() {
+        if (sharedInstance != null) {
+            sharedInstance.close();
+            sharedInstance = null;
+        }
+    }
+
+    /**
+     * Picks the attendance date of a file: an ISO date (yyyy-MM-dd) in the file name, otherwise today
+     * @param filePath Path of the attendance file
+     */
+    public static LocalDate dateForFile(String filePath) {
+        Matcher matcher = ISO_DATE.matcher(Paths.get(filePath).getFileName().toString());
+        while (matcher.find()) {
+            try {
+                return LocalDate.parse(matcher.group(1));
+            } catch (DateTimeParseException e) {
+                // Not a real date (e.g. 2024-13-45); keep looking
+            }
+        }
+        return LocalDate.now();
+    }
+
+    /**
+     * Appends one file's attendance for a day. Appending the same source file for a day that
+     * already holds it supersedes the earlier records of that file; other files of the day are kept.
+     * @param date Attendance date
+     * @param source Name of the file the records were read from
+     * @param students Students of that day
+     * @throws IOException if the records cannot be written
+     */
+    public synchronized void appendDay(LocalDate date, String source, List<Student> students) throws IOException {
+        String sourceName = source != null ? source : "";
+        Segment segment = activeSegment();
+        long batchNumber = lastBatchNumber + 1;
+
+        // Encode the records and their index entries
+        ByteBuffer data = ByteBuffer.allocate(Math.max(64, students.size() * 48));
+        long dataOffset = Files.exists(segment.dataFile) ? Files.size(segment.dataFile) : 0L;
+        long[][] entries = new long[students.size()][];
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+            entries[i] = new long[] {hash(student.getPNo()), dataOffset + data.position()};
+            data = ensureCapacity(data, 1);
+            data.put(statusCode(student.getAttendanceStatus()));
+            data = putString(data, student.getPNo());
+            data = putString(data, student.getName());
+            data = putString(data, student.getShop());
+        }
+        data.flip();
+        int dataLength = data.remaining();
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+
+        try (FileChannel channel = FileChannel.open(segment.dataFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.position(dataOffset);
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            channel.force(false);
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_BYTES + 2 + entries.length * ENTRY_BYTES);
+        block.putInt(BLOCK_MAGIC);
+        block.putInt((int) date.toEpochDay());
+        block.putLong(batchNumber);
+        block.putLong(dataOffset);
+        block.putInt(dataLength);
+        block.putInt(entries.length);
+        block = putString(block, sourceName);
+        int entriesStart = block.position();
+        block = ensureCapacity(block, entries.length * ENTRY_BYTES);
+        for (long[] entry : entries) {
+            block.putInt((int) entry[0]);
+            block.putLong(entry[1]);
+        }
+        block.flip();
+        long blockOffset;
+        try (FileChannel channel = FileChannel.open(segment.indexFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            blockOffset = channel.size();
+            channel.position(blockOffset);
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+            channel.force(false);
+        }
+
+        Batch replaced = register(new Batch(segment, date.toEpochDay(), batchNumber, sourceName,
+            dataOffset, dataLength, blockOffset + entriesStart, entries.length));
+        if (replaced != null) {
+            LoggerUtil.logInfo("History batch " + batchNumber + " of " + sourceName + " for " + date
+                + " replaces batch " + replaced.batchNumber);
+        }
+    }
+
+    /**
+     * @return the recorded dates, oldest first
+     */
+    public synchronized List<LocalDate> getRecordedDates() {
+        List<LocalDate> dates = new ArrayList<>(batchesByDay.size());
+        for (long epochDay : batchesByDay.keySet()) {
+            dates.add(LocalDate.ofEpochDay(epochDay));
+        }
+        return dates;
+    }
+
+    /**
+     * Reads the records of one day from all of its source files, in the order they were appended
+     * @return the records, empty if the day is not recorded
+     * @throws IOException if the segment files cannot be read
+     */
+    public synchronized List<HistoryRecord> getDay(LocalDate date) throws IOException {
+        List<HistoryRecord> records = new ArrayList<>();
+        for (Batch batch : batchesOf(date.toEpochDay())) {
+            ByteBuffer data = batch.segment.data(batch.dataOffset + batch.dataLength);
+            int position = (int) batch.dataOffset;
+            int end = position + batch.dataLength;
+            int[] cursor = {position};
+            while (cursor[0] < end) {
+                records.add(readRecord(data, cursor, date, batch));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads every recorded day in a date range
+     * @param from First date, inclusive
+     * @param to Last date, inclusive
+     * @return records per date, oldest first; days that were not recorded are absent
+     * @throws IOException if the segment files cannot be read
+     */
+    public synchronized NavigableMap<LocalDate, List<HistoryRecord>> getRange(LocalDate from, LocalDate to) throws IOException {
+        NavigableMap<LocalDate, List<HistoryRecord>> days = new TreeMap<>();
+        for (long epochDay : batchesByDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true).keySet()) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            days.put(date, getDay(date));
+        }
+        return days;
+    }
+
+    /**
+     * Looks up one person's records through the per-day P.no index
+     * @param pNo P.no to look up
+     * @param from First date, inclusive
+     * @param to Last date, inclusive
+     * @return the person's records, oldest first
+     * @throws IOException if the segment files cannot be read
+     */
+    public synchronized List<HistoryRecord> getStudentHistory(String pNo, LocalDate from, LocalDate to) throws IOException {
+        List<HistoryRecord> records = new ArrayList<>();
+        int hash = hash(pNo);
+        List<Batch> batches = new ArrayList<>();
+        for (long epochDay : batchesByDay.subMap(from.toEpochDay(), true, to.toEpochDay(), true).keySet()) {
+            batches.addAll(batchesOf(epochDay));
+        }
+        for (Batch batch : batches) {
+            ByteBuffer index = batch.segment.index(batch.entriesOffset + (long) batch.entryCount * ENTRY_BYTES);
+            ByteBuffer data = batch.segment.data(batch.dataOffset + batch.dataLength);
+            LocalDate date = LocalDate.ofEpochDay(batch.epochDay);
+
+            // Binary search for the first entry with the hash, then walk the run of equal hashes
+            int low = 0;
+            int high = batch.entryCount;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (index.getInt(entryPosition(batch, middle)) < hash) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            for (int entry = low; entry < batch.entryCount && index.getInt(entryPosition(batch, entry)) == hash; entry++) {
+                int[] cursor = {(int) index.getLong(entryPosition(batch, entry) + 4)};
+                HistoryRecord record = readRecord(data, cursor, date, batch);
+                if (pNo.equals(record.getPNo())) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public synchronized void close() {
+        // Mapped views are released by the garbage collector; dropping them is all that is needed
+        for (Segment segment : segments) {
+            segment.dataView = null;
+            segment.indexView = null;
+        }
+    }
+
+    /**
+     * @return the batches of a day, oldest first
+     */
+    private List<Batch> batchesOf(long epochDay) {
+        Map<String, Batch> bySource = batchesByDay.get(epochDay);
+        if (bySource == null) {
+            return new ArrayList<>();
+        }
+        List<Batch> batches = new ArrayList<>(bySource.values());
+        batches.sort((a, b) -> Long.compare(a.batchNumber, b.batchNumber));
+        return batches;
+    }
+
+    private static int entryPosition(Batch batch, int entry) {
+        return (int) (batch.entriesOffset + (long) entry * ENTRY_BYTES);
+    }
+
+    private Segment activeSegment() throws IOException {
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last == null || (Files.exists(last.dataFile) && Files.size(last.dataFile) >= segmentMaxBytes)) {
+            last = new Segment(last == null ? 1 : last.number + 1);
+            segments.add(last);
+        }
+        return last;
+    }
+
+    /**
+     * Reads the block headers of a segment's index, truncating a partially written last block
+     */
+    private void loadIndex(Segment segment) throws IOException {
+        long dataSize = Files.exists(segment.dataFile) ? Files.size(segment.dataFile) : 0L;
+        try (FileChannel channel = FileChannel.open(segment.indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long indexSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_BYTES);
+            long position = 0;
+            while (position + BLOCK_HEADER_BYTES <= indexSize) {
+                header.clear();
+                readFully(channel, header, position);
+                int magic = header.getInt(0);
+                if (magic != BLOCK_MAGIC) {
+                    break;
+                }
+                long epochDay = header.getInt(4);
+                long batchNumber = header.getLong(8);
+                long dataOffset = header.getLong(16);
+                int dataLength = header.getInt(24);
+                int entryCount = header.getInt(28);
+                long entriesOffset = position + BLOCK_HEADER_BYTES;
+                byte[] sourceBytes = readSource(channel, entriesOffset, indexSize);
+                if (sourceBytes == null) {
+                    break;
+                }
+                String source = new String(sourceBytes, StandardCharsets.UTF_8);
+                entriesOffset += 2 + sourceBytes.length;
+                long blockEnd = entriesOffset + (long) entryCount * ENTRY_BYTES;
+                if (entryCount < 0 || dataLength < 0 || blockEnd > indexSize || dataOffset + dataLength > dataSize) {
+                    break;
+                }
+                register(new Batch(segment, epochDay, batchNumber, source,
+                    dataOffset, dataLength, entriesOffset, entryCount));
+                position = blockEnd;
+            }
+
+            if (position < indexSize) {
+                LoggerUtil.logWarning("Dropping incomplete history index data at offset " + position + " of " + segment.indexFile);
+                channel.truncate(position);
+            }
+        }
+    }
+
+    /**
+     * Reads the length-prefixed source name that follows a block header
+     * @return the name's UTF-8 bytes, or null if it extends past the end of the index
+     */
+    private static byte[] readSource(FileChannel channel, long offset, long indexSize) throws IOException {
+        if (offset + 2 > indexSize) {
+            return null;
+        }
+        ByteBuffer length = ByteBuffer.allocate(2);
+        readFully(channel, length, offset);
+        int byteCount = length.getShort(0) & 0xFFFF;
+        if (byteCount == NULL_LENGTH || offset + 2 + byteCount > indexSize) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(byteCount);
+        readFully(channel, bytes, offset + 2);
+        return bytes.array();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+            // Positional reads until the buffer is full
+        }
+    }
+
+    /**
+     * Makes a batch the current one for its day and source file, unless a newer one is already known.
+     * @return the batch that was superseded, or null
+     */
+    private Batch register(Batch batch) {
+        lastBatchNumber = Math.max(lastBatchNumber, batch.batchNumber);
+        Map<String, Batch> bySource = batchesByDay.computeIfAbsent(batch.epochDay, day -> new HashMap<>());
+        Batch current = bySource.get(batch.source);
+        if (current != null && current.batchNumber > batch.batchNumber) {
+            return null;
+        }
+        bySource.put(batch.source, batch);
+        return current;
+    }
+
+    private static HistoryRecord readRecord(ByteBuffer data, int[] cursor, LocalDate date, Batch batch) {
+        byte code = data.get(cursor[0]++);
+        String pNo = readString(data, cursor);
+        String name = readString(data, cursor);
+        String shop = readString(data, cursor);
+        return new HistoryRecord(date, batch.source, pNo, name, shop, statusForCode(code));
+    }
+
+    /**
+     * Stable on-disk code of a status, independent of the enum's declaration order
+     */
+    static byte statusCode(AttendanceStatus status) {
+        switch (status) {
+            case PRESENT:
+                return 'P';
+            case ABSENT:
+                return 'A';
+            case LEAVE:
+                return 'L';
+            case HOLIDAY:
+                return 'H';
+            case SICK:
+                return 'S';
+            case OFF:
+                return 'O';
+            default:
+                return 'U';
+        }
+    }
+
+    static AttendanceStatus statusForCode(byte code) {
+        switch (code) {
+            case 'P':
+                return AttendanceStatus.PRESENT;
+            case 'A':
+                return AttendanceStatus.ABSENT;
+            case 'L':
+                return AttendanceStatus.LEAVE;
+            case 'H':
+                return AttendanceStatus.HOLIDAY;
+            case 'S':
+                return AttendanceStatus.SICK;
+            case 'O':
+                return AttendanceStatus.OFF;
+            default:
+                return AttendanceStatus.UNKNOWN;
+        }
+    }
+
+    static String readString(ByteBuffer data, int[] cursor) {
+        int length = data.getShort(cursor[0]) & 0xFFFF;
+        cursor[0] += 2;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = data.get(cursor[0] + i);
+        }
+        cursor[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static ByteBuffer putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer = ensureCapacity(buffer, 2);
+            buffer.putShort((short) NULL_LENGTH);
+            return buffer;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        if (length > MAX_STRING_BYTES) {
+            // Cut oversized cells at a character boundary
+            length = MAX_STRING_BYTES;
+            while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+                length--;
+            }
+        }
+        buffer = ensureCapacity(buffer, 2 + length);
+        buffer.putShort((short) length);
+        buffer.put(bytes, 0, length);
+        return buffer;
+    }
+
+    static ByteBuffer ensureCapacity(ByteBuffer buffer, int additional) {
+        if (buffer.remaining() >= additional) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + additional));
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+
+    private static int hash(String pNo) {
+        return pNo != null ? pNo.hashCode() : 0;
+    }
+
+    /**
+     * One data/index file pair with lazily (re)mapped read-only views
+     */
+    private class Segment {
+        private final int number;
+        private final Path dataFile;
+        private final Path indexFile;
+        private MappedByteBuffer dataView;
+        private MappedByteBuffer indexView;
+
+        Segment(int number) {
+            this.number = number;
+            String name = String.format("segment-%06d", number);
+            this.dataFile = directory.resolve(name + ".dat");
+            this.indexFile = directory.resolve(name + ".idx");
+        }
+
+        /**
+         * @return a view of the data file covering at least the given number of bytes
+         */
+        ByteBuffer data(long requiredBytes) throws IOException {
+            if (dataView == null || dataView.capacity() < requiredBytes) {
+                dataView = map(dataFile);
+            }
+            return dataView;
+        }
+
+        /**
+         * @return a view of the index file covering at least the given number of bytes
+         */
+        ByteBuffer index(long requiredBytes) throws IOException {
+            if (indexView == null || indexView.capacity() < requiredBytes) {
+                indexView = map(indexFile);
+            }
+            return indexView;
+        }
+
+        private MappedByteBuffer map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("History segment larger than 2 GB: " + file);
+                }
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+    }
+
+    /**
+     * Location of one appended file of a day
+     */
+    private static class Batch {
+        private final Segment segment;
+        private final long epochDay;
+        private final long batchNumber;
+        /** Source file name */
+        private final String source;
+        private final long dataOffset;
+        private final int dataLength;
+        private final long entriesOffset;
+        private final int entryCount;
+
+        Batch(Segment segment, long epochDay, long batchNumber, String source,
+              long dataOffset, int dataLength, long entriesOffset, int entryCount) {
+            this.segment = segment;
+            this.epochDay = epochDay;
+            this.batchNumber = batchNumber;
+            this.source = source;
+            this.dataOffset = dataOffset;
+            this.dataLength = dataLength;
+            this.entriesOffset = entriesOffset;
+            this.entryCount = entryCount;
+        }
+    }
+
+    /**
+     * One person's attendance on one day
+     */
+    public static class HistoryRecord {
+        private final LocalDate date;
+        private final String source;
+        private final String pNo;
+        private final String name;
+        private final String shop;
+        private final AttendanceStatus status;
+
+        public HistoryRecord(LocalDate date, String source, String pNo, String name, String shop, AttendanceStatus status) {
+            this.date = date;
+            this.source = source;
+            this.pNo = pNo;
+            this.name = name;
+            this.shop = shop;
+            this.status = status;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        /**
+         * @return the name of the file the record was read from
+         */
+        public String getSource() {
+            return source;
+        }
+
+        public String getPNo() {
+            return pNo;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getShop() {
+            return shop;
+        }
+
+        public AttendanceStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public String toString() {
+            return "HistoryRecord{" +
+                    "date=" + date +
+                    ", source='" + source + '\'' +
+                    ", pNo='" + pNo + '\'' +
+                    ", name='" + name + '\'' +
+                    ", shop='" + shop + '\'' +
+                    ", status=" + status +
+                    '}';
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.automatedattendance;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * AttendanceProcessor class to calculate attendance summaries from student data.
@@ -8,6 +11,9 @@ import java.util.List;
  */
 public class AttendanceProcessor {
     
+    /** Report template, loaded through {@link ReportTemplate#forName(String)} */
+    private static final String TEMPLATE_NAME = "summary-report.html";
+    
     /**
      * Calculates attendance statistics from a list of students
      * @param students List of Student objects containing attendance data
@@ -28,8 +34,7 @@ public class AttendanceProcessor {
             } else if (student.isAbsent()) {
                 absentCount++;
             }
-            // If status is neither "Present" nor "Absent", it's considered invalid
-            // and not counted in either category
+            // Statuses that are neither present nor a kind of absence are not counted in either category
         }
         
         // Calculate attendance percentage
@@ -45,52 +50,68 @@ public class AttendanceProcessor {
      * @return Formatted string with attendance summary
      */
     public String generateSummaryText(List<Student> students) {
-        AttendanceSummary summary = calculateAttendanceSummary(students);
+        return generateSummaryText(calculateAttendanceSummary(students), students);
+    }
+    
+    /**
+     * Calculates attendance statistics from a compact roster without materializing Student objects
+     * @param roster Roster containing attendance data
+     * @return AttendanceSummary object containing calculated statistics
+     */
+    public AttendanceSummary calculateAttendanceSummary(CompactRoster roster) {
+        if (roster == null || roster.size() == 0) {
+            return new AttendanceSummary(0, 0, 0, 0.0);
+        }
         
-        StringBuilder sb = new StringBuilder();
-        sb.append("<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Strict//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-strict.dtd\">\n");
-        sb.append("<html xmlns=\"http://www.w3.org/1999/xhtml\">\n");
-        sb.append("<head>\n");
-        sb.append("    <meta http-equiv=\"Content-Type\" content=\"text/html; charset=utf-8\" />\n");
-        sb.append("    <title>Attendance Summary Report</title>\n");
-        sb.append("</head>\n");
-        sb.append("<body style=\"font-family: Arial, sans-serif; margin: 20px; background-color: #f9f9f9;\">\n");
-        sb.append("    <h2 style=\"color: #333; border-bottom: 2px solid #007cba; padding-bottom: 10px;\">Attendance Summary Report</h2>\n");
-        sb.append("    <div style=\"margin-bottom: 20px; background-color: white; padding: 15px; border-radius: 5px; box-shadow: 0 2px 5px rgba(0,0,0,0.1);\">\n");
-        sb.append("        <p><strong style=\"color: #333;\">Total Students:</strong> <span style=\"color: #666;\">").append(summary.getTotalStudents()).append("</span></p>\n");
-        sb.append("        <p><strong style=\"color: #333;\">Present:</strong> <span style=\"color: #666;\">").append(summary.getPresentCount()).append("</span></p>\n");
-        sb.append("        <p><strong style=\"color: #333;\">Absent:</strong> <span style=\"color: #666;\">").append(summary.getAbsentCount()).append("</span></p>\n");
-        sb.append("        <p><strong style=\"color: #333;\">Attendance Percentage:</strong> <span style=\"color: #666;\">").append(String.format("%.2f", summary.getAttendancePercentage())).append("%</span></p>\n");
-        sb.append("    </div>\n");
+        int totalStudents = roster.size();
+        int presentCount = roster.countPresent();
+        int absentCount = roster.countAbsent();
+        double attendancePercentage = (double) presentCount / totalStudents * 100;
+        
+        return new AttendanceSummary(totalStudents, presentCount, absentCount, attendancePercentage);
+    }
+    
+    /**
+     * Generates a formatted attendance summary string for email from a compact roster.
+     * Only the absent students listed in the report are materialized.
+     * @param roster Roster containing attendance data
+     * @return Formatted string with attendance summary
+     */
+    public String generateSummaryText(CompactRoster roster) {
+        return generateSummaryText(calculateAttendanceSummary(roster), roster.absentStudents());
+    }
+    
+    /**
+     * Generates a formatted attendance summary string for email from statistics calculated beforehand
+     * @param summary Statistics shown at the top of the report
+     * @param students Students whose absent entries are listed in the report
+     * @return Formatted string with attendance summary
+     */
+    public String generateSummaryText(AttendanceSummary summary, List<Student> students) {
+        Map<String, Object> model = new HashMap<>();
+        model.put("totalStudents", summary.getTotalStudents());
+        model.put("presentCount", summary.getPresentCount());
+        model.put("absentCount", summary.getAbsentCount());
+        model.put("attendancePercentage", String.format("%.2f", summary.getAttendancePercentage()));
         
         // Add table of absent students if any
         if (summary.getAbsentCount() > 0) {
-            sb.append("    <div style=\"font-weight: bold; margin-top: 15px; margin-bottom: 5px; color: #333;\"><strong>Absent Students:</strong></div>\n");
-            sb.append("    <table style=\"border-collapse: collapse; width: 100%; margin-top: 10px; background-color: white; border: 1px solid #ccc;\">\n");
-            sb.append("        <thead>\n");
-            sb.append("            <tr style=\"background-color: #f2f2f2;\">\n");
-            sb.append("                <th style=\"border: 1px solid #ddd; padding: 8px; text-align: left; font-weight: bold;\">P.No</th>\n");
-            sb.append("                <th style=\"border: 1px solid #ddd; padding: 8px; text-align: left; font-weight: bold;\">Name</th>\n");
-            sb.append("            </tr>\n");
-            sb.append("        </thead>\n");
-            sb.append("        <tbody>\n");
+            List<Map<String, Object>> absentees = new ArrayList<>(summary.getAbsentCount());
             for (Student student : students) {
                 if (student.isAbsent()) {
-                    sb.append("            <tr>\n");
-                    sb.append("                <td style=\"border: 1px solid #ddd; padding: 8px;\">").append(student.getPNo()).append("</td>\n");
-                    sb.append("                <td style=\"border: 1px solid #ddd; padding: 8px;\">").append(student.getName()).append("</td>\n");
-                    sb.append("            </tr>\n");
+                    Map<String, Object> absentee = new HashMap<>(4);
+                    absentee.put("pNo", student.getPNo());
+                    absentee.put("name", student.getName());
+                    absentees.add(absentee);
                 }
             }
-            sb.append("        </tbody>\n");
-            sb.append("    </table>\n");
+            model.put("hasAbsentees", true);
+            model.put("absentees", absentees);
         }
         
-        sb.append("    <p style=\"margin-top: 20px; color: #666; font-style: italic;\"><em>Generated on: ").append(new java.util.Date()).append("</em></p>\n");
-        sb.append("</body>\n");
-        sb.append("</html>\n");
+        model.put("generatedOn", new java.util.Date());
         
-        return sb.toString();
+        return ReportTemplate.forName(TEMPLATE_NAME).renderToString(model);
     }
     
     /**
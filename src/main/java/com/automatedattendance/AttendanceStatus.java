@@ -0,0 +1,112 @@
+package com.automatedattendance;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * AttendanceStatus is the classified form of a Status cell.
+ *
+ * Cells are classified once, when a sheet is read, and the result is stored
+ * on the {@link Student}; counting and filtering then compare enum constants
+ * instead of re-examining the text. Known spellings are looked up in a
+ * precomputed table and other values are classified by keyword once and
+ * cached, so repeated values cost a single map lookup.
+ *
+ * LEAVE, HOLIDAY, SICK and OFF count as absent.
+ */
+public enum AttendanceStatus {
+    PRESENT,
+    ABSENT,
+    LEAVE,
+    HOLIDAY,
+    SICK,
+    OFF,
+    UNKNOWN;
+
+    /** Upper bound on cached unrecognized spellings, so free-text columns cannot grow the cache without limit */
+    private static final int MAX_CACHED_VALUES = 4096;
+
+    /** Precomputed classification of common spellings, keyed by lower-case trimmed text */
+    private static final Map<String, AttendanceStatus> KNOWN_VALUES = new HashMap<>();
+    /** Classification of raw cell values seen so far, keyed by the untouched cell text */
+    private static final Map<String, AttendanceStatus> CACHE = new ConcurrentHashMap<>();
+
+    static {
+        for (String spelling : new String[] {"present", "p", "yes", "here", "active"}) {
+            KNOWN_VALUES.put(spelling, PRESENT);
+        }
+        for (String spelling : new String[] {"absent", "a", "no"}) {
+            KNOWN_VALUES.put(spelling, ABSENT);
+        }
+        KNOWN_VALUES.put("leave", LEAVE);
+        KNOWN_VALUES.put("on leave", LEAVE);
+        KNOWN_VALUES.put("holiday", HOLIDAY);
+        KNOWN_VALUES.put("sick", SICK);
+        KNOWN_VALUES.put("off", OFF);
+    }
+
+    /**
+     * @return true for PRESENT
+     */
+    public boolean countsAsPresent() {
+        return this == PRESENT;
+    }
+
+    /**
+     * @return true for ABSENT and the kinds of absence (LEAVE, HOLIDAY, SICK, OFF)
+     */
+    public boolean countsAsAbsent() {
+        return this != PRESENT && this != UNKNOWN;
+    }
+
+    /**
+     * Classifies a Status cell value
+     * @param status Cell text in any case, with or without surrounding spaces; null yields UNKNOWN
+     * @return the classification
+     */
+    public static AttendanceStatus of(String status) {
+        if (status == null) {
+            return UNKNOWN;
+        }
+        AttendanceStatus cached = CACHE.get(status);
+        if (cached != null) {
+            return cached;
+        }
+        AttendanceStatus result = classify(status.trim().toLowerCase());
+        if (CACHE.size() < MAX_CACHED_VALUES) {
+            CACHE.put(status, result);
+        }
+        return result;
+    }
+
+    /**
+     * Keyword rules, in the order {@link FlexibleExcelReader#normalizeStatus} has always applied them:
+     * any presence keyword wins over absence keywords
+     */
+    private static AttendanceStatus classify(String lowerStatus) {
+        AttendanceStatus known = KNOWN_VALUES.get(lowerStatus);
+        if (known != null) {
+            return known;
+        }
+        if (lowerStatus.contains("present") || lowerStatus.contains("here") || lowerStatus.contains("active")) {
+            return PRESENT;
+        }
+        if (lowerStatus.contains("absent")) {
+            return ABSENT;
+        }
+        if (lowerStatus.contains("leave")) {
+            return LEAVE;
+        }
+        if (lowerStatus.contains("sick")) {
+            return SICK;
+        }
+        if (lowerStatus.contains("holiday")) {
+            return HOLIDAY;
+        }
+        if (lowerStatus.contains("off")) {
+            return OFF;
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,321 @@
+package com.automatedattendance;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * AttendanceWorkbookGenerator writes synthetic attendance sheets for load testing.
+ *
+ * Sheets have P.no, Name, Status and Shop columns (optionally Email). Header
+ * names can be drawn from {@link FlexibleExcelReader#COLUMN_MAPPINGS} and
+ * statuses from the spellings understood by {@link FlexibleExcelReader#normalizeStatus}.
+ * Output is deterministic for a given seed. .xlsx files are streamed through
+ * SXSSF so only a small window of rows is kept in memory; .csv files are
+ * written line by line. .xls files are limited to 65,535 data rows by the format.
+ *
+ * Usage: java -cp automated-attendance-system.jar com.automatedattendance.AttendanceWorkbookGenerator
+ *        --out attendance.xlsx [--rows 100000] [--shops 12] [--absent-ratio 0.1]
+ *        [--header-variants] [--status-variants] [--with-email] [--seed 42]
+ */
+public class AttendanceWorkbookGenerator {
+
+    /** Maximum number of data rows in an .xls sheet (65,536 rows including the header) */
+    public static final int MAX_XLS_ROWS = 65535;
+
+    private static final int SXSSF_WINDOW_SIZE = 100;
+    private static final String[] CANONICAL_HEADERS = {"P.no", "Name", "Status", "Shop", "Email"};
+    private static final String[] PRESENT_SPELLINGS = {"Present", "present", "PRESENT", "P", "Yes", "Here", "Active"};
+    private static final String[] ABSENT_SPELLINGS = {"Absent", "absent", "ABSENT", "A", "No", "On Leave", "Sick", "Holiday", "Off"};
+
+    private int rowCount = 1000;
+    private int shopCount = 12;
+    private double absentRatio = 0.1;
+    private boolean headerVariants;
+    private boolean statusVariants;
+    private boolean includeEmail;
+    private long seed = 42L;
+
+    public int getRowCount() { return rowCount; }
+    public void setRowCount(int rowCount) { this.rowCount = Math.max(0, rowCount); }
+
+    public int getShopCount() { return shopCount; }
+    public void setShopCount(int shopCount) { this.shopCount = Math.max(1, shopCount); }
+
+    public double getAbsentRatio() { return absentRatio; }
+    public void setAbsentRatio(double absentRatio) { this.absentRatio = Math.min(1.0, Math.max(0.0, absentRatio)); }
+
+    public boolean isHeaderVariants() { return headerVariants; }
+    public void setHeaderVariants(boolean headerVariants) { this.headerVariants = headerVariants; }
+
+    public boolean isStatusVariants() { return statusVariants; }
+    public void setStatusVariants(boolean statusVariants) { this.statusVariants = statusVariants; }
+
+    public boolean isIncludeEmail() { return includeEmail; }
+    public void setIncludeEmail(boolean includeEmail) { this.includeEmail = includeEmail; }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /**
+     * Writes a sheet to the given path; the format is chosen by the file extension (.xlsx, .xls or .csv)
+     * @param filePath Output file path
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the extension is unsupported or the row count exceeds the .xls limit
+     */
+    public void generate(String filePath) throws IOException {
+        String lowerPath = filePath.toLowerCase();
+        if (lowerPath.endsWith(".xlsx")) {
+            generateXlsx(filePath);
+        } else if (lowerPath.endsWith(".xls")) {
+            generateXls(filePath);
+        } else if (lowerPath.endsWith(".csv")) {
+            generateCsv(filePath);
+        } else {
+            throw new IllegalArgumentException("Unsupported output format: " + filePath + " (expected .xlsx, .xls or .csv)");
+        }
+    }
+
+    private void generateXlsx(String filePath) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(SXSSF_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+        try (OutputStream out = new FileOutputStream(filePath)) {
+            writeSheet(workbook, out);
+        } finally {
+            // Remove the temporary files that back flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private void generateXls(String filePath) throws IOException {
+        if (rowCount > MAX_XLS_ROWS) {
+            throw new IllegalArgumentException("The .xls format holds at most " + MAX_XLS_ROWS
+                + " data rows; use .xlsx or .csv for " + rowCount + " rows");
+        }
+        try (Workbook workbook = new HSSFWorkbook(); OutputStream out = new FileOutputStream(filePath)) {
+            writeSheet(workbook, out);
+        }
+    }
+
+    private void writeSheet(Workbook workbook, OutputStream out) throws IOException {
+        Random random = new Random(seed);
+        List<String> headers = chooseHeaders(random);
+        Sheet sheet = workbook.createSheet("Attendance");
+
+        Row headerRow = sheet.createRow(0);
+        for (int i = 0; i < headers.size(); i++) {
+            headerRow.createCell(i).setCellValue(headers.get(i));
+        }
+
+        for (int r = 1; r <= rowCount; r++) {
+            Row row = sheet.createRow(r);
+            row.createCell(0).setCellValue(pNo(r));
+            row.createCell(1).setCellValue(name(r));
+            row.createCell(2).setCellValue(status(random));
+            row.createCell(3).setCellValue(shop(random));
+            if (includeEmail) {
+                row.createCell(4).setCellValue(email(r));
+            }
+        }
+
+        workbook.write(out);
+    }
+
+    private void generateCsv(String filePath) throws IOException {
+        Random random = new Random(seed);
+        List<String> headers = chooseHeaders(random);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder(128);
+            for (int i = 0; i < headers.size(); i++) {
+                if (i > 0) line.append(',');
+                appendCsvField(line, headers.get(i));
+            }
+            writer.write(line.toString());
+            writer.newLine();
+
+            for (int r = 1; r <= rowCount; r++) {
+                line.setLength(0);
+                line.append(pNo(r)).append(',');
+                appendCsvField(line, name(r));
+                line.append(',');
+                appendCsvField(line, status(random));
+                line.append(',');
+                appendCsvField(line, shop(random));
+                if (includeEmail) {
+                    line.append(',');
+                    appendCsvField(line, email(r));
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            line.append('"').append(value.replace("\"", "\"\"")).append('"');
+        } else {
+            line.append(value);
+        }
+    }
+
+    /**
+     * Picks one header per column. With header variants enabled, names are drawn from
+     * COLUMN_MAPPINGS and re-drawn until the flexible reader maps every column back to
+     * its intended field (some synonyms are substrings of others).
+     */
+    List<String> chooseHeaders(Random random) {
+        int columns = includeEmail ? 5 : 4;
+        List<String> canonical = Arrays.asList(CANONICAL_HEADERS).subList(0, columns);
+        if (!headerVariants) {
+            return new ArrayList<>(canonical);
+        }
+
+        // Sorted so that the same seed always yields the same headers
+        Map<String, List<String>> synonyms = new TreeMap<>();
+        for (Map.Entry<String, String> mapping : new TreeMap<>(FlexibleExcelReader.COLUMN_MAPPINGS).entrySet()) {
+            synonyms.computeIfAbsent(mapping.getValue(), key -> new ArrayList<>()).add(mapping.getKey());
+        }
+
+        for (int attempt = 0; attempt < 20; attempt++) {
+            List<String> headers = new ArrayList<>(columns);
+            for (String field : canonical) {
+                List<String> candidates = synonyms.get(field);
+                headers.add(candidates != null ? toTitleCase(candidates.get(random.nextInt(candidates.size()))) : field);
+            }
+
+            Map<String, Integer> detected = FlexibleExcelReader.detectColumnMappings(headers);
+            boolean unambiguous = true;
+            for (int i = 0; i < canonical.size(); i++) {
+                if (!synonyms.containsKey(canonical.get(i))) {
+                    // Columns without synonyms (Email) keep their canonical header
+                    continue;
+                }
+                Integer column = detected.get(canonical.get(i));
+                if (column == null || column != i) {
+                    unambiguous = false;
+                    break;
+                }
+            }
+            if (unambiguous) {
+                return headers;
+            }
+        }
+        return new ArrayList<>(canonical);
+    }
+
+    private static String toTitleCase(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        boolean startOfWord = true;
+        for (char c : text.toCharArray()) {
+            result.append(startOfWord ? Character.toUpperCase(c) : c);
+            startOfWord = c == ' ' || c == '_' || c == '/' || c == '.';
+        }
+        return result.toString();
+    }
+
+    private static long pNo(int row) {
+        return 100000L + row;
+    }
+
+    private static String name(int row) {
+        return "Employee " + row;
+    }
+
+    private static String email(int row) {
+        return "employee" + row + "@example.com";
+    }
+
+    private String status(Random random) {
+        boolean absent = random.nextDouble() < absentRatio;
+        if (!statusVariants) {
+            return absent ? "Absent" : "Present";
+        }
+        String[] spellings = absent ? ABSENT_SPELLINGS : PRESENT_SPELLINGS;
+        return spellings[random.nextInt(spellings.length)];
+    }
+
+    private String shop(Random random) {
+        return "Shop " + (random.nextInt(shopCount) + 1);
+    }
+
+    public static void main(String[] args) {
+        AttendanceWorkbookGenerator generator = new AttendanceWorkbookGenerator();
+        String outputPath = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--out":
+                        outputPath = args[++i];
+                        break;
+                    case "--rows":
+                        generator.setRowCount(Integer.parseInt(args[++i]));
+                        break;
+                    case "--shops":
+                        generator.setShopCount(Integer.parseInt(args[++i]));
+                        break;
+                    case "--absent-ratio":
+                        generator.setAbsentRatio(Double.parseDouble(args[++i]));
+                        break;
+                    case "--header-variants":
+                        generator.setHeaderVariants(true);
+                        break;
+                    case "--status-variants":
+                        generator.setStatusVariants(true);
+                        break;
+                    case "--with-email":
+                        generator.setIncludeEmail(true);
+                        break;
+                    case "--seed":
+                        generator.setSeed(Long.parseLong(args[++i]));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            printUsage();
+            System.exit(1);
+        }
+
+        if (outputPath == null) {
+            printUsage();
+            System.exit(1);
+        }
+
+        try {
+            long start = System.currentTimeMillis();
+            generator.generate(outputPath);
+            System.out.println("Generated " + generator.getRowCount() + " rows in " + outputPath
+                + " (" + (System.currentTimeMillis() - start) + " ms)");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to generate attendance sheet: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: AttendanceWorkbookGenerator --out <file.xlsx|file.xls|file.csv> [--rows N] [--shops N]");
+        System.err.println("       [--absent-ratio R] [--header-variants] [--status-variants] [--with-email] [--seed S]");
+    }
+}
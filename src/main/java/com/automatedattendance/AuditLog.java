@@ -0,0 +1,794 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuditLog keeps typed audit records (files processed, attendance summaries,
+ * email status and errors) so questions like "which emails failed this week"
+ * or "what were the last 50 runs" can be answered without reading the whole
+ * plain-text log.
+ *
+ * Records live in append-only segments. Each segment is a pair of files:
+ * {@code audit-NNNNNN.dat} holds the records one after another, each a type
+ * byte, a flags byte, the timestamp and the fields of its type (text as
+ * length-prefixed UTF-8, numbers as 8 bytes), and {@code audit-NNNNNN.idx}
+ * holds one fixed-size entry per record with its timestamp, type, flags and
+ * location. Segments roll over once the data file reaches the configured size,
+ * and the oldest segments are deleted beyond the configured count.
+ *
+ * Timestamps never decrease, so a query skips every segment outside its time
+ * range using only the first and last index entry, binary searches the index
+ * of the remaining segments for the range and filters on type and outcome in
+ * the index; only the matching records are read from the data files.
+ *
+ * Appending only encodes the record and its index entry into in-memory
+ * buffers, so the threads that log never wait for the disk. A background
+ * flusher writes the buffers every {@code audit.flushIntervalMs}; the log is
+ * also flushed before a segment is rotated, before a query and on close, and
+ * by the appending thread if a burst fills the buffers. A flush writes and
+ * syncs the records before their index entries, so a crash can at worst lose
+ * the records of the last interval, or leave an unindexed record or a
+ * truncated last entry, which is dropped when the log is opened.
+ *
+ * All methods are synchronized; one log instance should own the directory.
+ * Other processes, such as the {@code --audit} query command, open it with
+ * {@link #openReadOnly(String)}: a read-only log never creates, truncates,
+ * rotates or deletes files, and ignores a last entry still being written.
+ */
+public class AuditLog implements AutoCloseable {
+
+    /** timestamp, data offset, data length, type, flags, reserved */
+    private static final int ENTRY_BYTES = 8 + 8 + 4 + 1 + 1 + 2;
+    /** type, flags, timestamp */
+    private static final int RECORD_HEADER_BYTES = 1 + 1 + 8;
+    private static final byte FLAG_SUCCESS = 1;
+    /** Buffered record bytes at which the appending thread flushes instead of waiting for the flusher */
+    private static final int MAX_PENDING_BYTES = 256 * 1024;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static AuditLog sharedInstance;
+    private static boolean shutdownHookRegistered;
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final int maxSegments;
+    private final boolean readOnly;
+
+    private final List<Segment> segments = new ArrayList<>();
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    /** Records of the active segment not yet written to its data file */
+    private ByteBuffer pendingData = ByteBuffer.allocate(8 * 1024);
+    /** Index entries of the active segment not yet written to its index file */
+    private ByteBuffer pendingIndex = ByteBuffer.allocate(64 * ENTRY_BYTES);
+    /** Null for a read-only log */
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * Kind of audit record and the fields it carries, in stored order
+     */
+    public enum Type {
+        FILE_PROCESSED(1, Field.text("file"), Field.number("records"), Field.text("info")),
+        ATTENDANCE_SUMMARY(2, Field.text("file"), Field.number("total"), Field.number("present"),
+            Field.number("absent"), Field.decimal("percentage")),
+        EMAIL_STATUS(3, Field.text("subject"), Field.text("recipients"), Field.text("info")),
+        ERROR(4, Field.text("message"), Field.text("cause"));
+
+        private final int code;
+        private final Field[] fields;
+
+        Type(int code, Field... fields) {
+            this.code = code;
+            this.fields = fields;
+        }
+
+        /**
+         * @return the field names, in the order their values are passed to {@link AuditLog#append}
+         */
+        public List<String> getFieldNames() {
+            List<String> names = new ArrayList<>(fields.length);
+            for (Field field : fields) {
+                names.add(field.name);
+            }
+            return names;
+        }
+
+        private int indexOf(String name) {
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i].name.equals(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException(this + " records have no field " + name);
+        }
+
+        private static Type forCode(int code) {
+            for (Type type : values()) {
+                if (type.code == code) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Opens (and creates if needed) an audit log in the given directory
+     * @param directory Directory holding the segment files
+     * @param segmentMaxBytes Data file size at which a new segment is started
+     * @param maxSegments Number of segments kept; older ones are deleted when a new segment is started
+     * @param flushIntervalMillis Maximum time an appended record stays in memory before it is written and synced
+     * @throws IOException if the directory or existing segments cannot be read
+     */
+    public AuditLog(String directory, long segmentMaxBytes, int maxSegments, long flushIntervalMillis) throws IOException {
+        this(directory, segmentMaxBytes, maxSegments, flushIntervalMillis, false);
+    }
+
+    private AuditLog(String directory, long segmentMaxBytes, int maxSegments, long flushIntervalMillis, boolean readOnly)
+            throws IOException {
+        this.directory = Paths.get(directory);
+        // Offsets within a segment are read through int-indexed mapped views
+        this.segmentMaxBytes = Math.min(Math.max(1024, segmentMaxBytes), 1L << 30);
+        this.maxSegments = Math.max(1, maxSegments);
+        this.readOnly = readOnly;
+        if (!readOnly) {
+            Files.createDirectories(this.directory);
+        }
+
+        List<Path> indexFiles = new ArrayList<>();
+        if (Files.isDirectory(this.directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory, "audit-*.idx")) {
+                for (Path file : stream) {
+                    indexFiles.add(file);
+                }
+            }
+        }
+        indexFiles.sort(null);
+        for (Path indexFile : indexFiles) {
+            String name = indexFile.getFileName().toString();
+            int number = Integer.parseInt(name.substring("audit-".length(), name.length() - ".idx".length()));
+            Segment segment = new Segment(number);
+            segments.add(segment);
+            loadIndex(segment);
+            if (segment.entryCount > 0) {
+                lastTimestamp = Math.max(lastTimestamp, segment.lastTimestamp);
+            }
+        }
+
+        if (readOnly) {
+            this.flusher = null;
+            return;
+        }
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(10, flushIntervalMillis);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens an audit log for queries only, e.g. while another process writes to it
+     * @param directory Directory holding the segment files; a missing directory yields an empty log
+     * @return a log whose {@link #append} fails and which never modifies the directory
+     * @throws IOException if existing segments cannot be read
+     */
+    public static AuditLog openReadOnly(String directory) throws IOException {
+        return new AuditLog(directory, Long.MAX_VALUE, Integer.MAX_VALUE, 0, true);
+    }
+
+    /**
+     * Returns the audit log configured in the ConfigManager, opening it on first use
+     * @throws IOException if the log cannot be opened
+     */
+    public static synchronized AuditLog getShared() throws IOException {
+        if (sharedInstance == null) {
+            ConfigManager configManager = ConfigManager.getInstance();
+            sharedInstance = new AuditLog(configManager.getAuditDirectory(), configManager.getAuditSegmentMaxBytes(),
+                configManager.getAuditMaxSegments(), configManager.getAuditFlushIntervalMillis());
+            if (!shutdownHookRegistered) {
+                // Flushes the buffered records also when the application exits without closing the log
+                Runtime.getRuntime().addShutdownHook(new Thread(AuditLog::closeShared, "audit-log-shutdown"));
+                shutdownHookRegistered = true;
+            }
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Closes the shared log if it was opened
+     */
+    public static synchronized void closeShared() {
+        if (sharedInstance != null) {
+            sharedInstance.close();
+            sharedInstance = null;
+        }
+    }
+
+    /**
+     * Appends a record to the shared log when auditing is enabled.
+     * A failure is reported on stderr only, so logging never fails because of the audit log.
+     * @param type Record type
+     * @param success Outcome of the audited action
+     * @param values Field values in the order of {@link Type#getFieldNames()}
+     */
+    public static void record(Type type, boolean success, Object... values) {
+        if (!ConfigManager.getInstance().isAuditEnabled()) {
+            return;
+        }
+        try {
+            getShared().append(type, success, values);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Failed to write audit record: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends one record. The record is buffered and reaches the disk with the next flush.
+     * @param type Record type
+     * @param success Outcome of the audited action
+     * @param values Field values in the order of {@link Type#getFieldNames()}; text fields accept any
+     *               object (stored as its string form), number fields any Number
+     * @throws IOException if the record cannot be written
+     * @throws IllegalArgumentException if the values do not match the fields of the type
+     * @throws IllegalStateException if the log was opened read-only
+     */
+    public synchronized void append(Type type, boolean success, Object... values) throws IOException {
+        if (readOnly) {
+            throw new IllegalStateException("Audit log " + directory + " is open read-only");
+        }
+        if (values.length != type.fields.length) {
+            throw new IllegalArgumentException(type + " records take " + type.fields.length + " values, got " + values.length);
+        }
+        // Keep timestamps ordered even if the clock is set back, so the index stays searchable
+        long timestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+        byte flags = success ? FLAG_SUCCESS : 0;
+
+        ByteBuffer data = ByteBuffer.allocate(128);
+        data.put((byte) type.code);
+        data.put(flags);
+        data.putLong(timestamp);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (type.fields[i].kind == Kind.TEXT) {
+                data = AttendanceHistoryStore.putString(data, value != null ? value.toString() : null);
+                continue;
+            }
+            if (value != null && !(value instanceof Number)) {
+                throw new IllegalArgumentException(type + "." + type.fields[i].name + " must be a number, got " + value);
+            }
+            Number number = value != null ? (Number) value : 0;
+            data = AttendanceHistoryStore.ensureCapacity(data, 8);
+            if (type.fields[i].kind == Kind.DECIMAL) {
+                data.putDouble(number.doubleValue());
+            } else {
+                data.putLong(number.longValue());
+            }
+        }
+        data.flip();
+        int dataLength = data.remaining();
+
+        Segment segment = activeSegment();
+        long dataOffset = segment.dataEnd;
+        pendingData = AttendanceHistoryStore.ensureCapacity(pendingData, dataLength);
+        pendingData.put(data);
+        pendingIndex = AttendanceHistoryStore.ensureCapacity(pendingIndex, ENTRY_BYTES);
+        pendingIndex.putLong(timestamp);
+        pendingIndex.putLong(dataOffset);
+        pendingIndex.putInt(dataLength);
+        pendingIndex.put((byte) type.code);
+        pendingIndex.put(flags);
+        pendingIndex.putShort((short) 0);
+
+        if (segment.entryCount == 0) {
+            segment.firstTimestamp = timestamp;
+        }
+        segment.entryCount++;
+        segment.lastTimestamp = timestamp;
+        segment.dataEnd = dataOffset + dataLength;
+        lastTimestamp = timestamp;
+
+        if (pendingData.position() >= MAX_PENDING_BYTES) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes the buffered records and index entries of the active segment and syncs them,
+     * records first, so an index entry never reaches the disk before its record
+     * @throws IOException if writing fails; the buffers are kept and written again by the next flush
+     */
+    public synchronized void flush() throws IOException {
+        if (pendingIndex.position() == 0 || segments.isEmpty()) {
+            return;
+        }
+        Segment segment = segments.get(segments.size() - 1);
+        if (segment.dataChannel == null) {
+            segment.openChannels();
+        }
+
+        // Written through duplicates, so a failed flush leaves the buffers as they were
+        ByteBuffer data = pendingData.duplicate();
+        data.flip();
+        long position = segment.writtenDataEnd;
+        while (data.hasRemaining()) {
+            position += segment.dataChannel.write(data, position);
+        }
+        segment.dataChannel.force(false);
+
+        ByteBuffer index = pendingIndex.duplicate();
+        index.flip();
+        position = (long) segment.writtenEntries * ENTRY_BYTES;
+        while (index.hasRemaining()) {
+            position += segment.indexChannel.write(index, position);
+        }
+        segment.indexChannel.force(false);
+
+        pendingData.clear();
+        pendingIndex.clear();
+        segment.writtenDataEnd = segment.dataEnd;
+        segment.writtenEntries = segment.entryCount;
+    }
+
+    /**
+     * Periodic flush; a failure is reported on stderr and retried with the next flush
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Failed to flush audit log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Finds records by type, time and outcome, newest first
+     * @param types Record types to return, or null for all
+     * @param from Earliest timestamp, inclusive, or null for no lower bound
+     * @param to Latest timestamp, inclusive, or null for no upper bound
+     * @param success Outcome to return, or null for both
+     * @param limit Maximum number of records returned
+     * @return the matching records, newest first
+     * @throws IOException if the segment files cannot be read
+     */
+    public synchronized List<AuditRecord> query(Set<Type> types, Instant from, Instant to, Boolean success, int limit)
+            throws IOException {
+        flush();
+        long fromMillis = from != null ? from.toEpochMilli() : Long.MIN_VALUE;
+        long toMillis = to != null ? to.toEpochMilli() : Long.MAX_VALUE;
+        int typeMask = 0;
+        for (Type type : types != null ? types : EnumSet.allOf(Type.class)) {
+            typeMask |= 1 << type.code;
+        }
+
+        List<AuditRecord> records = new ArrayList<>();
+        for (int s = segments.size() - 1; s >= 0 && records.size() < limit; s--) {
+            Segment segment = segments.get(s);
+            if (segment.entryCount == 0 || segment.firstTimestamp > toMillis) {
+                continue;
+            }
+            if (segment.lastTimestamp < fromMillis) {
+                // Older segments end even earlier
+                break;
+            }
+
+            ByteBuffer index = segment.index((long) segment.entryCount * ENTRY_BYTES);
+            int low = fromMillis == Long.MIN_VALUE ? 0 : firstEntryAtOrAfter(index, segment.entryCount, fromMillis);
+            int high = toMillis == Long.MAX_VALUE ? segment.entryCount
+                : firstEntryAtOrAfter(index, segment.entryCount, toMillis + 1);
+            ByteBuffer data = null;
+            for (int entry = high - 1; entry >= low && records.size() < limit; entry--) {
+                int position = entry * ENTRY_BYTES;
+                int code = index.get(position + 20);
+                boolean entrySuccess = (index.get(position + 21) & FLAG_SUCCESS) != 0;
+                if (code < 0 || code >= 32 || (typeMask & (1 << code)) == 0
+                        || (success != null && success != entrySuccess)) {
+                    continue;
+                }
+                if (data == null) {
+                    data = segment.data(segment.dataEnd);
+                }
+                AuditRecord record = readRecord(data, (int) index.getLong(position + 8));
+                if (record != null) {
+                    records.add(record);
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * @param type Record type
+     * @param limit Maximum number of records returned
+     * @return the most recent records of the type, newest first
+     * @throws IOException if the segment files cannot be read
+     */
+    public List<AuditRecord> latest(Type type, int limit) throws IOException {
+        return query(EnumSet.of(type), null, null, null, limit);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (flusher != null) {
+            // shutdown, not shutdownNow: interrupting a flush in progress would close its FileChannels
+            flusher.shutdown();
+            flushQuietly();
+        }
+        // Mapped views are released by the garbage collector; dropping them is all that is needed
+        for (Segment segment : segments) {
+            segment.closeChannels();
+            segment.dataView = null;
+            segment.indexView = null;
+        }
+    }
+
+    /**
+     * Prints audit records, newest first
+     * @param args Query: {@code runs [count]}, {@code summaries [count]}, {@code email-failures [days]}
+     *             or {@code errors [days]}
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: AuditLog runs [count] | summaries [count] | email-failures [days] | errors [days]");
+            System.exit(1);
+        }
+
+        List<AuditRecord> records;
+        AuditLog auditLog = null;
+        try {
+            int amount = args.length > 1 ? Integer.parseInt(args[1]) : -1;
+            Instant since = Instant.now().minus(amount > 0 ? amount : 7, ChronoUnit.DAYS);
+            auditLog = openReadOnly(ConfigManager.getInstance().getAuditDirectory());
+            switch (args[0]) {
+                case "runs":
+                    records = auditLog.latest(Type.FILE_PROCESSED, amount > 0 ? amount : 50);
+                    break;
+                case "summaries":
+                    records = auditLog.latest(Type.ATTENDANCE_SUMMARY, amount > 0 ? amount : 50);
+                    break;
+                case "email-failures":
+                    records = auditLog.query(EnumSet.of(Type.EMAIL_STATUS), since, null, false, Integer.MAX_VALUE);
+                    break;
+                case "errors":
+                    records = auditLog.query(EnumSet.of(Type.ERROR), since, null, null, Integer.MAX_VALUE);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown query: " + args[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.exit(1);
+            return;
+        } catch (IOException e) {
+            System.err.println("Failed to read audit log: " + e.getMessage());
+            System.exit(1);
+            return;
+        } finally {
+            if (auditLog != null) {
+                auditLog.close();
+            }
+        }
+
+        for (AuditRecord record : records) {
+            System.out.println(record);
+        }
+        System.out.println(records.size() + " record(s)");
+    }
+
+    /**
+     * @return the first of the (timestamp ordered) index entries with a timestamp of at least the given one
+     */
+    private static int firstEntryAtOrAfter(ByteBuffer index, int entryCount, long millis) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (index.getLong(middle * ENTRY_BYTES) < millis) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Segment activeSegment() throws IOException {
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last == null || last.dataEnd >= segmentMaxBytes) {
+            if (last != null) {
+                // Buffered records belong to the segment being closed
+                flush();
+                last.closeChannels();
+            }
+            last = new Segment(last == null ? 1 : last.number + 1);
+            segments.add(last);
+            deleteOldSegments();
+        }
+        return last;
+    }
+
+    private void deleteOldSegments() throws IOException {
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.remove(0);
+            oldest.closeChannels();
+            oldest.dataView = null;
+            oldest.indexView = null;
+            Files.deleteIfExists(oldest.indexFile);
+            Files.deleteIfExists(oldest.dataFile);
+            LoggerUtil.logInfo("Deleted audit segment " + oldest.dataFile + " (audit.maxSegments=" + maxSegments + ")");
+        }
+    }
+
+    /**
+     * Reads the first and last entry of a segment's index, skipping a partially written entry
+     * and entries whose records are missing from the data file; a writable log also truncates them
+     */
+    private void loadIndex(Segment segment) throws IOException {
+        long dataSize = Files.exists(segment.dataFile) ? Files.size(segment.dataFile) : 0L;
+        try (FileChannel channel = readOnly
+                ? FileChannel.open(segment.indexFile, StandardOpenOption.READ)
+                : FileChannel.open(segment.indexFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long indexSize = channel.size();
+            int entryCount = (int) Math.min(indexSize / ENTRY_BYTES, Integer.MAX_VALUE / ENTRY_BYTES);
+            ByteBuffer entry = ByteBuffer.allocate(ENTRY_BYTES);
+            while (entryCount > 0) {
+                readEntry(channel, entryCount - 1, entry);
+                long dataOffset = entry.getLong(8);
+                int dataLength = entry.getInt(16);
+                if (dataOffset >= 0 && dataLength >= RECORD_HEADER_BYTES && dataOffset + dataLength <= dataSize) {
+                    segment.lastTimestamp = entry.getLong(0);
+                    segment.dataEnd = dataOffset + dataLength;
+                    break;
+                }
+                entryCount--;
+            }
+            if (entryCount > 0) {
+                readEntry(channel, 0, entry);
+                segment.firstTimestamp = entry.getLong(0);
+            }
+            segment.entryCount = entryCount;
+            segment.writtenEntries = entryCount;
+            segment.writtenDataEnd = segment.dataEnd;
+
+            long validSize = (long) entryCount * ENTRY_BYTES;
+            if (validSize < indexSize && !readOnly) {
+                LoggerUtil.logWarning("Dropping incomplete audit index data at offset " + validSize + " of " + segment.indexFile);
+                channel.truncate(validSize);
+            }
+        }
+    }
+
+    private static void readEntry(FileChannel channel, int entryNumber, ByteBuffer entry) throws IOException {
+        entry.clear();
+        long position = (long) entryNumber * ENTRY_BYTES;
+        while (entry.hasRemaining() && channel.read(entry, position + entry.position()) >= 0) {
+            // Positional reads until the entry is complete
+        }
+    }
+
+    /**
+     * @return the record at the given offset, or null if it has a type this version does not know
+     */
+    private static AuditRecord readRecord(ByteBuffer data, int offset) {
+        Type type = Type.forCode(data.get(offset));
+        if (type == null) {
+            return null;
+        }
+        boolean success = (data.get(offset + 1) & FLAG_SUCCESS) != 0;
+        long timestamp = data.getLong(offset + 2);
+        Object[] values = new Object[type.fields.length];
+        int[] cursor = {offset + RECORD_HEADER_BYTES};
+        for (int i = 0; i < values.length; i++) {
+            switch (type.fields[i].kind) {
+                case TEXT:
+                    values[i] = AttendanceHistoryStore.readString(data, cursor);
+                    break;
+                case DECIMAL:
+                    values[i] = data.getDouble(cursor[0]);
+                    cursor[0] += 8;
+                    break;
+                default:
+                    values[i] = data.getLong(cursor[0]);
+                    cursor[0] += 8;
+                    break;
+            }
+        }
+        return new AuditRecord(Instant.ofEpochMilli(timestamp), type, success, values);
+    }
+
+    private enum Kind {
+        TEXT, NUMBER, DECIMAL
+    }
+
+    /**
+     * Name and stored kind of one record field
+     */
+    private static class Field {
+        private final String name;
+        private final Kind kind;
+
+        private Field(String name, Kind kind) {
+            this.name = name;
+            this.kind = kind;
+        }
+
+        static Field text(String name) {
+            return new Field(name, Kind.TEXT);
+        }
+
+        static Field number(String name) {
+            return new Field(name, Kind.NUMBER);
+        }
+
+        static Field decimal(String name) {
+            return new Field(name, Kind.DECIMAL);
+        }
+    }
+
+    /**
+     * One data/index file pair with its time range, write channels while it is the
+     * active segment and has been flushed, and lazily (re)mapped read-only views
+     */
+    private class Segment {
+        private final int number;
+        private final Path dataFile;
+        private final Path indexFile;
+        private int entryCount;
+        private long firstTimestamp;
+        private long lastTimestamp;
+        /** End of the last indexed record, including buffered ones */
+        private long dataEnd;
+        /** End of the records written to the data file */
+        private long writtenDataEnd;
+        /** Number of entries written to the index file */
+        private int writtenEntries;
+        private FileChannel dataChannel;
+        private FileChannel indexChannel;
+        private MappedByteBuffer dataView;
+        private MappedByteBuffer indexView;
+
+        Segment(int number) {
+            this.number = number;
+            String name = String.format("audit-%06d", number);
+            this.dataFile = directory.resolve(name + ".dat");
+            this.indexFile = directory.resolve(name + ".idx");
+        }
+
+        /**
+         * @return a view of the data file covering at least the given number of bytes
+         */
+        ByteBuffer data(long requiredBytes) throws IOException {
+            if (dataView == null || dataView.capacity() < requiredBytes) {
+                dataView = map(dataFile);
+            }
+            return dataView;
+        }
+
+        /**
+         * @return a view of the index file covering at least the given number of bytes
+         */
+        ByteBuffer index(long requiredBytes) throws IOException {
+            if (indexView == null || indexView.capacity() < requiredBytes) {
+                indexView = map(indexFile);
+            }
+            return indexView;
+        }
+
+        void openChannels() throws IOException {
+            dataChannel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            indexChannel = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+
+        void closeChannels() {
+            try {
+                if (dataChannel != null) {
+                    dataChannel.close();
+                }
+                if (indexChannel != null) {
+                    indexChannel.close();
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to close audit segment " + dataFile + ": " + e.getMessage());
+            }
+            dataChannel = null;
+            indexChannel = null;
+        }
+
+        private MappedByteBuffer map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Audit segment larger than 2 GB: " + file);
+                }
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+    }
+
+    /**
+     * One audited event
+     */
+    public static class AuditRecord {
+        private final Instant timestamp;
+        private final Type type;
+        private final boolean success;
+        private final Object[] values;
+
+        AuditRecord(Instant timestamp, Type type, boolean success, Object[] values) {
+            this.timestamp = timestamp;
+            this.type = type;
+            this.success = success;
+            this.values = values;
+        }
+
+        public Instant getTimestamp() {
+            return timestamp;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        /**
+         * @param field Name of a text field of the record's type
+         * @return the value, possibly null
+         */
+        public String getText(String field) {
+            return (String) values[type.indexOf(field)];
+        }
+
+        /**
+         * @param field Name of a number field of the record's type
+         */
+        public long getNumber(String field) {
+            return ((Number) values[type.indexOf(field)]).longValue();
+        }
+
+        /**
+         * @param field Name of a decimal field of the record's type
+         */
+        public double getDecimal(String field) {
+            return ((Number) values[type.indexOf(field)]).doubleValue();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append('[').append(LocalDateTime.ofInstant(timestamp, ZoneId.systemDefault()).format(DATE_FORMATTER))
+                .append("] ").append(type).append(' ').append(success ? "SUCCESS" : "FAILED");
+            for (int i = 0; i < values.length; i++) {
+                text.append(i == 0 ? ": " : ", ").append(type.fields[i].name).append('=');
+                if (type.fields[i].kind == Kind.TEXT) {
+                    text.append('\'').append(values[i]).append('\'');
+                } else {
+                    text.append(values[i]);
+                }
+            }
+            return text.toString();
+        }
+    }
+}
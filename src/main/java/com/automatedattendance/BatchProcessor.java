@@ -0,0 +1,392 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * BatchProcessor reprocesses many attendance files in parallel: every file is
+ * read, aggregated and rendered to an HTML report on its own task, and a
+ * consolidated throughput and latency report is printed at the end.
+ *
+ * Tasks run on virtual threads when the JVM supports them (Java 21+) and on a
+ * bounded platform thread pool otherwise. The POI parse stage, which is CPU and
+ * memory heavy, is limited by a semaphore so that only a few workbooks are held
+ * in memory at a time, while the cheap aggregate and render stages run freely.
+ */
+public class BatchProcessor {
+
+    private final FlexibleExcelReader flexibleExcelReader = new FlexibleExcelReader();
+    private final AttendanceProcessor attendanceProcessor = new AttendanceProcessor();
+    private final FlexibleEmailGenerator flexibleEmailGenerator = new FlexibleEmailGenerator();
+
+    private final Path outputDir;
+    private final Semaphore parsePermits;
+    private final int parseConcurrency;
+
+    /**
+     * @param outputDir Directory the rendered HTML reports are written to
+     * @param parseConcurrency Maximum number of files parsed at the same time
+     */
+    public BatchProcessor(String outputDir, int parseConcurrency) {
+        this.outputDir = Paths.get(outputDir);
+        this.parseConcurrency = Math.max(1, parseConcurrency);
+        this.parsePermits = new Semaphore(this.parseConcurrency);
+    }
+
+    /**
+     * Resolves a directory (all .xls/.xlsx/.csv/.tsv files directly inside it) or a glob
+     * such as {@code sheets/2024-05-*.xlsx} or {@code sheets/**.xlsx} to a sorted file list
+     * @param directoryOrGlob Directory path or glob pattern
+     * @return matching attendance files
+     * @throws IOException if the directory cannot be listed
+     */
+    public static List<Path> resolveInputs(String directoryOrGlob) throws IOException {
+        Path path = Paths.get(directoryOrGlob);
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(BatchProcessor::isAttendanceFile).sorted().collect(Collectors.toList());
+            }
+        }
+
+        // Walk from the deepest directory that contains no glob characters
+        int firstGlobChar = indexOfGlobChar(directoryOrGlob);
+        if (firstGlobChar < 0) {
+            return Files.isRegularFile(path) ? Collections.singletonList(path) : Collections.emptyList();
+        }
+        int lastSeparator = Math.max(directoryOrGlob.lastIndexOf('/', firstGlobChar),
+            directoryOrGlob.lastIndexOf('\\', firstGlobChar));
+        Path baseDir = lastSeparator >= 0 ? Paths.get(directoryOrGlob.substring(0, lastSeparator + 1)) : Paths.get(".");
+        if (!Files.isDirectory(baseDir)) {
+            return Collections.emptyList();
+        }
+
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + directoryOrGlob);
+        boolean relative = lastSeparator < 0;
+        try (Stream<Path> files = Files.walk(baseDir)) {
+            return files
+                .filter(file -> matcher.matches(relative ? baseDir.relativize(file) : file))
+                .filter(BatchProcessor::isAttendanceFile)
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static int indexOfGlobChar(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isAttendanceFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return (name.endsWith(".xlsx") || name.endsWith(".xls") || CsvAttendanceReader.isCsvFile(name))
+            && !name.startsWith("~$") && Files.isRegularFile(file);
+    }
+
+    /**
+     * Processes all files and waits for them to finish
+     * @param files Attendance files to process
+     * @return the consolidated report
+     * @throws IOException if the output directory cannot be created
+     */
+    public BatchReport process(List<Path> files) throws IOException {
+        Files.createDirectories(outputDir);
+
+        long start = System.nanoTime();
+        List<FileResult> results = new ArrayList<>(files.size());
+        ExecutorService executor = newTaskExecutor();
+        try {
+            List<Future<FileResult>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                futures.add(executor.submit(() -> processFile(file)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(FileResult.failed(files.get(i), "Unexpected error: " + e.getCause()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(FileResult.failed(files.get(i), "Interrupted"));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new BatchReport(results, System.nanoTime() - start, parseConcurrency, isVirtualThreadsAvailable());
+    }
+
+    private FileResult processFile(Path file) {
+        FileResult result = new FileResult(file);
+        long start = System.nanoTime();
+        try {
+            // 1. Read: bounded, so only a few workbooks are parsed (and held in memory) at once
+            ExcelReadResult<FlexibleExcelReader.FlexibleAttendanceData> readResult;
+            long waitStart = System.nanoTime();
+            parsePermits.acquire();
+            try {
+                result.parseWaitNanos = System.nanoTime() - waitStart;
+                long readStart = System.nanoTime();
+                readResult = flexibleExcelReader.readAndValidateFlexibleExcelFile(file.toString());
+                result.readNanos = System.nanoTime() - readStart;
+            } finally {
+                parsePermits.release();
+            }
+            if (!readResult.isValid()) {
+                result.error = readResult.getErrorMessage();
+                return result;
+            }
+            FlexibleExcelReader.FlexibleAttendanceData attendanceData = readResult.getData();
+
+            // 2. Aggregate
+            long aggregateStart = System.nanoTime();
+            AttendanceProcessor.AttendanceSummary summary =
+                attendanceProcessor.calculateAttendanceSummary(attendanceData.getStudents());
+            result.aggregateNanos = System.nanoTime() - aggregateStart;
+            result.rows = summary.getTotalStudents();
+            result.absent = summary.getAbsentCount();
+
+            // 3. Render
+            long renderStart = System.nanoTime();
+            String html = flexibleEmailGenerator.generateFlexibleEmail(attendanceData);
+            Path report = outputDir.resolve(reportName(file));
+            Files.write(report, html.getBytes(StandardCharsets.UTF_8));
+            result.renderNanos = System.nanoTime() - renderStart;
+            result.success = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.error = "Interrupted";
+        } catch (IOException | RuntimeException e) {
+            result.error = e.getMessage();
+        } finally {
+            result.totalNanos = System.nanoTime() - start;
+        }
+        return result;
+    }
+
+    private static String reportName(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return (dot > 0 ? name.substring(0, dot) : name) + ".html";
+    }
+
+    /**
+     * @return true if the running JVM can create virtual threads
+     */
+    static boolean isVirtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor on Java 21+. The project targets
+     * Java 17, so the factory is looked up reflectively; older JVMs get a pool of
+     * platform threads sized to the machine.
+     */
+    private static ExecutorService newTaskExecutor() {
+        if (isVirtualThreadsAvailable()) {
+            try {
+                return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+            } catch (Throwable e) {
+                LoggerUtil.logWarning("Virtual threads unavailable, using platform threads: " + e.getMessage());
+            }
+        }
+        return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() * 2), runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Timings and outcome of one file
+     */
+    public static class FileResult {
+        private final Path file;
+        private boolean success;
+        private String error;
+        private int rows;
+        private int absent;
+        private long parseWaitNanos;
+        private long readNanos;
+        private long aggregateNanos;
+        private long renderNanos;
+        private long totalNanos;
+
+        FileResult(Path file) {
+            this.file = file;
+        }
+
+        static FileResult failed(Path file, String error) {
+            FileResult result = new FileResult(file);
+            result.error = error;
+            return result;
+        }
+
+        public Path getFile() { return file; }
+        public boolean isSuccess() { return success; }
+        public String getError() { return error; }
+        public int getRows() { return rows; }
+        public int getAbsent() { return absent; }
+        public long getParseWaitNanos() { return parseWaitNanos; }
+        public long getReadNanos() { return readNanos; }
+        public long getAggregateNanos() { return aggregateNanos; }
+        public long getRenderNanos() { return renderNanos; }
+        public long getTotalNanos() { return totalNanos; }
+    }
+
+    /**
+     * Consolidated outcome of a batch run
+     */
+    public static class BatchReport {
+        private final List<FileResult> results;
+        private final long wallNanos;
+        private final int parseConcurrency;
+        private final boolean virtualThreads;
+
+        BatchReport(List<FileResult> results, long wallNanos, int parseConcurrency, boolean virtualThreads) {
+            this.results = results;
+            this.wallNanos = wallNanos;
+            this.parseConcurrency = parseConcurrency;
+            this.virtualThreads = virtualThreads;
+        }
+
+        public List<FileResult> getResults() {
+            return results;
+        }
+
+        public int getSuccessCount() {
+            return (int) results.stream().filter(FileResult::isSuccess).count();
+        }
+
+        public int getFailureCount() {
+            return results.size() - getSuccessCount();
+        }
+
+        /**
+         * @return the report formatted for the console
+         */
+        public String format() {
+            StringBuilder report = new StringBuilder();
+            double wallSeconds = wallNanos / 1e9;
+            long totalRows = results.stream().mapToLong(FileResult::getRows).sum();
+
+            report.append("=== Batch Processing Report ===\n");
+            report.append(String.format("Files: %d (succeeded: %d, failed: %d)%n",
+                results.size(), getSuccessCount(), getFailureCount()));
+            report.append(String.format("Threads: %s, parse concurrency: %d%n",
+                virtualThreads ? "virtual" : "platform", parseConcurrency));
+            report.append(String.format("Wall time: %.2f s%n", wallSeconds));
+            report.append(String.format("Throughput: %.2f files/s, %.0f rows/s%n",
+                wallSeconds > 0 ? results.size() / wallSeconds : 0.0,
+                wallSeconds > 0 ? totalRows / wallSeconds : 0.0));
+
+            report.append(String.format("%-12s %10s %10s %10s %10s%n", "Stage (ms)", "p50", "p95", "max", "total"));
+            appendStage(report, "parse wait", FileResult::getParseWaitNanos);
+            appendStage(report, "read", FileResult::getReadNanos);
+            appendStage(report, "aggregate", FileResult::getAggregateNanos);
+            appendStage(report, "render", FileResult::getRenderNanos);
+            appendStage(report, "end-to-end", FileResult::getTotalNanos);
+
+            for (FileResult result : results) {
+                if (!result.isSuccess()) {
+                    report.append("FAILED ").append(result.getFile()).append(": ").append(result.getError()).append('\n');
+                }
+            }
+            return report.toString();
+        }
+
+        private void appendStage(StringBuilder report, String stage, ToLongFunction<FileResult> timing) {
+            long[] values = results.stream().mapToLong(timing).sorted().toArray();
+            if (values.length == 0) {
+                return;
+            }
+            report.append(String.format("%-12s %10.1f %10.1f %10.1f %10.1f%n", stage,
+                percentile(values, 50) / 1e6, percentile(values, 95) / 1e6,
+                values[values.length - 1] / 1e6, Arrays.stream(values).sum() / 1e6));
+        }
+
+        private static long percentile(long[] sorted, int percentile) {
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: BatchProcessor <directory|glob> [--out <report-dir>] [--parse-concurrency N]");
+            System.exit(1);
+        }
+
+        ConfigManager configManager = ConfigManager.getInstance();
+        String outputDir = configManager.getBatchOutputDirectory();
+        int parseConcurrency = configManager.getBatchParseConcurrency();
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--out":
+                        outputDir = args[++i];
+                        break;
+                    case "--parse-concurrency":
+                        parseConcurrency = Integer.parseInt(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument: " + args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println("Invalid arguments: " + e.getMessage());
+            System.exit(1);
+        }
+
+        try {
+            List<Path> files = resolveInputs(args[0]);
+            if (files.isEmpty()) {
+                System.err.println("No attendance files found for: " + args[0]);
+                System.exit(1);
+            }
+            System.out.println("Processing " + files.size() + " attendance files; reports go to " + outputDir);
+            LoggerUtil.logInfo("Batch processing " + files.size() + " files from " + args[0]);
+
+            BatchReport report = new BatchProcessor(outputDir, parseConcurrency).process(files);
+            System.out.println(report.format());
+            LoggerUtil.logInfo("Batch processing finished: " + report.getSuccessCount() + " succeeded, "
+                + report.getFailureCount() + " failed");
+        } catch (IOException e) {
+            String errorMsg = "Batch processing failed: " + e.getMessage();
+            LoggerUtil.logError(errorMsg, e);
+            System.err.println(errorMsg);
+            System.exit(1);
+        }
+    }
+}
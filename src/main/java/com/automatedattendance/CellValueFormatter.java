@@ -0,0 +1,55 @@
+package com.automatedattendance;
+
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+/**
+ * CellValueFormatter formats numeric cell values for the streaming readers with
+ * the same rules {@link FlexibleExcelReader#getCellValueAsString} applies to the
+ * cells of a loaded workbook, so both read paths produce the same strings:
+ * whole numbers are written without a decimal part or exponent (a 12-digit P.no
+ * stays "123456789012"), other numbers as {@link String#valueOf(double)}, and
+ * date-formatted cells as {@link java.util.Date#toString()}.
+ *
+ * Excel's display formatting ("General", number formats) is deliberately not applied.
+ */
+public class CellValueFormatter extends DataFormatter {
+
+    private final boolean use1904Windowing;
+
+    /**
+     * @param use1904Windowing Whether the workbook uses the 1904 date system
+     */
+    public CellValueFormatter(boolean use1904Windowing) {
+        this.use1904Windowing = use1904Windowing;
+    }
+
+    @Override
+    public String formatRawCellContents(double value, int formatIndex, String formatString) {
+        return formatNumber(value, formatIndex, formatString, use1904Windowing);
+    }
+
+    @Override
+    public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+        return formatNumber(value, formatIndex, formatString, use1904Windowing);
+    }
+
+    /**
+     * Formats a numeric cell value the way the workbook (DOM) readers do
+     * @param value Raw cell value
+     * @param formatIndex Index of the cell's number format
+     * @param formatString The cell's number format, or null if unknown
+     * @param use1904Windowing Whether the workbook uses the 1904 date system
+     * @return the formatted value
+     */
+    public static String formatNumber(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+        if (formatString != null && DateUtil.isValidExcelDate(value) && DateUtil.isADateFormat(formatIndex, formatString)) {
+            return DateUtil.getJavaDate(value, use1904Windowing).toString();
+        }
+        // Whole numbers without decimal places, as in getCellValueAsString
+        if (value == Math.floor(value)) {
+            return String.valueOf((long) value);
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,239 @@
+package com.automatedattendance;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ColumnarRowStore keeps the raw cell values of a sheet column by column.
+ * Every column is dictionary-encoded: each distinct value is stored once and
+ * rows hold an int code per cell, so repeated values such as Shop or Status
+ * cost four bytes per row instead of a map entry and a String.
+ *
+ * Headers are resolved to column indices once; cells are read with
+ * {@link #getValue(int, int)} without building per-row maps.
+ */
+public class ColumnarRowStore {
+
+    /** Code stored for a cell that had no value (missing cell) */
+    public static final int NULL_CODE = -1;
+
+    private final List<String> headers;
+    private final Map<String, Integer> headerIndex;
+    private final String[][] dictionaries;
+    private final int[][] codes;
+    private final int rowCount;
+
+    private ColumnarRowStore(List<String> headers, String[][] dictionaries, int[][] codes, int rowCount) {
+        this.headers = Collections.unmodifiableList(new ArrayList<>(headers));
+        this.dictionaries = dictionaries;
+        this.codes = codes;
+        this.rowCount = rowCount;
+
+        // Later columns win for duplicate header names, matching a per-row map keyed by header
+        this.headerIndex = new HashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            if (headers.get(i) != null) {
+                headerIndex.put(headers.get(i), i);
+            }
+        }
+    }
+
+    /**
+     * Builds a store from per-row maps keyed by header name
+     * @param headers Header names indexed by column
+     * @param rows Row maps; values for missing headers are stored as null
+     */
+    public static ColumnarRowStore fromMaps(List<String> headers, List<Map<String, String>> rows) {
+        Builder builder = new Builder(headers);
+        List<String> values = new ArrayList<>(headers.size());
+        for (Map<String, String> row : rows) {
+            values.clear();
+            for (String header : headers) {
+                values.add(header != null ? row.get(header) : null);
+            }
+            builder.addRow(values);
+        }
+        return builder.build();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return headers.size();
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    public String getHeader(int column) {
+        return headers.get(column);
+    }
+
+    /**
+     * @param header Original header text
+     * @return index of the column with that header, or -1 if there is none
+     */
+    public int getColumnIndex(String header) {
+        Integer index = header != null ? headerIndex.get(header) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * @return the cell value at the given row and column, or null for a missing cell
+     */
+    public String getValue(int row, int column) {
+        int code = codes[column][row];
+        return code == NULL_CODE ? null : dictionaries[column][code];
+    }
+
+    /**
+     * @return the cell value under the given header, or null if the header or cell is missing
+     */
+    public String getValue(int row, String header) {
+        int column = getColumnIndex(header);
+        return column >= 0 ? getValue(row, column) : null;
+    }
+
+    /**
+     * @return the dictionary code of a cell, or {@link #NULL_CODE} for a missing cell
+     */
+    public int getCode(int row, int column) {
+        return codes[column][row];
+    }
+
+    /**
+     * @return the number of distinct values stored for a column
+     */
+    public int getDistinctValueCount(int column) {
+        return dictionaries[column].length;
+    }
+
+    /**
+     * @return the value a dictionary code stands for in the given column
+     */
+    public String getDistinctValue(int column, int code) {
+        return dictionaries[column][code];
+    }
+
+    /**
+     * Materializes one row as a map keyed by header name.
+     * Intended for compatibility with callers that still expect row maps.
+     */
+    public Map<String, String> getRowAsMap(int row) {
+        Map<String, String> rowData = new HashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            String header = headers.get(i);
+            if (header != null) {
+                rowData.put(header, getValue(row, i));
+            }
+        }
+        return rowData;
+    }
+
+    /**
+     * @return a read-only list view that materializes each row map on access
+     */
+    public List<Map<String, String>> asMapList() {
+        return new AbstractList<Map<String, String>>() {
+            @Override
+            public Map<String, String> get(int index) {
+                if (index < 0 || index >= rowCount) {
+                    throw new IndexOutOfBoundsException("Row " + index + " out of range 0.." + rowCount);
+                }
+                return getRowAsMap(index);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    /**
+     * Builder that appends rows one at a time while dictionary-encoding every column
+     */
+    public static class Builder {
+        private final List<String> headers;
+        private final List<Map<String, Integer>> valueCodes;
+        private final List<List<String>> dictionaries;
+        private int[][] codes;
+        private int rowCount;
+
+        public Builder(List<String> headers) {
+            this.headers = new ArrayList<>(headers);
+            int columnCount = headers.size();
+            this.valueCodes = new ArrayList<>(columnCount);
+            this.dictionaries = new ArrayList<>(columnCount);
+            this.codes = new int[columnCount][];
+            for (int i = 0; i < columnCount; i++) {
+                valueCodes.add(new HashMap<>());
+                dictionaries.add(new ArrayList<>());
+                codes[i] = new int[16];
+            }
+        }
+
+        /**
+         * Appends a row. Values beyond the header width are ignored and
+         * missing trailing values are stored as null.
+         * @param values Cell values indexed by column
+         * @return the index of the appended row
+         */
+        public int addRow(List<String> values) {
+            ensureCapacity(rowCount + 1);
+            for (int i = 0; i < codes.length; i++) {
+                String value = i < values.size() ? values.get(i) : null;
+                codes[i][rowCount] = encode(i, value);
+            }
+            return rowCount++;
+        }
+
+        private int encode(int column, String value) {
+            if (value == null) {
+                return NULL_CODE;
+            }
+            Map<String, Integer> columnCodes = valueCodes.get(column);
+            Integer code = columnCodes.get(value);
+            if (code == null) {
+                List<String> dictionary = dictionaries.get(column);
+                code = dictionary.size();
+                dictionary.add(value);
+                columnCodes.put(value, code);
+            }
+            return code;
+        }
+
+        private void ensureCapacity(int required) {
+            for (int i = 0; i < codes.length; i++) {
+                if (codes[i].length < required) {
+                    codes[i] = Arrays.copyOf(codes[i], Math.max(required, codes[i].length * 2));
+                }
+            }
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * @return an immutable store containing the rows added so far
+         */
+        public ColumnarRowStore build() {
+            String[][] dictionaryArrays = new String[codes.length][];
+            int[][] trimmedCodes = new int[codes.length][];
+            for (int i = 0; i < codes.length; i++) {
+                dictionaryArrays[i] = dictionaries.get(i).toArray(new String[0]);
+                trimmedCodes[i] = Arrays.copyOf(codes[i], rowCount);
+            }
+            return new ColumnarRowStore(headers, dictionaryArrays, trimmedCodes, rowCount);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.automatedattendance;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CompactRoster holds a roster as parallel primitive arrays (struct of arrays)
+ * instead of one {@link Student} object per row, for very large historical loads.
+ *
+ * P.no, name and email are mostly unique, so their characters are packed into
+ * one char array per field with an offset per row. Shop and status repeat, so
+ * they are dictionary-encoded to an int code per row; each distinct status is
+ * classified once into an {@link AttendanceStatus}. A row therefore costs a few
+ * ints plus its characters rather than a Student and five String objects, and
+ * counting or filtering scans int arrays.
+ *
+ * {@link #asStudentList()} adapts the roster to code that expects Student objects.
+ * Rosters are immutable once built.
+ */
+public class CompactRoster {
+
+    /** Code stored for a missing shop or status */
+    public static final int NULL_CODE = -1;
+
+    private final int size;
+    private final TextColumn pNos;
+    private final TextColumn names;
+    private final TextColumn emails;
+    private final int[] shopCodes;
+    private final String[] shops;
+    private final int[] statusCodes;
+    private final String[] statuses;
+    private final AttendanceStatus[] statusKinds;
+
+    private CompactRoster(Builder builder) {
+        this.size = builder.size;
+        this.pNos = builder.pNos.build(size);
+        this.names = builder.names.build(size);
+        this.emails = builder.emails.build(size);
+        this.shopCodes = Arrays.copyOf(builder.shopCodes, size);
+        this.shops = builder.shops.toArray(new String[0]);
+        this.statusCodes = Arrays.copyOf(builder.statusCodes, size);
+        this.statuses = builder.statuses.toArray(new String[0]);
+        this.statusKinds = builder.statusKinds.toArray(new AttendanceStatus[0]);
+    }
+
+    /**
+     * Builds a roster from existing Student objects
+     * @param students Students to copy
+     */
+    public static CompactRoster fromStudents(List<Student> students) {
+        Builder builder = new Builder(students.size());
+        for (Student student : students) {
+            builder.add(student);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getPNo(int row) {
+        return pNos.get(row);
+    }
+
+    public String getName(int row) {
+        return names.get(row);
+    }
+
+    public String getEmail(int row) {
+        return emails.get(row);
+    }
+
+    public String getShop(int row) {
+        int code = shopCodes[row];
+        return code == NULL_CODE ? null : shops[code];
+    }
+
+    public String getStatus(int row) {
+        int code = statusCodes[row];
+        return code == NULL_CODE ? null : statuses[code];
+    }
+
+    public AttendanceStatus getAttendanceStatus(int row) {
+        int code = statusCodes[row];
+        return code == NULL_CODE ? AttendanceStatus.UNKNOWN : statusKinds[code];
+    }
+
+    /**
+     * @return the shop dictionary code of a row, or {@link #NULL_CODE} if the row has no shop
+     */
+    public int getShopCode(int row) {
+        return shopCodes[row];
+    }
+
+    /**
+     * @return the number of distinct shops
+     */
+    public int getShopCount() {
+        return shops.length;
+    }
+
+    /**
+     * @return the shop a dictionary code stands for
+     */
+    public String getShopName(int code) {
+        return shops[code];
+    }
+
+    /**
+     * @return the status dictionary code of a row, or {@link #NULL_CODE} if the row has no status
+     */
+    public int getStatusCode(int row) {
+        return statusCodes[row];
+    }
+
+    /**
+     * @return the number of distinct status codes
+     */
+    public int getStatusCount() {
+        return statusKinds.length;
+    }
+
+    /**
+     * @return the classification a status code stands for
+     */
+    public AttendanceStatus getStatusKind(int code) {
+        return statusKinds[code];
+    }
+
+    /**
+     * @return the number of rows classified as present
+     */
+    public int countPresent() {
+        boolean[] present = statusMask(true);
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            int code = statusCodes[row];
+            if (code != NULL_CODE && present[code]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of rows classified as absent (including leave, sick, holiday and off)
+     */
+    public int countAbsent() {
+        boolean[] absent = statusMask(false);
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            int code = statusCodes[row];
+            if (code != NULL_CODE && absent[code]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the indices of the rows classified as absent, in row order
+     */
+    public int[] absentRows() {
+        boolean[] absent = statusMask(false);
+        int[] rows = new int[countAbsent()];
+        int count = 0;
+        for (int row = 0; row < size && count < rows.length; row++) {
+            int code = statusCodes[row];
+            if (code != NULL_CODE && absent[code]) {
+                rows[count++] = row;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * @return per status code, whether it counts as present (or as absent)
+     */
+    private boolean[] statusMask(boolean present) {
+        boolean[] mask = new boolean[statusKinds.length];
+        for (int code = 0; code < mask.length; code++) {
+            mask[code] = present ? statusKinds[code].countsAsPresent() : statusKinds[code].countsAsAbsent();
+        }
+        return mask;
+    }
+
+    /**
+     * Materializes one row as a Student
+     */
+    public Student getStudent(int row) {
+        Student student = new Student(getPNo(row), getName(row), getStatus(row), getEmail(row));
+        student.setShop(getShop(row));
+        student.setAttendanceStatus(getAttendanceStatus(row));
+        return student;
+    }
+
+    /**
+     * @return a read-only list view that materializes each Student on access
+     */
+    public List<Student> asStudentList() {
+        return rowsView(null);
+    }
+
+    /**
+     * @return a read-only view of the absent students, materialized on access
+     */
+    public List<Student> absentStudents() {
+        return rowsView(absentRows());
+    }
+
+    private List<Student> rowsView(int[] rows) {
+        return new AbstractList<Student>() {
+            @Override
+            public Student get(int index) {
+                int count = size();
+                if (index < 0 || index >= count) {
+                    throw new IndexOutOfBoundsException("Row " + index + " out of range 0.." + count);
+                }
+                return getStudent(rows != null ? rows[index] : index);
+            }
+
+            @Override
+            public int size() {
+                return rows != null ? rows.length : CompactRoster.this.size;
+            }
+        };
+    }
+
+    /**
+     * Packed characters of one text field: row i spans chars[offsets[i]] to chars[offsets[i + 1]]
+     */
+    private static class TextColumn {
+        private final char[] chars;
+        private final int[] offsets;
+        private final BitSet nulls;
+
+        TextColumn(char[] chars, int[] offsets, BitSet nulls) {
+            this.chars = chars;
+            this.offsets = offsets;
+            this.nulls = nulls;
+        }
+
+        String get(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            return new String(chars, offsets[row], offsets[row + 1] - offsets[row]);
+        }
+    }
+
+    private static class TextColumnBuilder {
+        private char[] chars;
+        private int[] offsets;
+        private final BitSet nulls = new BitSet();
+        private int length;
+
+        TextColumnBuilder(int expectedRows, int expectedCharsPerRow) {
+            chars = new char[Math.max(16, expectedRows * expectedCharsPerRow)];
+            offsets = new int[expectedRows + 1];
+        }
+
+        void add(int row, String value) {
+            if (offsets.length < row + 2) {
+                offsets = Arrays.copyOf(offsets, Math.max(row + 2, offsets.length * 2));
+            }
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                if (chars.length < length + value.length()) {
+                    chars = Arrays.copyOf(chars, Math.max(length + value.length(), chars.length * 2));
+                }
+                value.getChars(0, value.length(), chars, length);
+                length += value.length();
+            }
+            offsets[row + 1] = length;
+        }
+
+        TextColumn build(int rows) {
+            return new TextColumn(Arrays.copyOf(chars, length), Arrays.copyOf(offsets, rows + 1), (BitSet) nulls.clone());
+        }
+    }
+
+    /**
+     * Builder that appends rows one at a time
+     */
+    public static class Builder {
+        private final TextColumnBuilder pNos;
+        private final TextColumnBuilder names;
+        private final TextColumnBuilder emails;
+        private int[] shopCodes;
+        private int[] statusCodes;
+        private final Map<String, Integer> shopIndex = new HashMap<>();
+        private final List<String> shops = new ArrayList<>();
+        /** Status text to its code per classification */
+        private final Map<String, int[]> statusIndex = new HashMap<>();
+        private final List<String> statuses = new ArrayList<>();
+        private final List<AttendanceStatus> statusKinds = new ArrayList<>();
+        private int size;
+
+        public Builder() {
+            this(1024);
+        }
+
+        /**
+         * @param expectedRows Initial capacity in rows
+         */
+        public Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            pNos = new TextColumnBuilder(capacity, 8);
+            names = new TextColumnBuilder(capacity, 16);
+            emails = new TextColumnBuilder(capacity, 0);
+            shopCodes = new int[capacity];
+            statusCodes = new int[capacity];
+        }
+
+        /**
+         * Appends a row
+         * @return the index of the appended row
+         */
+        public int add(String pNo, String name, String status, String shop, String email) {
+            return add(pNo, name, status, null, shop, email);
+        }
+
+        /**
+         * Appends a copy of a Student, keeping its status classification
+         * @return the index of the appended row
+         */
+        public int add(Student student) {
+            return add(student.getPNo(), student.getName(), student.getStatus(), student.getAttendanceStatus(),
+                student.getShop(), student.getEmail());
+        }
+
+        private int add(String pNo, String name, String status, AttendanceStatus kind, String shop, String email) {
+            if (shopCodes.length <= size) {
+                shopCodes = Arrays.copyOf(shopCodes, shopCodes.length * 2);
+                statusCodes = Arrays.copyOf(statusCodes, statusCodes.length * 2);
+            }
+            pNos.add(size, pNo);
+            names.add(size, name);
+            emails.add(size, email);
+            shopCodes[size] = encodeShop(shop);
+            statusCodes[size] = encodeStatus(status, kind);
+            return size++;
+        }
+
+        private int encodeShop(String shop) {
+            if (shop == null) {
+                return NULL_CODE;
+            }
+            Integer code = shopIndex.get(shop);
+            if (code == null) {
+                code = shops.size();
+                shops.add(shop);
+                shopIndex.put(shop, code);
+            }
+            return code;
+        }
+
+        /**
+         * Status codes are keyed by the text and its classification, since readers may store a
+         * normalized text ("absent") together with the finer kind of the raw value (leave, sick, ...)
+         */
+        private int encodeStatus(String status, AttendanceStatus kind) {
+            if (status == null) {
+                return NULL_CODE;
+            }
+            AttendanceStatus statusKind = kind != null ? kind : AttendanceStatus.of(status);
+            int[] codesByKind = statusIndex.get(status);
+            if (codesByKind == null) {
+                codesByKind = new int[AttendanceStatus.values().length];
+                Arrays.fill(codesByKind, NULL_CODE);
+                statusIndex.put(status, codesByKind);
+            }
+            int code = codesByKind[statusKind.ordinal()];
+            if (code == NULL_CODE) {
+                code = statuses.size();
+                statuses.add(status);
+                statusKinds.add(statusKind);
+                codesByKind[statusKind.ordinal()] = code;
+            }
+            return code;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return an immutable roster containing the rows added so far
+         */
+        public CompactRoster build() {
+            return new CompactRoster(this);
+        }
+    }
+}
@@ -76,6 +76,317 @@ public class ConfigManager {
         return Config.isSmtpTlsEnabled();
     }
     
+    /**
+     * Whether Excel files should be read through the streaming readers (SAX for .xlsx,
+     * HSSF event API for .xls) instead of loading the whole workbook into memory
+     */
+    public boolean isStreamingReadEnabled() {
+        return getBooleanProperty("excel.streaming.enabled", true);
+    }
+    
+    /**
+     * Input size in bytes from which the summary flow reads the roster straight into a
+     * {@link CompactRoster} instead of one Student object per row
+     */
+    public long getCompactRosterThresholdBytes() {
+        return getLongProperty("excel.compactRoster.thresholdBytes", 32L * 1024 * 1024);
+    }
+    
+    /**
+     * Whether outgoing mail reuses pooled SMTP connections instead of
+     * opening a new connection for every message
+     */
+    public boolean isSmtpPoolEnabled() {
+        return getBooleanProperty("smtp.pool.enabled", true);
+    }
+    
+    public int getSmtpPoolMaxSize() {
+        return getIntProperty("smtp.pool.maxSize", 4);
+    }
+    
+    public long getSmtpPoolIdleTimeoutMillis() {
+        return getLongProperty("smtp.pool.idleTimeoutMs", 60000L);
+    }
+    
+    public long getSmtpPoolValidationIntervalMillis() {
+        return getLongProperty("smtp.pool.validationIntervalMs", 5000L);
+    }
+    
+    public long getSmtpPoolBorrowTimeoutMillis() {
+        return getLongProperty("smtp.pool.borrowTimeoutMs", 30000L);
+    }
+    
+    /**
+     * Whether every sheet of a workbook is read and merged instead of only the first one
+     */
+    public boolean isMultiSheetReadEnabled() {
+        return getBooleanProperty("excel.multiSheet.enabled", false);
+    }
+    
+    /**
+     * Number of .xlsx sheets parsed concurrently when multi-sheet reading is enabled
+     */
+    public int getSheetParallelism() {
+        return getIntProperty("excel.sheetParallelism", Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Whether report emails are queued in the durable outbox and delivered in the
+     * background instead of being sent synchronously
+     */
+    public boolean isOutboxEnabled() {
+        return getBooleanProperty("outbox.enabled", false);
+    }
+    
+    public String getOutboxDirectory() {
+        return getProperty("outbox.dir", "outbox");
+    }
+    
+    public int getOutboxWorkerThreads() {
+        return getIntProperty("outbox.workers", 2);
+    }
+    
+    public int getOutboxMaxAttempts() {
+        return getIntProperty("outbox.maxAttempts", 6);
+    }
+    
+    public long getOutboxInitialBackoffMillis() {
+        return getLongProperty("outbox.initialBackoffMs", 5000L);
+    }
+    
+    public long getOutboxMaxBackoffMillis() {
+        return getLongProperty("outbox.maxBackoffMs", 600000L);
+    }
+    
+    public long getOutboxPollIntervalMillis() {
+        return getLongProperty("outbox.pollIntervalMs", 2000L);
+    }
+    
+    public long getOutboxShutdownTimeoutMillis() {
+        return getLongProperty("outbox.shutdownTimeoutMs", 30000L);
+    }
+    
+    /**
+     * Whether log file lines are written by a background flusher thread
+     */
+    public boolean isAsyncLogEnabled() {
+        return getBooleanProperty("log.async.enabled", true);
+    }
+    
+    public int getAsyncLogBufferSize() {
+        return getIntProperty("log.async.bufferSize", 8192);
+    }
+    
+    public long getAsyncLogFlushIntervalMillis() {
+        return getLongProperty("log.async.flushIntervalMs", 1000L);
+    }
+    
+    public boolean isAsyncLogFlushOnError() {
+        return getBooleanProperty("log.async.flushOnError", true);
+    }
+    
+    /**
+     * Directory watched for incoming attendance files in daemon mode
+     */
+    public String getWatchDirectory() {
+        return getProperty("watch.dir", "inbox");
+    }
+    
+    public String getWatchDoneDirectory() {
+        return getProperty("watch.doneDir", getWatchDirectory() + "/done");
+    }
+    
+    public String getWatchFailedDirectory() {
+        return getProperty("watch.failedDir", getWatchDirectory() + "/failed");
+    }
+    
+    public int getWatchWorkerThreads() {
+        return getIntProperty("watch.workers", 2);
+    }
+    
+    public int getWatchQueueCapacity() {
+        return getIntProperty("watch.queueCapacity", 16);
+    }
+    
+    public long getWatchSettleMillis() {
+        return getLongProperty("watch.settleMs", 2000L);
+    }
+    
+    /**
+     * Directory the batch processor writes rendered reports to
+     */
+    public String getBatchOutputDirectory() {
+        return getProperty("batch.outputDir", "reports");
+    }
+    
+    /**
+     * Number of workbooks the batch processor parses at the same time
+     */
+    public int getBatchParseConcurrency() {
+        return getIntProperty("batch.parseConcurrency", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+    
+    /**
+     * Minimum number of rows for which per-shop aggregation is split into partitions counted in parallel
+     */
+    public int getAggregationParallelThreshold() {
+        return getIntProperty("aggregation.parallelThreshold", 100000);
+    }
+    
+    /**
+     * Whether every processed day is appended to the local attendance history store
+     */
+    public boolean isHistoryEnabled() {
+        return getBooleanProperty("history.enabled", false);
+    }
+    
+    public String getHistoryDirectory() {
+        return getProperty("history.dir", "history");
+    }
+    
+    /**
+     * Data file size at which the history store starts a new segment
+     */
+    public long getHistorySegmentMaxBytes() {
+        return getIntProperty("history.segmentMaxMb", 64) * 1024L * 1024L;
+    }
+    
+    /**
+     * Whether rolling absence analytics are kept and added to the flexible report
+     */
+    public boolean isAnalyticsEnabled() {
+        return getBooleanProperty("analytics.enabled", false);
+    }
+    
+    /**
+     * Number of most recent recorded days covered by the rolling analytics
+     */
+    public int getAnalyticsWindowDays() {
+        return getIntProperty("analytics.windowDays", 10);
+    }
+    
+    /**
+     * Absent days within the analytics window from which an employee is listed as a frequent absentee
+     */
+    public int getAnalyticsAbsentThreshold() {
+        return getIntProperty("analytics.absentThreshold", 3);
+    }
+    
+    /**
+     * Directory searched for report templates that override the bundled ones
+     */
+    public String getTemplateDirectory() {
+        return getProperty("templates.dir", "templates");
+    }
+    
+    /**
+     * Whether personalized per-shop reports are sent in addition to the full report
+     */
+    public boolean isFanOutEnabled() {
+        return getBooleanProperty("fanout.enabled", false);
+    }
+    
+    /**
+     * Properties file mapping recipients to the shops whose absentees they receive
+     */
+    public String getFanOutMappingFile() {
+        return getProperty("fanout.mappingFile", "shop_recipients.properties");
+    }
+    
+    public int getFanOutSendConcurrency() {
+        return getIntProperty("fanout.sendConcurrency", getSmtpPoolMaxSize());
+    }
+    
+    /**
+     * Whether pipeline timings and counters are collected and exposed over JMX
+     */
+    public boolean isMetricsEnabled() {
+        return getBooleanProperty("metrics.enabled", false);
+    }
+    
+    /**
+     * JSON-lines file every run's metrics record is appended to; empty for none
+     */
+    public String getMetricsRunLog() {
+        return getProperty("metrics.runLog", "metrics/runs.jsonl");
+    }
+    
+    /**
+     * Loopback port of the Prometheus metrics endpoint; 0 disables it
+     */
+    public int getMetricsHttpPort() {
+        return getIntProperty("metrics.httpPort", 0);
+    }
+    
+    /**
+     * Whether processed files, summaries, email status and errors are recorded in the indexed audit log
+     */
+    public boolean isAuditEnabled() {
+        return getBooleanProperty("audit.enabled", false);
+    }
+    
+    public String getAuditDirectory() {
+        return getProperty("audit.dir", "audit");
+    }
+    
+    /**
+     * Data file size at which the audit log starts a new segment
+     */
+    public long getAuditSegmentMaxBytes() {
+        return getIntProperty("audit.segmentMaxMb", 8) * 1024L * 1024L;
+    }
+    
+    /**
+     * Number of audit segments kept; the oldest is deleted when a new one is started
+     */
+    public int getAuditMaxSegments() {
+        return getIntProperty("audit.maxSegments", 16);
+    }
+    
+    /**
+     * Maximum time an audit record is buffered before it is written and synced to disk
+     */
+    public long getAuditFlushIntervalMillis() {
+        return getLongProperty("audit.flushIntervalMs", 1000L);
+    }
+    
+    public String getProperty(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value != null ? value.trim() : defaultValue;
+    }
+    
+    public int getIntProperty(String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value != null) {
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                // Fall back to default
+            }
+        }
+        return defaultValue;
+    }
+    
+    public long getLongProperty(String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value != null) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                // Fall back to default
+            }
+        }
+        return defaultValue;
+    }
+    
+    public boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        if (value != null) {
+            return Boolean.parseBoolean(value.trim());
+        }
+        return defaultValue;
+    }
+    
     public void updateSenderCredentials(String email, String password) {
         properties.setProperty("sender.email", email);
         properties.setProperty("sender.app.password", password);
@@ -0,0 +1,379 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CsvAttendanceReader reads attendance exports in CSV or TSV format directly,
+ * without converting them to a workbook first. Header detection and status
+ * normalization are the same as for Excel files ({@link FlexibleExcelReader}).
+ *
+ * The file is read through a reusable heap buffer that is refilled with
+ * {@link FileChannel#read} and parsed byte by byte; nothing stays mapped or
+ * open after the read, so the file can be moved right away (e.g. by the
+ * directory watcher, also on Windows). Unquoted fields are read in place as
+ * offsets into the buffer; each column keeps a dictionary of the values it has
+ * seen, keyed by their bytes, so a String is only created the first time a
+ * value appears and repeated values such as a Shop or Status are reused
+ * without copying or allocating. Quoted fields (RFC 4180, with "" as an
+ * escaped quote and line breaks inside quotes) are supported. The delimiter
+ * (comma, semicolon or tab) is detected from the header line. Files must be
+ * UTF-8 (a byte order mark is skipped).
+ */
+public class CsvAttendanceReader {
+
+    /** Values cached per column before further distinct values are decoded without caching */
+    private static final int MAX_DICTIONARY_SIZE = 1 << 16;
+    private static final byte QUOTE = '"';
+    private static final byte[] CANDIDATE_DELIMITERS = {',', '\t', ';'};
+    /** Initial read buffer size; the buffer grows only for a record longer than this */
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * @return true if the path has a .csv or .tsv extension
+     */
+    public static boolean isCsvFile(String filePath) {
+        String lowerPath = filePath.toLowerCase();
+        return lowerPath.endsWith(".csv") || lowerPath.endsWith(".tsv");
+    }
+
+    /**
+     * Reads a CSV/TSV file with flexible column detection
+     * @param filePath Path to the .csv or .tsv file
+     * @return FlexibleAttendanceData containing processed data and metadata
+     * @throws IOException if the file cannot be read or lacks the required columns
+     */
+    public static FlexibleExcelReader.FlexibleAttendanceData readCsvFile(String filePath) throws IOException {
+        FlexibleExcelReader.FlexibleRowCollector collector = new FlexibleExcelReader.FlexibleRowCollector();
+        readRows(filePath, collector);
+        return collector.getResult();
+    }
+
+    /**
+     * Streams the records of a CSV/TSV file to a row handler, the first record being the header
+     * @param filePath Path to the .csv or .tsv file
+     * @param handler Receiver of the rows; the sheet name is the file name
+     * @throws IOException if the file cannot be read or the handler fails
+     */
+    public static void readRows(String filePath, SheetRowHandler handler) throws IOException {
+        Path path = Paths.get(filePath);
+        if (!Files.exists(path)) {
+            throw new IOException("File does not exist: " + filePath);
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Parser parser = new Parser(channel, handler);
+            parser.fill(0);
+
+            int start = hasUtf8Bom(parser.buffer, parser.limit) ? 3 : 0;
+            byte delimiter = filePath.toLowerCase().endsWith(".tsv")
+                ? (byte) '\t' : detectDelimiter(parser.buffer, start, parser.limit);
+
+            handler.startSheet(path.getFileName().toString());
+            parser.parse(start, delimiter);
+            handler.endSheet();
+        }
+    }
+
+    private static boolean hasUtf8Bom(ByteBuffer buffer, int limit) {
+        return limit >= 3
+            && (buffer.get(0) & 0xFF) == 0xEF && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF;
+    }
+
+    /**
+     * Picks the candidate delimiter that occurs most often outside quotes in the header line
+     * @param limit End of the valid bytes in the buffer
+     */
+    static byte detectDelimiter(ByteBuffer buffer, int start, int limit) {
+        int[] counts = new int[CANDIDATE_DELIMITERS.length];
+        boolean inQuotes = false;
+        for (int i = start; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == QUOTE) {
+                inQuotes = !inQuotes;
+            } else if (!inQuotes && (b == '\n' || b == '\r')) {
+                break;
+            } else if (!inQuotes) {
+                for (int d = 0; d < CANDIDATE_DELIMITERS.length; d++) {
+                    if (b == CANDIDATE_DELIMITERS[d]) {
+                        counts[d]++;
+                    }
+                }
+            }
+        }
+
+        int best = 0;
+        for (int d = 1; d < counts.length; d++) {
+            if (counts[d] > counts[best]) {
+                best = d;
+            }
+        }
+        return CANDIDATE_DELIMITERS[best];
+    }
+
+    /**
+     * Single-pass record parser over a window of the file. Records are parsed in
+     * place from the window; a record that reaches the end of the window before
+     * the end of the file is parsed again once the window has been refilled.
+     */
+    private static class Parser {
+        private final FileChannel channel;
+        private final SheetRowHandler handler;
+        private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        /** End of the valid bytes in the buffer */
+        private int limit;
+        private boolean endOfFile;
+        private byte delimiter;
+
+        private final List<ColumnDictionary> dictionaries = new ArrayList<>();
+        private final List<String> row = new ArrayList<>();
+        private byte[] scratch = new byte[256];
+        private ByteBuffer scratchBuffer = ByteBuffer.wrap(scratch);
+        private int position;
+
+        Parser(FileChannel channel, SheetRowHandler handler) {
+            this.channel = channel;
+            this.handler = handler;
+        }
+
+        /**
+         * Moves the bytes from keepFrom on to the start of the buffer and reads the file until
+         * the buffer is full or the file ends. The buffer grows when nothing can be discarded.
+         * @param keepFrom Index of the first byte still needed; position is shifted accordingly
+         */
+        void fill(int keepFrom) throws IOException {
+            int kept = limit - keepFrom;
+            if (keepFrom == 0 && limit == buffer.capacity()) {
+                // A single record fills the whole buffer
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                larger.put(buffer.array(), 0, limit);
+                buffer = larger;
+            } else if (keepFrom > 0) {
+                System.arraycopy(buffer.array(), keepFrom, buffer.array(), 0, kept);
+            }
+            position -= keepFrom;
+            buffer.clear();
+            buffer.position(kept);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    endOfFile = true;
+                    break;
+                }
+            }
+            limit = buffer.position();
+        }
+
+        void parse(int start, byte delimiter) throws IOException {
+            this.delimiter = delimiter;
+            this.position = start;
+            int rowNum = 0;
+            while (position < limit || !endOfFile) {
+                if (position >= limit) {
+                    fill(position);
+                    continue;
+                }
+                int recordStart = position;
+                row.clear();
+                boolean rowHasValues = false;
+                boolean endOfRecord = false;
+                while (!endOfRecord) {
+                    String value = position < limit && buffer.get(position) == QUOTE
+                        ? readQuotedField(row.size())
+                        : readPlainField(row.size());
+                    row.add(value);
+                    rowHasValues |= value != null;
+
+                    if (position >= limit) {
+                        endOfRecord = true;
+                    } else {
+                        byte b = buffer.get(position++);
+                        if (b == '\r') {
+                            if (position < limit && buffer.get(position) == '\n') {
+                                position++;
+                            }
+                            endOfRecord = true;
+                        } else if (b == '\n') {
+                            endOfRecord = true;
+                        }
+                        // Otherwise b is the delimiter and another field follows
+                    }
+                }
+
+                if (position >= limit && !endOfFile) {
+                    // The record may continue past the window: refill and parse it again
+                    position = recordStart;
+                    fill(recordStart);
+                    continue;
+                }
+
+                // Blank lines are skipped, like empty rows in a sheet
+                if (rowHasValues) {
+                    handler.handleRow(rowNum, row);
+                }
+                rowNum++;
+            }
+        }
+
+        /**
+         * Reads an unquoted field up to the next delimiter or line break
+         * @return the value, or null for an empty field
+         */
+        private String readPlainField(int column) {
+            int start = position;
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b == delimiter || b == '\n' || b == '\r') {
+                    break;
+                }
+                position++;
+            }
+            int length = position - start;
+            if (length == 0) {
+                return null;
+            }
+            // Looked up straight from the read buffer; nothing is copied for a known value
+            return dictionary(column).lookup(buffer, start, length);
+        }
+
+        /**
+         * Reads a quoted field, unescaping doubled quotes
+         * @return the value; an empty quoted field yields an empty string
+         */
+        private String readQuotedField(int column) {
+            position++; // opening quote
+            int length = 0;
+            while (position < limit) {
+                byte b = buffer.get(position++);
+                if (b == QUOTE) {
+                    if (position < limit && buffer.get(position) == QUOTE) {
+                        position++; // escaped quote
+                    } else {
+                        break; // closing quote
+                    }
+                }
+                ensureScratch(length + 1);
+                scratch[length++] = b;
+            }
+            // Tolerate stray characters between the closing quote and the delimiter
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b == delimiter || b == '\n' || b == '\r') {
+                    break;
+                }
+                ensureScratch(length + 1);
+                scratch[length++] = b;
+                position++;
+            }
+            return dictionary(column).lookup(scratchBuffer, 0, length);
+        }
+
+        private void ensureScratch(int length) {
+            if (scratch.length < length) {
+                scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+                scratchBuffer = ByteBuffer.wrap(scratch);
+            }
+        }
+
+        private ColumnDictionary dictionary(int column) {
+            while (dictionaries.size() <= column) {
+                dictionaries.add(new ColumnDictionary());
+            }
+            return dictionaries.get(column);
+        }
+    }
+
+    /**
+     * Open-addressing map from a field's bytes to its decoded String.
+     * Lookups hash and compare bytes in place, so a value seen before costs no allocation.
+     */
+    private static class ColumnDictionary {
+        private byte[][] keys = new byte[64][];
+        private String[] values = new String[64];
+        private int[] hashes = new int[64];
+        private int size;
+
+        /**
+         * @param source Buffer holding the field bytes, read with absolute gets
+         * @param offset Index of the first byte of the field
+         * @param length Number of bytes in the field
+         * @return the decoded field value, shared with earlier occurrences of the same bytes
+         */
+        String lookup(ByteBuffer source, int offset, int length) {
+            int hash = hash(source, offset, length);
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && equals(keys[slot], source, offset, length)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            byte[] key = new byte[length];
+            for (int i = 0; i < length; i++) {
+                key[i] = source.get(offset + i);
+            }
+            String value = new String(key, StandardCharsets.UTF_8);
+            if (size < MAX_DICTIONARY_SIZE) {
+                keys[slot] = key;
+                values[slot] = value;
+                hashes[slot] = hash;
+                if (++size * 2 > keys.length) {
+                    grow();
+                }
+            }
+            return value;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            String[] oldValues = values;
+            int[] oldHashes = hashes;
+            keys = new byte[oldKeys.length * 2][];
+            values = new String[oldKeys.length * 2];
+            hashes = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = oldHashes[i] & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    values[slot] = oldValues[i];
+                    hashes[slot] = oldHashes[i];
+                }
+            }
+        }
+
+        private static int hash(ByteBuffer source, int offset, int length) {
+            int hash = 0x811C9DC5; // FNV-1a
+            for (int i = 0; i < length; i++) {
+                hash ^= source.get(offset + i);
+                hash *= 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static boolean equals(byte[] key, ByteBuffer source, int offset, int length) {
+            if (key.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (key[i] != source.get(offset + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.automatedattendance;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EmailOutbox is a durable on-disk queue of outgoing emails.
+ * Every queued email is one file under {@code <dir>/pending}; emails that
+ * exhausted their retries are moved to {@code <dir>/dead}. Files are written
+ * to a temporary name, synced and then renamed, so a crash never leaves a
+ * half-written entry and nothing queued is lost across restarts.
+ */
+public class EmailOutbox {
+
+    private static final String ENTRY_SUFFIX = ".msg";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private final Path pendingDir;
+    private final Path deadLetterDir;
+
+    /**
+     * Opens (and creates if needed) an outbox rooted at the given directory.
+     * Temporary files left behind by an interrupted write are removed.
+     * @param directory Root directory of the outbox
+     * @throws IOException if the directories cannot be created
+     */
+    public EmailOutbox(String directory) throws IOException {
+        Path root = Paths.get(directory);
+        this.pendingDir = root.resolve("pending");
+        this.deadLetterDir = root.resolve("dead");
+        Files.createDirectories(pendingDir);
+        Files.createDirectories(deadLetterDir);
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(pendingDir, "*" + TEMP_SUFFIX)) {
+            for (Path temp : stream) {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Persists a new email in the pending queue
+     * @return the id of the queued entry
+     * @throws IOException if the entry cannot be written
+     */
+    public String enqueue(String subject, String body, List<String> recipients) throws IOException {
+        long now = System.currentTimeMillis();
+        String id = now + "-" + SEQUENCE.incrementAndGet();
+        OutboxEntry entry = new OutboxEntry(id, subject, body, new ArrayList<>(recipients), 0, now, now, null);
+        write(pendingDir, entry);
+        return id;
+    }
+
+    /**
+     * @return all pending entries, oldest first
+     * @throws IOException if the pending directory cannot be listed
+     */
+    public List<OutboxEntry> listPending() throws IOException {
+        List<OutboxEntry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(pendingDir, "*" + ENTRY_SUFFIX)) {
+            for (Path file : stream) {
+                try {
+                    entries.add(read(file));
+                } catch (IOException e) {
+                    // The entry may have been completed by another worker in the meantime
+                    if (Files.exists(file)) {
+                        LoggerUtil.logWarning("Skipping unreadable outbox entry " + file + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        entries.sort(Comparator.comparingLong(OutboxEntry::getCreatedAt));
+        return entries;
+    }
+
+    /**
+     * @return the number of entries in the dead-letter queue
+     */
+    public int getDeadLetterCount() throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(deadLetterDir, "*" + ENTRY_SUFFIX)) {
+            for (Path ignored : stream) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Reads the current state of a pending entry from disk
+     * @param id Id of the entry
+     * @return the entry, or null if it is no longer pending (delivered or dead-lettered)
+     * @throws IOException if the entry cannot be read
+     */
+    public OutboxEntry reload(String id) throws IOException {
+        try {
+            return read(pendingDir.resolve(id + ENTRY_SUFFIX));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rewrites a pending entry, e.g. after a failed attempt
+     */
+    public void update(OutboxEntry entry) throws IOException {
+        write(pendingDir, entry);
+    }
+
+    /**
+     * Removes an entry that has been delivered
+     */
+    public void complete(OutboxEntry entry) throws IOException {
+        Files.deleteIfExists(pendingDir.resolve(entry.getId() + ENTRY_SUFFIX));
+    }
+
+    /**
+     * Moves an entry that exhausted its retries to the dead-letter queue
+     */
+    public void moveToDeadLetter(OutboxEntry entry) throws IOException {
+        write(deadLetterDir, entry);
+        Files.deleteIfExists(pendingDir.resolve(entry.getId() + ENTRY_SUFFIX));
+    }
+
+    private void write(Path dir, OutboxEntry entry) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("id", entry.getId());
+        props.setProperty("subject", entry.getSubject() != null ? entry.getSubject() : "");
+        props.setProperty("recipients", String.join(",", entry.getRecipients()));
+        props.setProperty("body", entry.getBody() != null ? entry.getBody() : "");
+        props.setProperty("attempts", String.valueOf(entry.getAttempts()));
+        props.setProperty("createdAt", String.valueOf(entry.getCreatedAt()));
+        props.setProperty("nextAttemptAt", String.valueOf(entry.getNextAttemptAt()));
+        if (entry.getLastError() != null) {
+            props.setProperty("lastError", entry.getLastError());
+        }
+
+        Path temp = dir.resolve(entry.getId() + TEMP_SUFFIX);
+        try (FileOutputStream fos = new FileOutputStream(temp.toFile())) {
+            props.store(fos, "Outbox entry");
+            fos.getFD().sync();
+        }
+
+        Path target = dir.resolve(entry.getId() + ENTRY_SUFFIX);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private OutboxEntry read(Path file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            props.load(in);
+        }
+        String recipients = props.getProperty("recipients", "");
+        return new OutboxEntry(
+            props.getProperty("id"),
+            props.getProperty("subject"),
+            props.getProperty("body"),
+            recipients.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(recipients.split(","))),
+            Integer.parseInt(props.getProperty("attempts", "0")),
+            Long.parseLong(props.getProperty("createdAt", "0")),
+            Long.parseLong(props.getProperty("nextAttemptAt", "0")),
+            props.getProperty("lastError"));
+    }
+
+    /**
+     * A queued email together with its delivery bookkeeping
+     */
+    public static class OutboxEntry {
+        private final String id;
+        private final String subject;
+        private final String body;
+        private final List<String> recipients;
+        private final long createdAt;
+        private int attempts;
+        private long nextAttemptAt;
+        private String lastError;
+
+        public OutboxEntry(String id, String subject, String body, List<String> recipients,
+                           int attempts, long createdAt, long nextAttemptAt, String lastError) {
+            this.id = id;
+            this.subject = subject;
+            this.body = body;
+            this.recipients = recipients;
+            this.attempts = attempts;
+            this.createdAt = createdAt;
+            this.nextAttemptAt = nextAttemptAt;
+            this.lastError = lastError;
+        }
+
+        public String getId() { return id; }
+        public String getSubject() { return subject; }
+        public String getBody() { return body; }
+        public List<String> getRecipients() { return recipients; }
+        public long getCreatedAt() { return createdAt; }
+
+        public int getAttempts() { return attempts; }
+        public void setAttempts(int attempts) { this.attempts = attempts; }
+
+        public long getNextAttemptAt() { return nextAttemptAt; }
+        public void setNextAttemptAt(long nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+        public String getLastError() { return lastError; }
+        public void setLastError(String lastError) { this.lastError = lastError; }
+    }
+}
@@ -1,17 +1,16 @@
 package com.automatedattendance;
 
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
 import java.util.List;
-import java.util.Properties;
 
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
-import jakarta.mail.Authenticator;
 import jakarta.mail.Message;
 import jakarta.mail.MessagingException;
-import jakarta.mail.PasswordAuthentication;
 import jakarta.mail.Session;
 import jakarta.mail.Transport;
 import jakarta.mail.internet.InternetAddress;
@@ -19,14 +18,81 @@ import jakarta.mail.internet.MimeMessage;
 
 /**
  * EmailSender class to send attendance summary emails to receivers and the sender.
- * Uses SMTP with TLS security for email transmission.
+ * Uses SMTP with TLS security for email transmission; connections are pooled
+ * and reused across messages through {@link SmtpConnectionPool}.
  */
 public class EmailSender {
     
+    // Pool shared by all senders that use the ConfigManager settings
+    private static SmtpConnectionPool sharedPool;
+    private static String sharedPoolKey;
+    
+    private final SmtpConnectionPool pool;
+    
+    /**
+     * Creates a sender that uses the SMTP server and credentials from the ConfigManager
+     */
+    public EmailSender() {
+        this(null);
+    }
+    
+    /**
+     * Creates a sender that sends through the given connection pool,
+     * e.g. one pointed at a local SMTP stand-in
+     * @param pool The pool to send through, or null to use the shared configured pool
+     */
+    public EmailSender(SmtpConnectionPool pool) {
+        this.pool = pool;
+    }
+    
     private boolean isConfigValid() {
         return ConfigManager.getInstance().isConfigValid();
     }
     
+    private SmtpConnectionPool getPool() {
+        return pool != null ? pool : getSharedPool();
+    }
+    
+    /**
+     * Returns the shared pool, replacing it when the SMTP settings or credentials have changed
+     */
+    private static synchronized SmtpConnectionPool getSharedPool() {
+        ConfigManager configManager = ConfigManager.getInstance();
+        String key = configManager.getSmtpHost() + ":" + configManager.getSmtpPort() + ":" 
+            + configManager.isSmtpTlsEnabled() + ":" + configManager.getSenderEmail() + ":" 
+            + configManager.getSenderAppPassword().hashCode();
+        if (sharedPool == null || !key.equals(sharedPoolKey)) {
+            if (sharedPool != null) {
+                sharedPool.close();
+            }
+            sharedPool = SmtpConnectionPool.fromConfig(configManager);
+            sharedPoolKey = key;
+        }
+        return sharedPool;
+    }
+    
+    /**
+     * Sends the message over a pooled connection, or with a one-off connection when pooling is disabled
+     */
+    private void deliver(SmtpConnectionPool pool, Message message) throws MessagingException {
+        if (ConfigManager.getInstance().isSmtpPoolEnabled()) {
+            pool.send(message);
+        } else {
+            Transport.send(message);
+        }
+    }
+    
+    /**
+     * Closes the pooled connections of the shared pool, e.g. on application shutdown
+     */
+    public static synchronized void closeSharedPool() {
+        if (sharedPool != null) {
+            sharedPool.close();
+            sharedPool = null;
+            sharedPoolKey = null;
+        }
+    }
+    
     /**
      * Sends attendance summary email to all configured receivers and CC to sender
      * @param subject Subject of the email
@@ -41,24 +107,10 @@ public class EmailSender {
                 return false;
             }
             
-            // Set up properties for SMTP
-            Properties props = new Properties();
+            // Get the session of the pooled SMTP connections
             ConfigManager configManager = ConfigManager.getInstance();
-            props.put("mail.smtp.host", configManager.getSmtpHost());
-            props.put("mail.smtp.port", configManager.getSmtpPort());
-            props.put("mail.smtp.auth", "true");
-            props.put("mail.smtp.starttls.enable", configManager.isSmtpTlsEnabled());
-            
-            // Create session with authentication
-            Session session = Session.getInstance(props, new Authenticator() {
-                @Override
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(
-                        configManager.getSenderEmail(), 
-                        configManager.getSenderAppPassword()
-                    );
-                }
-            });
+            SmtpConnectionPool pool = getPool();
+            Session session = pool.getSession();
             
             // Create message
             Message message = new MimeMessage(session);
@@ -80,7 +132,7 @@ public class EmailSender {
             message.setText(body);
             
             // Send the message
-            Transport.send(message);
+            deliver(pool, message);
             
             System.out.println("Email sent successfully to " + receiverEmails.size() + " receivers");
             return true;
@@ -126,24 +178,10 @@ public class EmailSender {
                 return false;
             }
             
-            // Set up properties for SMTP
-            Properties props = new Properties();
+            // Get the session of the pooled SMTP connections
             ConfigManager configManager = ConfigManager.getInstance();
-            props.put("mail.smtp.host", configManager.getSmtpHost());
-            props.put("mail.smtp.port", configManager.getSmtpPort());
-            props.put("mail.smtp.auth", "true");
-            props.put("mail.smtp.starttls.enable", configManager.isSmtpTlsEnabled());
-            
-            // Create session with authentication
-            Session session = Session.getInstance(props, new Authenticator() {
-                @Override
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(
-                        configManager.getSenderEmail(), 
-                        configManager.getSenderAppPassword()
-                    );
-                }
-            });
+            SmtpConnectionPool pool = getPool();
+            Session session = pool.getSession();
             
             // Create message
             Message message = new MimeMessage(session);
@@ -165,7 +203,7 @@ public class EmailSender {
             message.setContent(htmlBody, "text/html; charset=utf-8");
             
             // Send the message
-            Transport.send(message);
+            deliver(pool, message);
             
             System.out.println("HTML email sent successfully to " + receiverEmails.size() + " receivers");
             return true;
@@ -197,6 +235,66 @@ public class EmailSender {
         }
     }
     
+    /**
+     * Builds and sends an HTML message to the given recipients with the sender in CC.
+     * Unlike the send* methods this reports failures to the caller instead of handling them,
+     * so the outbox dispatcher can decide whether to retry.
+     * @throws MessagingException if the message could not be delivered
+     */
+    void deliverHtmlToRecipients(String subject, String body, List<String> recipients) throws MessagingException {
+        // Get the session of the pooled SMTP connections
+        ConfigManager configManager = ConfigManager.getInstance();
+        SmtpConnectionPool pool = getPool();
+        Session session = pool.getSession();
+        
+        // Create message
+        Message message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(configManager.getSenderEmail()));
+        
+        // Set recipients (to: provided recipients, cc: sender)
+        InternetAddress[] toAddresses = new InternetAddress[recipients.size()];
+        for (int i = 0; i < recipients.size(); i++) {
+            toAddresses[i] = new InternetAddress(recipients.get(i));
+        }
+        message.setRecipients(Message.RecipientType.TO, toAddresses);
+        
+        // CC the sender
+        message.setRecipients(Message.RecipientType.CC, 
+            new InternetAddress[]{new InternetAddress(configManager.getSenderEmail())});
+        
+        message.setSubject(subject);
+        message.setContent(body, "text/html; charset=utf-8");
+        
+        // Send the message
+        deliver(pool, message);
+    }
+    
+    /**
+     * Queues an attendance summary email in the durable outbox; it is delivered in the
+     * background by the {@link OutboxDispatcher}, with retries, and survives restarts
+     * @param subject Subject of the email
+     * @param body Body content of the email (attendance summary)
+     * @param recipients List of email addresses to send the email to
+     * @return true if the email was persisted to the outbox, false otherwise
+     */
+    public boolean enqueueEmailToRecipients(String subject, String body, List<String> recipients) {
+        if (recipients == null || recipients.isEmpty()) {
+            System.err.println("No recipients provided");
+            return false;
+        }
+        
+        try {
+            OutboxDispatcher dispatcher = OutboxDispatcher.getShared();
+            String id = dispatcher.getOutbox().enqueue(subject, body, recipients);
+            dispatcher.wakeUp();
+            System.out.println("Email queued in outbox as " + id + " for " + recipients.size() + " receivers");
+            return true;
+        } catch (IOException e) {
+            System.err.println("Failed to queue email in outbox: " + e.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * Sends attendance summary email to specified recipients
      * @param subject Subject of the email
@@ -205,6 +303,19 @@ public class EmailSender {
      * @return true if email was sent successfully, false otherwise
      */
     public boolean sendEmailToRecipients(String subject, String body, List<String> recipients) {
+        return sendEmailToRecipients(subject, body, recipients, true);
+    }
+    
+    /**
+     * Sends attendance summary email to specified recipients
+     * @param subject Subject of the email
+     * @param body Body content of the email (attendance summary)
+     * @param recipients List of email addresses to send the email to
+     * @param promptOnAuthFailure Whether an authentication failure opens the password reset dialog;
+     *                            without it, or without a display, the failure is only logged
+     * @return true if email was sent successfully, false otherwise
+     */
+    public boolean sendEmailToRecipients(String subject, String body, List<String> recipients, boolean promptOnAuthFailure) {
         try {
             // Validate configuration
             if (!isConfigValid()) {
@@ -218,45 +329,7 @@ public class EmailSender {
                 return false;
             }
             
-            // Set up properties for SMTP
-            Properties props = new Properties();
-            ConfigManager configManager = ConfigManager.getInstance();
-            props.put("mail.smtp.host", configManager.getSmtpHost());
-            props.put("mail.smtp.port", configManager.getSmtpPort());
-            props.put("mail.smtp.auth", "true");
-            props.put("mail.smtp.starttls.enable", configManager.isSmtpTlsEnabled());
-            
-            // Create session with authentication
-            Session session = Session.getInstance(props, new Authenticator() {
-                @Override
-                protected PasswordAuthentication getPasswordAuthentication() {
-                    return new PasswordAuthentication(
-                        configManager.getSenderEmail(), 
-                        configManager.getSenderAppPassword()
-                    );
-                }
-            });
-            
-            // Create message
-            Message message = new MimeMessage(session);
-            message.setFrom(new InternetAddress(configManager.getSenderEmail()));
-            
-            // Set recipients (to: provided recipients, cc: sender)
-            InternetAddress[] toAddresses = new InternetAddress[recipients.size()];
-            for (int i = 0; i < recipients.size(); i++) {
-                toAddresses[i] = new InternetAddress(recipients.get(i));
-            }
-            message.setRecipients(Message.RecipientType.TO, toAddresses);
-            
-            // CC the sender
-            message.setRecipients(Message.RecipientType.CC, 
-                new InternetAddress[]{new InternetAddress(configManager.getSenderEmail())});
-            
-            message.setSubject(subject);
-            message.setContent(body, "text/html; charset=utf-8");
-            
-            // Send the message
-            Transport.send(message);
+            deliverHtmlToRecipients(subject, body, recipients);
             
             System.out.println("Email sent successfully to " + recipients.size() + " receivers");
             return true;
@@ -268,6 +341,12 @@ public class EmailSender {
             // Check if this is an authentication error
             if (errorMessage.contains("535") && (errorMessage.contains("Username and Password not accepted") || 
                 errorMessage.contains("Authentication failed") || errorMessage.contains("Invalid login"))) {
+                if (!promptOnAuthFailure || GraphicsEnvironment.isHeadless()) {
+                    LoggerUtil.logError("SMTP authentication failed; update the sender credentials in the configuration: "
+                        + errorMessage);
+                    return false;
+                }
+                
                 // Show password reset dialog
                 SwingUtilities.invokeLater(() -> {
                     JFrame parentFrame = (JFrame) JOptionPane.getFrameForComponent(new JLabel());
@@ -0,0 +1,73 @@
+package com.automatedattendance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a combined validate-and-read pass over an Excel file.
+ * Holds the parsed data when the file is valid, together with any
+ * diagnostics collected while reading it.
+ * @param <T> Type of the parsed data
+ */
+public class ExcelReadResult<T> {
+    private final boolean valid;
+    private final T data;
+    private final String errorMessage;
+    private final List<String> diagnostics;
+
+    private ExcelReadResult(boolean valid, T data, String errorMessage, List<String> diagnostics) {
+        this.valid = valid;
+        this.data = data;
+        this.errorMessage = errorMessage;
+        this.diagnostics = Collections.unmodifiableList(new ArrayList<>(diagnostics));
+    }
+
+    /**
+     * Creates a result for a file that was read and validated successfully
+     * @param data The parsed data
+     * @param diagnostics Non-fatal findings such as skipped rows
+     */
+    public static <T> ExcelReadResult<T> success(T data, List<String> diagnostics) {
+        return new ExcelReadResult<>(true, data, null, diagnostics);
+    }
+
+    /**
+     * Creates a result for a file that failed validation
+     * @param errorMessage Reason the file was rejected
+     */
+    public static <T> ExcelReadResult<T> failure(String errorMessage) {
+        return new ExcelReadResult<>(false, null, errorMessage, Collections.singletonList(errorMessage));
+    }
+
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return the parsed data, or null if the file failed validation
+     */
+    public T getData() {
+        return data;
+    }
+
+    /**
+     * @return the reason the file was rejected, or null if it is valid
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public List<String> getDiagnostics() {
+        return diagnostics;
+    }
+
+    @Override
+    public String toString() {
+        return "ExcelReadResult{" +
+                "valid=" + valid +
+                ", errorMessage='" + errorMessage + '\'' +
+                ", diagnostics=" + diagnostics +
+                '}';
+    }
+}
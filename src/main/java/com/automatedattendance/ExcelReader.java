@@ -47,61 +47,178 @@ public class ExcelReader {
             }
             
             Sheet sheet = workbook.getSheetAt(0); // Get first sheet
+            students = readStudents(sheet);
             
-            // Validate required columns
-            Row headerRow = sheet.getRow(0);
-            if (headerRow == null) {
-                throw new IOException("Excel file is empty or has no header row");
+        } finally {
+            if (workbook != null) {
+                workbook.close();
             }
+            fis.close();
+        }
+        
+        return students;
+    }
+    
+    /**
+     * Reads an Excel file through the streaming readers (SAX for .xlsx, HSSF event API for .xls),
+     * holding only the row being parsed in memory. Applies the same validation as
+     * {@link #readExcelFile(String)}.
+     * @param filePath Path to the Excel file
+     * @return List of Student objects containing attendance data
+     * @throws IOException if there's an error reading the file or a row is invalid
+     */
+    public List<Student> readExcelFileStreaming(String filePath) throws IOException {
+        StudentRowCollector collector = new StudentRowCollector();
+        readFirstSheetStreaming(filePath, collector);
+        return collector.getStudents();
+    }
+    
+    private static void readFirstSheetStreaming(String filePath, SheetRowHandler collector) throws IOException {
+        String lowerPath = filePath.toLowerCase();
+        if (lowerPath.endsWith(".xlsx")) {
+            StreamingXlsxReader.readFirstSheet(filePath, collector);
+        } else if (lowerPath.endsWith(".xls")) {
+            StreamingXlsReader.readFirstSheet(filePath, collector);
+        } else {
+            throw new IOException("Unsupported file format. Only .xls and .xlsx files are supported.");
+        }
+    }
+    
+    /**
+     * Reads and validates the student rows of a sheet
+     * @param sheet The sheet containing the header row and attendance rows
+     * @return List of Student objects containing attendance data
+     * @throws IOException if required columns are missing or a row has empty required fields
+     */
+    private List<Student> readStudents(Sheet sheet) throws IOException {
+        List<Student> students = new ArrayList<>();
+        
+        // Validate required columns
+        Row headerRow = sheet.getRow(0);
+        if (headerRow == null) {
+            throw new IOException("Excel file is empty or has no header row");
+        }
+        
+        int pNoColIndex = findColumnIndex(headerRow, "P.no");
+        int nameColIndex = findColumnIndex(headerRow, "Name");
+        int statusColIndex = findColumnIndex(headerRow, "Status");
+        int emailColIndex = findColumnIndex(headerRow, "Email");
+        
+        // Check if required columns exist
+        if (pNoColIndex == -1 || nameColIndex == -1 || statusColIndex == -1) {
+            throw new IOException("Missing required columns. Required: P.no, Name, Status");
+        }
+        
+        // Process data rows (starting from row 1, since row 0 is header)
+        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+            Row row = sheet.getRow(i);
+            if (row == null) continue; // Skip empty rows
             
-            int pNoColIndex = findColumnIndex(headerRow, "P.no");
-            int nameColIndex = findColumnIndex(headerRow, "Name");
-            int statusColIndex = findColumnIndex(headerRow, "Status");
-            int emailColIndex = findColumnIndex(headerRow, "Email");
+            String pNo = getCellValueAsString(row.getCell(pNoColIndex));
+            String name = getCellValueAsString(row.getCell(nameColIndex));
+            String status = getCellValueAsString(row.getCell(statusColIndex));
+            String email = emailColIndex != -1 ? getCellValueAsString(row.getCell(emailColIndex)) : null;
             
-            // Check if required columns exist
-            if (pNoColIndex == -1 || nameColIndex == -1 || statusColIndex == -1) {
-                throw new IOException("Missing required columns. Required: P.no, Name, Status");
+            // Validate that required fields are not empty
+            if (pNo == null || pNo.trim().isEmpty()) {
+                throw new IOException("Invalid data at row " + (i + 1) + ": P.no cannot be empty");
             }
             
-            // Process data rows (starting from row 1, since row 0 is header)
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-                Row row = sheet.getRow(i);
-                if (row == null) continue; // Skip empty rows
-                
-                String pNo = getCellValueAsString(row.getCell(pNoColIndex));
-                String name = getCellValueAsString(row.getCell(nameColIndex));
-                String status = getCellValueAsString(row.getCell(statusColIndex));
-                String email = emailColIndex != -1 ? getCellValueAsString(row.getCell(emailColIndex)) : null;
-                
-                // Validate that required fields are not empty
-                if (pNo == null || pNo.trim().isEmpty()) {
-                    throw new IOException("Invalid data at row " + (i + 1) + ": P.no cannot be empty");
-                }
-                
-                if (name == null || name.trim().isEmpty()) {
-                    throw new IOException("Invalid data at row " + (i + 1) + ": Name cannot be empty");
-                }
-                
-                if (status == null || status.trim().isEmpty()) {
-                    throw new IOException("Invalid data at row " + (i + 1) + ": Status cannot be empty");
-                }
-                
-                // Create and add Student object
-                Student student = new Student(pNo, name, status, email);
-                students.add(student);
+            if (name == null || name.trim().isEmpty()) {
+                throw new IOException("Invalid data at row " + (i + 1) + ": Name cannot be empty");
             }
             
-        } finally {
-            if (workbook != null) {
-                workbook.close();
+            if (status == null || status.trim().isEmpty()) {
+                throw new IOException("Invalid data at row " + (i + 1) + ": Status cannot be empty");
             }
-            fis.close();
+            
+            // Create and add Student object
+            Student student = new Student(pNo, name, status, email);
+            students.add(student);
         }
         
         return students;
     }
     
+    /**
+     * Validates and reads an Excel file in a single pass, so the workbook is only parsed once
+     * @param filePath Path to the Excel file
+     * @return ExcelReadResult holding the students when the file is valid, or the validation error otherwise
+     */
+    public ExcelReadResult<List<Student>> readAndValidateExcelFile(String filePath) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return ExcelReadResult.failure("File does not exist: " + filePath);
+        }
+        
+        String lowerPath = filePath.toLowerCase();
+        if (!lowerPath.endsWith(".xlsx") && !lowerPath.endsWith(".xls")) {
+            return ExcelReadResult.failure("Unsupported file format. Only .xls and .xlsx files are supported.");
+        }
+        
+        if (ConfigManager.getInstance().isStreamingReadEnabled()) {
+            try {
+                StudentRowCollector collector = new StudentRowCollector();
+                readFirstSheetStreaming(filePath, collector);
+                List<Student> students = collector.getStudents();
+                
+                List<String> diagnostics = new ArrayList<>();
+                diagnostics.add("Read " + students.size() + " student records from sheet '" + collector.getSheetName() + "' (streaming)");
+                return ExcelReadResult.success(students, diagnostics);
+            } catch (IOException e) {
+                return ExcelReadResult.failure(e.getMessage());
+            }
+        }
+        
+        try (FileInputStream fis = new FileInputStream(file);
+             Workbook workbook = lowerPath.endsWith(".xlsx") ? new XSSFWorkbook(fis) : new HSSFWorkbook(fis)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            List<Student> students = readStudents(sheet);
+            
+            List<String> diagnostics = new ArrayList<>();
+            diagnostics.add("Read " + students.size() + " student records from sheet '" + sheet.getSheetName() + "'");
+            return ExcelReadResult.success(students, diagnostics);
+        } catch (IOException e) {
+            return ExcelReadResult.failure(e.getMessage());
+        }
+    }
+    
+    /**
+     * Validates and reads a file straight into a {@link CompactRoster} in a single streaming pass,
+     * for inputs too large to hold as Student objects. Applies the same validation as
+     * {@link #readAndValidateExcelFile(String)}; .csv and .tsv files are read with the
+     * {@link CsvAttendanceReader}.
+     * @param filePath Path to the .xlsx, .xls, .csv or .tsv file
+     * @return ExcelReadResult holding the roster when the file is valid, or the validation error otherwise
+     */
+    public ExcelReadResult<CompactRoster> readAndValidateCompactRoster(String filePath) {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            return ExcelReadResult.failure("File does not exist: " + filePath);
+        }
+        
+        String lowerPath = filePath.toLowerCase();
+        if (!lowerPath.endsWith(".xlsx") && !lowerPath.endsWith(".xls") && !CsvAttendanceReader.isCsvFile(filePath)) {
+            return ExcelReadResult.failure("Unsupported file format. Only .xls, .xlsx, .csv and .tsv files are supported.");
+        }
+        
+        try {
+            CompactRosterCollector collector = new CompactRosterCollector();
+            if (CsvAttendanceReader.isCsvFile(filePath)) {
+                CsvAttendanceReader.readRows(filePath, collector);
+            } else {
+                readFirstSheetStreaming(filePath, collector);
+            }
+            CompactRoster roster = collector.getRoster();
+            
+            List<String> diagnostics = new ArrayList<>();
+            diagnostics.add("Read " + roster.size() + " student records from sheet '" + collector.getSheetName() + "' (compact roster)");
+            return ExcelReadResult.success(roster, diagnostics);
+        } catch (IOException e) {
+            return ExcelReadResult.failure(e.getMessage());
+        }
+    }
+    
     /**
      * Finds the index of a column by its header name
      * @param headerRow The header row of the Excel sheet
@@ -200,4 +317,130 @@ public class ExcelReader {
             fis.close();
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Applies the header and row validation of {@link #readStudents(Sheet)} to rows delivered
+     * one at a time, handing every valid row to {@link #addRow}
+     */
+    private abstract static class ValidatingRowCollector implements SheetRowHandler {
+        private String sheetName;
+        private boolean headerRead;
+        private int pNoColIndex;
+        private int nameColIndex;
+        private int statusColIndex;
+        private int emailColIndex;
+        
+        @Override
+        public void startSheet(String sheetName) {
+            this.sheetName = sheetName;
+        }
+        
+        @Override
+        public void handleRow(int rowNum, List<String> cellValues) throws IOException {
+            if (!headerRead) {
+                if (rowNum != 0) {
+                    throw new IOException("Excel file is empty or has no header row");
+                }
+                pNoColIndex = findColumnIndex(cellValues, "P.no");
+                nameColIndex = findColumnIndex(cellValues, "Name");
+                statusColIndex = findColumnIndex(cellValues, "Status");
+                emailColIndex = findColumnIndex(cellValues, "Email");
+                if (pNoColIndex == -1 || nameColIndex == -1 || statusColIndex == -1) {
+                    throw new IOException("Missing required columns. Required: P.no, Name, Status");
+                }
+                headerRead = true;
+                return;
+            }
+            
+            String pNo = getValue(cellValues, pNoColIndex);
+            String name = getValue(cellValues, nameColIndex);
+            String status = getValue(cellValues, statusColIndex);
+            String email = emailColIndex != -1 ? getValue(cellValues, emailColIndex) : null;
+            
+            if (pNo == null || pNo.isEmpty()) {
+                throw new IOException("Invalid data at row " + (rowNum + 1) + ": P.no cannot be empty");
+            }
+            if (name == null || name.isEmpty()) {
+                throw new IOException("Invalid data at row " + (rowNum + 1) + ": Name cannot be empty");
+            }
+            if (status == null || status.isEmpty()) {
+                throw new IOException("Invalid data at row " + (rowNum + 1) + ": Status cannot be empty");
+            }
+            
+            addRow(pNo, name, status, email);
+        }
+        
+        /**
+         * Receives one validated data row
+         */
+        protected abstract void addRow(String pNo, String name, String status, String email);
+        
+        @Override
+        public void endSheet() {
+            // Nothing to finalize
+        }
+        
+        String getSheetName() {
+            return sheetName;
+        }
+        
+        /**
+         * @throws IOException if no header row was ever delivered
+         */
+        void checkHeaderRead() throws IOException {
+            if (!headerRead) {
+                throw new IOException("Excel file is empty or has no header row");
+            }
+        }
+        
+        private static int findColumnIndex(List<String> headers, String columnName) {
+            for (int i = 0; i < headers.size(); i++) {
+                String header = headers.get(i);
+                if (header != null && header.trim().equalsIgnoreCase(columnName)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        private static String getValue(List<String> cellValues, int column) {
+            String value = column < cellValues.size() ? cellValues.get(column) : null;
+            return value != null ? value.trim() : null;
+        }
+    }
+    
+    /**
+     * Builds Student objects from rows delivered one at a time
+     */
+    private static class StudentRowCollector extends ValidatingRowCollector {
+        private final List<Student> students = new ArrayList<>();
+        
+        @Override
+        protected void addRow(String pNo, String name, String status, String email) {
+            students.add(new Student(pNo, name, status, email));
+        }
+        
+        List<Student> getStudents() throws IOException {
+            checkHeaderRead();
+            return students;
+        }
+    }
+    
+    /**
+     * Appends rows delivered one at a time straight to a {@link CompactRoster.Builder},
+     * so no Student object is created while reading
+     */
+    static class CompactRosterCollector extends ValidatingRowCollector {
+        private final CompactRoster.Builder builder = new CompactRoster.Builder();
+        
+        @Override
+        protected void addRow(String pNo, String name, String status, String email) {
+            builder.add(pNo, name, status, null, email);
+        }
+        
+        CompactRoster getRoster() throws IOException {
+            checkHeaderRead();
+            return builder.build();
+        }
+    }
+}
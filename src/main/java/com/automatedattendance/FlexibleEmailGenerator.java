@@ -1,61 +1,55 @@
  package com.automatedattendance;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
 /**
  * FlexibleEmailGenerator class to create dynamic HTML emails that mirror
  * the structure of the source Excel file.
+ * The markup comes from the {@code flexible-report.html} report template;
+ * this class only computes the values it shows.
  */
 public class FlexibleEmailGenerator {
     
+    /** Report template, loaded through {@link ReportTemplate#forName(String)} */
+    private static final String TEMPLATE_NAME = "flexible-report.html";
+    
     /**
      * Generates a dynamic HTML email based on the flexible attendance data
      * @param attendanceData The processed attendance data with original headers
      * @return HTML formatted email content
      */
     public String generateFlexibleEmail(FlexibleExcelReader.FlexibleAttendanceData attendanceData) {
-        StringBuilder html = new StringBuilder();
-        
-        // HTML document structure
-        html.append("<!DOCTYPE html>\n");
-        html.append("<html>\n");
-        html.append("<head>\n");
-        html.append("    <meta charset=\"UTF-8\">\n");
-        html.append("    <style>\n");
-        html.append("        body { font-family: Arial, sans-serif; margin: 20px; background-color: #f5f5f5; }\n");
-        html.append("        .container { max-width: 1000px; margin: 0 auto; background-color: white; padding: 20px; border-radius: 8px; box-shadow: 0 2px 10px rgba(0,0,0,0.1); }\n");
-        html.append("        .header { text-align: center; margin-bottom: 30px; }\n");
-        html.append("        .header h1 { color: #2c3e50; margin-bottom: 10px; }\n");
-        html.append("        .summary-box { background-color: #ecf0f1; padding: 20px; border-radius: 5px; margin-bottom: 25px; }\n");
-        html.append("        .shop-summary-box { background-color: #e8f5e8; padding: 20px; border-radius: 5px; margin-bottom: 25px; border-left: 4px solid #27ae60; }\n");
-        html.append("        .shop-info { margin: 10px 0; }\n");
-        html.append("        .management-insights { margin: 15px 0; padding: 10px; background-color: #f8f9fa; border-radius: 4px; }\n");
-        html.append("        .summary-item { margin: 8px 0; font-size: 16px; }\n");
-        html.append("        .summary-label { font-weight: bold; color: #34495e; }\n");
-        html.append("        .summary-value { color: #2c3e50; margin-left: 10px; }\n");
-        html.append("        .section-title { font-size: 20px; font-weight: bold; color: #2c3e50; margin: 25px 0 15px 0; padding-bottom: 8px; border-bottom: 2px solid #3498db; }\n");
-        html.append("        table { width: 100%; border-collapse: collapse; margin: 15px 0; background-color: white; }\n");
-        html.append("        th { background-color: #3498db; color: white; padding: 12px; text-align: left; font-weight: bold; }\n");
-        html.append("        td { padding: 10px; border: 1px solid #bdc3c7; }\n");
-        html.append("        tr:nth-child(even) { background-color: #f8f9fa; }\n");
-        html.append("        tr:hover { background-color: #e3f2fd; }\n");
-        html.append("        .present { color: #27ae60; font-weight: bold; }\n");
-        html.append("        .absent { color: #e74c3c; font-weight: bold; }\n");
-        html.append("        .footer { margin-top: 30px; padding-top: 15px; border-top: 1px solid #bdc3c7; color: #7f8c8d; font-size: 14px; text-align: center; }\n");
-        html.append("        .highlight { background-color: #fff3cd; border-left: 4px solid #ffc107; padding: 15px; margin: 20px 0; border-radius: 4px; }\n");
-        html.append("    </style>\n");
-        html.append("</head>\n");
-        html.append("<body>\n");
-        html.append("    <div class=\"container\">\n");        
-        // Header
-        html.append("        <div class=\"header\">\n");
-        html.append("            <h1>📊 Attendance Summary Report</h1>\n");
-        html.append("            <p>Generated from attendance data</p>\n");
-        html.append("        </div>\n");
-        
+        return generateFlexibleEmail(attendanceData, null);
+    }
+    
+    /**
+     * Generates a dynamic HTML email with an additional section on recent absence trends
+     * @param attendanceData The processed attendance data with original headers
+     * @param analytics Rolling counters over recent days, or null to leave the section out
+     * @return HTML formatted email content
+     */
+    public String generateFlexibleEmail(FlexibleExcelReader.FlexibleAttendanceData attendanceData,
+                                        RollingAttendanceAnalytics analytics) {
+        return renderReport(prepareReport(attendanceData, analytics), null);
+    }
+    
+    /**
+     * Computes everything the report shows once, so that several reports scoped to
+     * different shops can be rendered from it without repeating the work
+     * @param attendanceData The processed attendance data with original headers
+     * @param analytics Rolling counters over recent days, or null to leave the trends section out
+     * @return the prepared report
+     */
+    public PreparedReport prepareReport(FlexibleExcelReader.FlexibleAttendanceData attendanceData,
+                                        RollingAttendanceAnalytics analytics) {
         // Process data to get statistics
         List<Student> students = attendanceData.getStudents();
         int totalStudents = students.size();
@@ -72,216 +66,179 @@ public class FlexibleEmailGenerator {
         
         double attendancePercentage = totalStudents > 0 ? (double) presentCount / totalStudents * 100 : 0.0;
         
-        // Enhanced summary section with simplified information
-        html.append("        <div class=\"summary-box\">\n");
-        html.append("            <div class=\"summary-item\"><span class=\"summary-label\">Total Students:</span><span class=\"summary-value\">").append(totalStudents).append("</span></div>\n");
-        html.append("            <div class=\"summary-item\"><span class=\"summary-label\">Present:</span><span class=\"summary-value present\">").append(presentCount).append("</span></div>\n");
-        html.append("            <div class=\"summary-item\"><span class=\"summary-label\">Absent:</span><span class=\"summary-value absent\">").append(absentCount).append("</span></div>\n");
-        html.append("            <div class=\"summary-item\"><span class=\"summary-label\">Attendance Rate:</span><span class=\"summary-value\">").append(String.format("%.1f", attendancePercentage)).append("%</span></div>\n");
-        html.append("        </div>\n");
+        Map<String, Object> model = new HashMap<>();
+        model.put("totalStudents", totalStudents);
+        model.put("presentCount", presentCount);
+        model.put("absentCount", absentCount);
+        model.put("attendanceRate", String.format("%.1f", attendancePercentage));
+        
+        // Per-shop breakdown, shown only when at least one student has a shop
+        List<ShopAttendanceAggregator.ShopSummary> shopSummaries = new ShopAttendanceAggregator().aggregate(students);
+        boolean hasShops = false;
+        for (ShopAttendanceAggregator.ShopSummary shopSummary : shopSummaries) {
+            if (!ShopAttendanceAggregator.UNASSIGNED_SHOP.equals(shopSummary.getShop())) {
+                hasShops = true;
+                break;
+            }
+        }
+        model.put("hasShops", hasShops);
+        model.put("shops", shopRows(shopSummaries));
         
         // Absent employees summary section with all essential details
+        List<Map<String, Object>> absentees = new ArrayList<>(absentCount);
+        List<String> absenteeShops = new ArrayList<>(absentCount);
         if (absentCount > 0) {
-            html.append("        <div class=\"section-title\">⚠️ Absent Employees Summary</div>\n");
-            html.append("        <div class=\"highlight\">\n");
-            html.append("            <p><strong>Total Absent: ").append(absentCount).append(" employees</strong></p>\n");
-            html.append("            <table style=\"width: 100%; border-collapse: collapse; margin-top: 10px;\">\n");
-            html.append("                <thead>\n");
-            html.append("                    <tr style=\"background-color: #e74c3c; color: white;\">\n");
-            html.append("                        <th style=\"padding: 8px; border: 1px solid #ddd;\">Name</th>\n");
-            html.append("                        <th style=\"padding: 8px; border: 1px solid #ddd;\">Ticket/P.No</th>\n");
-            html.append("                        <th style=\"padding: 8px; border: 1px solid #ddd;\">Shop</th>\n");
-            html.append("                    </tr>\n");
-            html.append("                </thead>\n");
-            html.append("                <tbody>\n");
-            
-            // Find the shop/dept column header - first check if it exists in the column mappings
-            List<String> originalHeaders = attendanceData.getOriginalHeaders();
-            Map<String, Integer> columnMappings = attendanceData.getColumnMappings();
-            
-            // Get the original header names from column mappings
-            String pNoHeader = null;
-            String shopHeader = null;
-            
-            // Find original header names based on column mappings
-            for (Map.Entry<String, Integer> entry : columnMappings.entrySet()) {
-                if ("P.no".equals(entry.getKey())) {
-                    int columnIndex = entry.getValue();
-                    if (columnIndex < originalHeaders.size()) {
-                        pNoHeader = originalHeaders.get(columnIndex);
-                    }
-                } else if ("Shop".equals(entry.getKey())) {
-                    int columnIndex = entry.getValue();
-                    if (columnIndex < originalHeaders.size()) {
-                        shopHeader = originalHeaders.get(columnIndex);
-                    }
-                }
-            }
-            
-            System.out.println("DEBUG: Original headers in Excel: " + originalHeaders);
-            System.out.println("DEBUG: Column mappings: " + columnMappings);
-            System.out.println("DEBUG: P.No header found: " + pNoHeader);
-            System.out.println("DEBUG: Shop header found: " + shopHeader);
-            
-            List<Map<String, String>> rawData = attendanceData.getRawData();
-            
+            boolean hasShopColumn = attendanceData.getColumnMappings().containsKey("Shop");
             for (Student student : students) {
                 if (student.isAbsent()) {
-                    // Find the corresponding row in raw data to get shop/department info
-                    String shopValue = "";
-                    System.out.println("DEBUG: Looking for student P.No: " + student.getPNo());
-                    
-                    for (Map<String, String> row : rawData) {
-                        String pNoValue = row.get(pNoHeader);
-                        System.out.println("DEBUG: Comparing with row P.No: " + pNoValue);
-                        
-                        if (pNoValue != null && pNoValue.equals(student.getPNo())) {
-                            if (shopHeader != null) {
-                                // Get the shop value using the original header name
-                                shopValue = row.get(shopHeader);
-                                System.out.println("DEBUG: Found shop value: " + shopValue + " for header: " + shopHeader);
-                            }
-                            break;
-                        }
+                    String shopValue = student.getShop();
+                    if (shopValue == null) {
+                        shopValue = hasShopColumn ? "N/A" : "";
                     }
                     
-                    html.append("                    <tr>\n");
-                    html.append("                        <td style=\"padding: 8px; border: 1px solid #ddd;\"><strong>").append(escapeHtml(student.getName())).append("</strong></td>\n");
-                    html.append("                        <td style=\"padding: 8px; border: 1px solid #ddd;\">").append(escapeHtml(student.getPNo())).append("</td>\n");
-                    html.append("                        <td style=\"padding: 8px; border: 1px solid #ddd;\">").append(escapeHtml(shopValue != null ? shopValue : "N/A")).append("</td>\n");
-                    html.append("                    </tr>\n");
+                    Map<String, Object> absentee = new HashMap<>(4);
+                    absentee.put("name", student.getName());
+                    absentee.put("pNo", student.getPNo());
+                    absentee.put("shop", shopValue);
+                    absentees.add(absentee);
+                    absenteeShops.add(shopKey(student.getShop()));
                 }
             }
-            
-            html.append("                </tbody>\n");
-            html.append("            </table>\n");
-            html.append("        </div>\n");
         }
         
-        // Footer
-        html.append("        <div class=\"footer\">\n");
-        html.append("            <p>Report generated on: ").append(new java.util.Date()).append("</p>\n");
-        html.append("            <p>This is an automated attendance summary report</p>\n");
-        html.append("        </div>\n");
+        // Recent trends across processed days
+        if (analytics != null) {
+            model.put("trends", trendsModel(analytics, ConfigManager.getInstance().getAnalyticsAbsentThreshold()));
+        }
         
-        html.append("    </div>\n");
-        html.append("</body>\n");
-        html.append("</html>\n");
+        model.put("hasAbsentees", !absentees.isEmpty());
+        model.put("absenteeCount", absentees.size());
+        model.put("absentees", absentees);
+        model.put("generatedOn", new java.util.Date());
         
-        return html.toString();
+        return new PreparedReport(model, absentees, absenteeShops);
     }
     
     /**
-     * Finds the most relevant header from the list of original headers
-     * based on the possible alternatives provided
+     * Renders a prepared report, optionally listing only the absentees of some shops.
+     * The overall and shop-wise statistics are shown in full either way.
+     * @param report Report computed by {@link #prepareReport}
+     * @param shops Shops whose absentees are listed (matched ignoring case and surrounding spaces),
+     *              or null for all absentees
+     * @return HTML formatted email content
      */
-    private String findEssentialHeader(List<String> originalHeaders, String[] possibleHeaders) {
-        for (String originalHeader : originalHeaders) {
-            if (originalHeader != null) {
-                String normalizedOriginal = normalizeHeader(originalHeader);
-                for (String possibleHeader : possibleHeaders) {
-                    if (normalizedOriginal.contains(possibleHeader) || possibleHeader.contains(normalizedOriginal)) {
-                        return originalHeader;
-                    }
+    public String renderReport(PreparedReport report, Collection<String> shops) {
+        Map<String, Object> model = report.model;
+        if (shops != null) {
+            Set<String> shopKeys = new HashSet<>();
+            for (String shop : shops) {
+                shopKeys.add(shopKey(shop));
+            }
+            List<Map<String, Object>> absentees = new ArrayList<>();
+            for (int i = 0; i < report.absentees.size(); i++) {
+                if (shopKeys.contains(report.absenteeShops.get(i))) {
+                    absentees.add(report.absentees.get(i));
                 }
             }
+            // Shallow copy: the shared statistics and rows are reused as they are
+            model = new HashMap<>(report.model);
+            model.put("scope", String.join(", ", shops));
+            model.put("hasAbsentees", !absentees.isEmpty());
+            model.put("absenteeCount", absentees.size());
+            model.put("absentees", absentees);
         }
-        return null;
+        
+        return ReportTemplate.forName(TEMPLATE_NAME).renderToString(model);
     }
     
     /**
-     * Normalizes header names for comparison
+     * @return the key shops are matched by: trimmed, lower case, blank as {@value ShopAttendanceAggregator#UNASSIGNED_SHOP}
      */
-    private String normalizeHeader(String header) {
-        if (header == null) return "";
-        return header.toLowerCase()
-                    .replaceAll("[^a-zA-Z0-9]", " ")
-                    .trim()
-                    .replaceAll("\\s+", " ");
+    static String shopKey(String shop) {
+        String name = shop == null || shop.trim().isEmpty() ? ShopAttendanceAggregator.UNASSIGNED_SHOP : shop.trim();
+        return name.toLowerCase(Locale.ROOT);
     }
     
     /**
-     * Escapes HTML special characters for safe display
+     * @param shopSummaries Per-shop statistics, sorted by shop name
+     * @return one template row per shop
      */
-    private String escapeHtml(String text) {
-        if (text == null) return "";
-        return text.replace("&", "&amp;")
-                  .replace("<", "&lt;")
-                  .replace(">", "&gt;")
-                  .replace("\"", "&quot;")
-                  .replace("'", "&#x27;");
+    private List<Map<String, Object>> shopRows(List<ShopAttendanceAggregator.ShopSummary> shopSummaries) {
+        List<Map<String, Object>> rows = new ArrayList<>(shopSummaries.size());
+        for (ShopAttendanceAggregator.ShopSummary shopSummary : shopSummaries) {
+            Map<String, Object> row = new HashMap<>(8);
+            row.put("shop", shopSummary.getShop());
+            row.put("totalCount", shopSummary.getTotalCount());
+            row.put("presentCount", shopSummary.getPresentCount());
+            row.put("absentCount", shopSummary.getAbsentCount());
+            row.put("attendanceRate", String.format("%.1f", shopSummary.getAttendanceRate()));
+            rows.add(row);
+        }
+        return rows;
     }
     
     /**
-     * Extracts and summarizes shop/department information for management reporting
+     * Frequent absentees and per-shop rates over the analytics window.
+     * @param analytics Rolling counters over recent days
+     * @param absentThreshold Minimum absent days for an employee to be listed
+     * @return the model of the trends section, or null before a second day has been recorded
      */
-    private String getShopNameSummary(FlexibleExcelReader.FlexibleAttendanceData attendanceData) {
-        List<Map<String, String>> rawData = attendanceData.getRawData();
-        if (rawData == null || rawData.isEmpty()) {
-            return "";
+    private Map<String, Object> trendsModel(RollingAttendanceAnalytics analytics, int absentThreshold) {
+        // One snapshot, so a day evicted by another run in between cannot leave a shop without days
+        RollingAttendanceAnalytics.WindowSnapshot window = analytics.snapshot(absentThreshold);
+        List<LocalDate> dates = window.getDates();
+        if (dates.size() < 2) {
+            return null;
         }
         
-        // Look for shop/department related columns
-        Set<String> shopNames = new HashSet<>();
-        Set<String> departmentNames = new HashSet<>();
-        
-        // Check common shop/department column names
-        String[] shopHeaders = {"shop name", "shop", "department", "dept", "branch", "location", "center", "unit", "workshop", "trade", "division", "area", "zone", "site", "place"};
-        
-        for (Map<String, String> row : rawData) {
-            for (Map.Entry<String, String> entry : row.entrySet()) {
-                String header = entry.getKey();
-                String value = entry.getValue();
-                
-                if (header != null && value != null && !value.trim().isEmpty()) {
-                    String normalizedHeader = normalizeHeader(header);
-                    
-                    // Check if this is a shop/department column
-                    for (String shopHeader : shopHeaders) {
-                        if (normalizedHeader.contains(shopHeader)) {
-                            shopNames.add(value.trim());
-                            break;
-                        }
-                    }
-                }
-            }
+        Map<String, Object> trends = new HashMap<>();
+        trends.put("dayCount", dates.size());
+        trends.put("fromDate", dates.get(0));
+        trends.put("toDate", dates.get(dates.size() - 1));
+        trends.put("absentThreshold", absentThreshold);
+        
+        List<RollingAttendanceAnalytics.EmployeeWindowStats> absentees = window.getFrequentAbsentees();
+        List<Map<String, Object>> absenteeRows = new ArrayList<>(absentees.size());
+        for (RollingAttendanceAnalytics.EmployeeWindowStats absentee : absentees) {
+            Map<String, Object> row = new HashMap<>(8);
+            row.put("name", absentee.getName());
+            row.put("pNo", absentee.getPNo());
+            row.put("shop", absentee.getShop());
+            row.put("absentDays", absentee.getAbsentDays());
+            row.put("recordedDays", absentee.getRecordedDays());
+            absenteeRows.add(row);
         }
-        
-        // Generate summary HTML
-        StringBuilder summary = new StringBuilder();
-        
-        if (!shopNames.isEmpty()) {
-            summary.append("<div class=\"shop-info\">\n");
-            summary.append("    <p><strong>Shop/Department(s):</strong> ");
-            summary.append(String.join(", ", shopNames));
-            summary.append("</p>\n");
-            summary.append("</div>\n");
+        trends.put("frequentAbsenteeCount", absentees.size());
+        trends.put("hasFrequentAbsentees", !absentees.isEmpty());
+        trends.put("frequentAbsentees", absenteeRows);
+        
+        List<Map<String, Object>> shopRows = new ArrayList<>();
+        for (RollingAttendanceAnalytics.ShopWindowStats shop : window.getShops()) {
+            Map<String, Object> row = new HashMap<>(8);
+            row.put("shop", shop.getShop());
+            row.put("windowRate", String.format("%.1f", shop.getWindow().getAttendanceRate()));
+            row.put("oldestRate", String.format("%.1f", shop.getOldestDay().getAttendanceRate()));
+            row.put("latestRate", String.format("%.1f", shop.getLatestDay().getAttendanceRate()));
+            shopRows.add(row);
         }
-        
-        // Add additional management insights
-        if (!shopNames.isEmpty() && rawData.size() > 0) {
-            summary.append("<div class=\"management-insights\">\n");
-            summary.append("    <p><strong>Management Summary:</strong></p>\n");
-            summary.append("    <ul>\n");
-            summary.append("        <li>Total workforce in shop(s): ").append(rawData.size()).append(" employees</li>\n");
-            summary.append("        <li>Attendance rate: ").append(String.format("%.1f", 
-                (double) rawData.stream().filter(row -> {
-                    for (Map.Entry<String, String> entry : row.entrySet()) {
-                        String header = entry.getKey();
-                        String value = entry.getValue();
-                        if (header != null && value != null) {
-                            String normalizedHeader = normalizeHeader(header);
-                            if (normalizedHeader.contains("status") || normalizedHeader.contains("attendance")) {
-                                return value.toLowerCase().contains("present") || value.toLowerCase().equals("p");
-                            }
-                        }
-                    }
-                    return false;
-                }).count() / rawData.size() * 100)).append("%</li>\n");
-            summary.append("    </ul>\n");
-            summary.append("</div>\n");
+        trends.put("shops", shopRows);
+        return trends;
+    }
+    
+    /**
+     * Report values computed once by {@link #prepareReport}; the absentee rows are kept
+     * with their shop so scoped renders can filter them. Rendering does not modify it,
+     * so it can be rendered from several threads.
+     */
+    public static final class PreparedReport {
+        private final Map<String, Object> model;
+        private final List<Map<String, Object>> absentees;
+        private final List<String> absenteeShops;
+        
+        private PreparedReport(Map<String, Object> model, List<Map<String, Object>> absentees, List<String> absenteeShops) {
+            this.model = model;
+            this.absentees = absentees;
+            this.absenteeShops = absenteeShops;
         }
-        
-        return summary.toString();
     }
-}
\ No newline at end of file
+}
@@ -3,10 +3,11 @@ package com.automatedattendance;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
@@ -22,6 +23,11 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
  */
 public class FlexibleExcelReader {
     
+    /** Header of the column that records which sheet a merged row came from */
+    public static final String SHEET_COLUMN = "Sheet";
+    
+    private static ForkJoinPool sheetPool;
+    
     // Column name mappings for flexible detection
     public static final Map<String, String> COLUMN_MAPPINGS = new HashMap<>();
     static {
@@ -49,7 +55,6 @@ public class FlexibleExcelReader {
         COLUMN_MAPPINGS.put("attendance status", "Status");
         COLUMN_MAPPINGS.put("present", "Status");
         COLUMN_MAPPINGS.put("absent", "Status");
-        COLUMN_MAPPINGS.put("attendance status", "Status");
         
         // Shop/Department related headers
         COLUMN_MAPPINGS.put("shop", "Shop");
@@ -69,6 +74,12 @@ public class FlexibleExcelReader {
         COLUMN_MAPPINGS.put("place", "Shop");
     }
     
+    /** Fields in order of precedence when a header matches synonyms of several fields equally well */
+    private static final List<String> FIELD_PRIORITY = Arrays.asList("P.no", "Name", "Status", "Shop");
+    
+    /** Matcher compiled once from COLUMN_MAPPINGS; later changes to the map are not picked up */
+    private static final HeaderMatcher COLUMN_MATCHER = new HeaderMatcher(COLUMN_MAPPINGS, FIELD_PRIORITY);
+    
     /**
      * Reads an Excel file with flexible column detection
      * @param filePath Path to the Excel file
@@ -88,16 +99,287 @@ public class FlexibleExcelReader {
                 throw new IOException("Unsupported file format. Please use .xls or .xlsx files.");
             }
             
-            Sheet sheet = workbook.getSheetAt(0);
-            Iterator<Row> rowIterator = sheet.iterator();
+            FlexibleRowCollector collector = new FlexibleRowCollector();
+            feedSheet(workbook.getSheetAt(0), collector);
+            return collector.getResult();
+        } finally {
+            if (workbook != null) {
+                workbook.close();
+            }
+            if (fis != null) {
+                fis.close();
+            }
+        }
+    }
+    
+    /**
+     * Hands every row of an in-memory sheet to a row handler
+     */
+    private static void feedSheet(Sheet sheet, SheetRowHandler handler) throws IOException {
+        handler.startSheet(sheet.getSheetName());
+        
+        List<String> cellValues = new ArrayList<>();
+        for (Row row : sheet) {
+            cellValues.clear();
+            for (int i = 0; i < row.getLastCellNum(); i++) {
+                cellValues.add(getCellValueAsString(row.getCell(i)));
+            }
+            handler.handleRow(row.getRowNum(), cellValues);
+        }
+        
+        handler.endSheet();
+    }
+    
+    /**
+     * Reads every sheet of an Excel file with flexible column detection and merges them
+     * into one FlexibleAttendanceData, e.g. a workbook with a sheet per shop or per day.
+     * Headers are detected per sheet, so sheets may use different column names and orders;
+     * sheets without the required columns (P.no, Name, Status) are skipped. The merged
+     * data has an additional column holding the name of the sheet each row came from.
+     *
+     * .xlsx sheets are streamed and parsed concurrently on a fork-join pool; .xls
+     * sheets are streamed one after another in a single pass over the file.
+     * @param filePath Path to the Excel file
+     * @return FlexibleAttendanceData containing the rows of all usable sheets
+     * @throws IOException if the file cannot be read or no sheet has the required columns
+     */
+    public static FlexibleAttendanceData readFlexibleExcelFileAllSheets(String filePath) throws IOException {
+        List<FlexibleRowCollector> sheets;
+        if (filePath.endsWith(".xlsx")) {
+            sheets = StreamingXlsxReader.readAllSheets(filePath, () -> new FlexibleRowCollector(true), getSheetPool());
+        } else if (filePath.endsWith(".xls")) {
+            sheets = StreamingXlsReader.readAllSheets(filePath, () -> new FlexibleRowCollector(true));
+        } else {
+            throw new IOException("Unsupported file format. Please use .xls or .xlsx files.");
+        }
+        return mergeSheets(sheets);
+    }
+    
+    /**
+     * @return the pool sheets are parsed on, created on first use
+     */
+    private static synchronized ForkJoinPool getSheetPool() {
+        if (sheetPool == null) {
+            sheetPool = new ForkJoinPool(Math.max(1, ConfigManager.getInstance().getSheetParallelism()));
+        }
+        return sheetPool;
+    }
+    
+    /**
+     * Merges per-sheet results into one data set. Columns mapped to the same field
+     * (P.no, Name, Status, ...) are merged even if the sheets name them differently;
+     * other columns are merged by header text. The sheet-origin column comes last.
+     */
+    static FlexibleAttendanceData mergeSheets(List<FlexibleRowCollector> sheets) throws IOException {
+        List<FlexibleRowCollector> usable = new ArrayList<>();
+        for (FlexibleRowCollector sheet : sheets) {
+            if (sheet.hasRequiredColumns()) {
+                usable.add(sheet);
+            } else {
+                LoggerUtil.logWarning("Skipping sheet '" + sheet.getSheetName() + "': no header row with P.no, Name and Status columns");
+            }
+        }
+        if (usable.isEmpty()) {
+            throw new IOException("No sheet has the required columns. Need identifiers for Student ID, Name, and Status");
+        }
+        
+        List<String> mergedHeaders = new ArrayList<>();
+        Map<String, Integer> mergedMappings = new HashMap<>();
+        Map<String, Integer> mergedColumnsByHeader = new HashMap<>();
+        List<int[]> columnMaps = new ArrayList<>(usable.size());
+        
+        for (FlexibleRowCollector sheet : usable) {
+            List<String> headers = sheet.getOriginalHeaders();
+            Map<Integer, String> fieldByColumn = new HashMap<>();
+            for (Map.Entry<String, Integer> mapping : sheet.getColumnMappings().entrySet()) {
+                fieldByColumn.put(mapping.getValue(), mapping.getKey());
+            }
             
-            if (!rowIterator.hasNext()) {
-                throw new IOException("Excel file is empty");
+            int[] columnMap = new int[headers.size()];
+            for (int i = 0; i < headers.size(); i++) {
+                String header = headers.get(i);
+                String field = fieldByColumn.get(i);
+                Integer merged = field != null ? mergedMappings.get(field) : mergedColumnsByHeader.get(header);
+                if (merged == null && header == null && field == null) {
+                    merged = -1; // Column without header: nothing to merge it under
+                } else if (merged == null) {
+                    merged = mergedHeaders.size();
+                    mergedHeaders.add(header != null ? header : field);
+                    mergedColumnsByHeader.putIfAbsent(mergedHeaders.get(merged), merged);
+                    if (field != null) {
+                        mergedMappings.put(field, merged);
+                    }
+                }
+                columnMap[i] = merged;
             }
+            columnMaps.add(columnMap);
+        }
+        
+        int sheetColumn = mergedHeaders.size();
+        mergedHeaders.add(mergedColumnsByHeader.containsKey(SHEET_COLUMN) ? "Source " + SHEET_COLUMN : SHEET_COLUMN);
+        
+        ColumnarRowStore.Builder rowStore = new ColumnarRowStore.Builder(mergedHeaders);
+        List<Student> students = new ArrayList<>();
+        List<String> values = new ArrayList<>(mergedHeaders.size());
+        for (int s = 0; s < usable.size(); s++) {
+            FlexibleAttendanceData sheetData = usable.get(s).getResult();
+            ColumnarRowStore sheetRows = sheetData.getRowStore();
+            int[] columnMap = columnMaps.get(s);
+            String sheetName = usable.get(s).getSheetName();
             
-            Row headerRow = rowIterator.next();
-            Map<String, Integer> columnMappings = detectColumnMappings(headerRow);
-            List<String> originalHeaders = getOriginalHeaders(headerRow);
+            for (int row = 0; row < sheetRows.getRowCount(); row++) {
+                values.clear();
+                for (int i = 0; i < mergedHeaders.size(); i++) {
+                    values.add(null);
+                }
+                for (int i = 0; i < columnMap.length; i++) {
+                    if (columnMap[i] >= 0) {
+                        values.set(columnMap[i], sheetRows.getValue(row, i));
+                    }
+                }
+                values.set(sheetColumn, sheetName);
+                rowStore.addRow(values);
+            }
+            students.addAll(sheetData.getStudents());
+        }
+        
+        return new FlexibleAttendanceData(mergedHeaders, mergedMappings, rowStore.build(), students);
+    }
+    
+    /**
+     * Reads an Excel file with flexible column detection using the streaming readers:
+     * the SAX reader for .xlsx and the HSSF event reader for .xls files.
+     * Produces the same data as {@link #readFlexibleExcelFile(String)} while holding only
+     * the row being parsed in memory instead of the whole workbook.
+     * @param filePath Path to the .xlsx or .xls file
+     * @return FlexibleAttendanceData containing processed data and metadata
+     * @throws IOException if there's an error reading the file
+     */
+    public static FlexibleAttendanceData readFlexibleExcelFileStreaming(String filePath) throws IOException {
+        FlexibleRowCollector collector = new FlexibleRowCollector();
+        if (filePath.endsWith(".xlsx")) {
+            StreamingXlsxReader.readFirstSheet(filePath, collector);
+        } else if (filePath.endsWith(".xls")) {
+            StreamingXlsReader.readFirstSheet(filePath, collector);
+        } else {
+            throw new IOException("Unsupported file format. Please use .xls or .xlsx files.");
+        }
+        return collector.getResult();
+    }
+    
+    /**
+     * Reads an Excel file, using the streaming readers when they are enabled in
+     * the configuration and the in-memory workbook reader otherwise.
+     * With multi-sheet reading enabled all sheets are read and merged.
+     * .csv and .tsv files are read with the {@link CsvAttendanceReader}.
+     * @param filePath Path to the Excel file
+     * @return FlexibleAttendanceData containing processed data and metadata
+     * @throws IOException if there's an error reading the file
+     */
+    public static FlexibleAttendanceData readFlexibleExcelFileAuto(String filePath) throws IOException {
+        if (CsvAttendanceReader.isCsvFile(filePath)) {
+            return CsvAttendanceReader.readCsvFile(filePath);
+        }
+        if (ConfigManager.getInstance().isMultiSheetReadEnabled()) {
+            return readFlexibleExcelFileAllSheets(filePath);
+        }
+        if ((filePath.endsWith(".xlsx") || filePath.endsWith(".xls")) && ConfigManager.getInstance().isStreamingReadEnabled()) {
+            return readFlexibleExcelFileStreaming(filePath);
+        }
+        return readFlexibleExcelFile(filePath);
+    }
+    
+    /**
+     * Builds FlexibleAttendanceData from rows delivered one at a time.
+     * The first row is treated as the header row; every following row is mapped
+     * to a Student using the detected column mappings.
+     */
+    static class FlexibleRowCollector implements SheetRowHandler {
+        private final boolean skipInvalidSheet;
+        private String sheetName;
+        private boolean missingRequiredColumns;
+        private List<String> originalHeaders;
+        private Map<String, Integer> columnMappings;
+        private ColumnarRowStore.Builder rowStore;
+        private final List<Student> students = new ArrayList<>();
+        
+        FlexibleRowCollector() {
+            this(false);
+        }
+        
+        /**
+         * @param skipInvalidSheet Whether a sheet without the required columns is ignored
+         *                         instead of failing the read
+         */
+        FlexibleRowCollector(boolean skipInvalidSheet) {
+            this.skipInvalidSheet = skipInvalidSheet;
+        }
+        
+        @Override
+        public void startSheet(String sheetName) {
+            this.sheetName = sheetName;
+        }
+        
+        @Override
+        public void handleRow(int rowNum, List<String> cellValues) throws IOException {
+            if (missingRequiredColumns) {
+                return;
+            }
+            if (originalHeaders == null) {
+                readHeader(cellValues);
+                return;
+            }
+            
+            Student student = new Student();
+            
+            // Store all columns in the columnar row store
+            rowStore.addRow(cellValues);
+            
+            for (int i = 0; i < originalHeaders.size(); i++) {
+                String headerName = originalHeaders.get(i);
+                if (headerName != null) {
+                    String cellValue = i < cellValues.size() ? cellValues.get(i) : null;
+                    
+                    // Set Student object properties based on column mappings
+                    for (Map.Entry<String, Integer> mappingEntry : columnMappings.entrySet()) {
+                        if (mappingEntry.getValue() == i) { // If this column index matches the mapping
+                            String mappedName = mappingEntry.getKey();
+                            switch (mappedName) {
+                                case "P.no":
+                                    student.setPNo(cellValue);
+                                    break;
+                                case "Name":
+                                    student.setName(cellValue);
+                                    break;
+                                case "Status":
+                                    student.setStatus(normalizeStatus(cellValue));
+                                    // Keep the finer classification (leave, sick, ...) of the raw value
+                                    student.setAttendanceStatus(AttendanceStatus.of(cellValue));
+                                    break;
+                                case "Email":
+                                    student.setEmail(cellValue);
+                                    break;
+                                case "Shop":
+                                    student.setShop(cellValue);
+                                    break;
+                            }
+                        }
+                    }
+                }
+            }
+            
+            // Validate required fields
+            if (student.getPNo() != null && !student.getPNo().trim().isEmpty() &&
+                student.getName() != null && !student.getName().trim().isEmpty() &&
+                student.getStatus() != null && !student.getStatus().trim().isEmpty()) {
+                students.add(student);
+            }
+        }
+        
+        private void readHeader(List<String> headerValues) throws IOException {
+            originalHeaders = new ArrayList<>(headerValues);
+            columnMappings = detectColumnMappings(originalHeaders);
+            rowStore = new ColumnarRowStore.Builder(originalHeaders);
             
             // Check if required columns are present (P.no, Name, Status)
             boolean hasPNo = columnMappings.containsKey("P.no");
@@ -110,67 +392,47 @@ public class FlexibleExcelReader {
             System.out.println("Missing required columns. P.no: " + hasPNo + ", Name: " + hasName + ", Status: " + hasStatus);
             
             if (!hasPNo || !hasName || !hasStatus) {
-                throw new IOException("Missing required columns. Need identifiers for Student ID, Name, and Status");
-            }
-            
-            // Continue with reading the data...
-            List<Map<String, String>> rawData = new ArrayList<>();
-            List<Student> students = new ArrayList<>();
-            
-            while (rowIterator.hasNext()) {
-                Row row = rowIterator.next();
-                Map<String, String> rowData = new HashMap<>();
-                Student student = new Student();
-                
-                // Store all columns by their original header names
-                for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-                    Cell cell = row.getCell(i);
-                    String headerName = getCellValueAsString(headerRow.getCell(i));
-                    if (headerName != null) {
-                        String cellValue = getCellValueAsString(cell);
-                        rowData.put(headerName, cellValue);
-                        
-                        // Set Student object properties based on column mappings
-                        for (Map.Entry<String, Integer> mappingEntry : columnMappings.entrySet()) {
-                            if (mappingEntry.getValue() == i) { // If this column index matches the mapping
-                                String mappedName = mappingEntry.getKey();
-                                switch (mappedName) {
-                                    case "P.no":
-                                        student.setPNo(cellValue);
-                                        break;
-                                    case "Name":
-                                        student.setName(cellValue);
-                                        break;
-                                    case "Status":
-                                        student.setStatus(normalizeStatus(cellValue));
-                                        break;
-                                    case "Email":
-                                        student.setEmail(cellValue);
-                                        break;
-                                }
-                            }
-                        }
-                    }
+                if (skipInvalidSheet) {
+                    missingRequiredColumns = true;
+                    return;
                 }
-                
-                // Validate required fields
-                if (student.getPNo() != null && !student.getPNo().trim().isEmpty() &&
-                    student.getName() != null && !student.getName().trim().isEmpty() &&
-                    student.getStatus() != null && !student.getStatus().trim().isEmpty()) {
-                    students.add(student);
-                }
-                
-                rawData.add(rowData);
-            }
-            
-            return new FlexibleAttendanceData(originalHeaders, columnMappings, rawData, students);
-        } finally {
-            if (workbook != null) {
-                workbook.close();
+                throw new IOException("Missing required columns. Need identifiers for Student ID, Name, and Status");
             }
-            if (fis != null) {
-                fis.close();
+        }
+        
+        @Override
+        public void endSheet() {
+            // Nothing to finalize per sheet
+        }
+        
+        String getSheetName() {
+            return sheetName;
+        }
+        
+        List<String> getOriginalHeaders() {
+            return originalHeaders;
+        }
+        
+        Map<String, Integer> getColumnMappings() {
+            return columnMappings;
+        }
+        
+        /**
+         * @return true if a header row with the required columns was found
+         */
+        boolean hasRequiredColumns() {
+            return originalHeaders != null && !missingRequiredColumns;
+        }
+        
+        /**
+         * @return the collected data
+         * @throws IOException if no header row was ever delivered
+         */
+        public FlexibleAttendanceData getResult() throws IOException {
+            if (originalHeaders == null) {
+                throw new IOException("Excel file is empty");
             }
+            return new FlexibleAttendanceData(originalHeaders, columnMappings, rowStore.build(), students);
         }
     }
     
@@ -178,39 +440,23 @@ public class FlexibleExcelReader {
      * Detects column mappings based on header row
      */
     public static Map<String, Integer> detectColumnMappings(Row headerRow) {
-        Map<String, Integer> columnMappings = new HashMap<>();
-        
-        for (int i = 0; i < headerRow.getLastCellNum(); i++) {
-            Cell cell = headerRow.getCell(i);
-            String headerValue = getCellValueAsString(cell);
-            
-            if (headerValue != null) {
-                String normalizedHeader = normalizeHeader(headerValue);
-                
-                // Check against our predefined mappings
-                for (Map.Entry<String, String> mapping : COLUMN_MAPPINGS.entrySet()) {
-                    if (normalizedHeader.contains(mapping.getKey())) {
-                        // Only map if this column type hasn't been mapped yet (first match wins)
-                        if (!columnMappings.containsKey(mapping.getValue())) {
-                            columnMappings.put(mapping.getValue(), i);
-                        }
-                    }
-                }
-            }
-        }
-        
-        return columnMappings;
+        return detectColumnMappings(getOriginalHeaders(headerRow));
+    }
+    
+    /**
+     * Detects column mappings based on the header values of a sheet.
+     * Each column maps to at most one field; see {@link HeaderMatcher} for how competing matches are ranked.
+     * @param headers Header values indexed by column; null for missing cells
+     */
+    public static Map<String, Integer> detectColumnMappings(List<String> headers) {
+        return COLUMN_MATCHER.mapColumns(headers);
     }
     
     /**
      * Normalizes header names for comparison
      */
     public static String normalizeHeader(String header) {
-        if (header == null) return "";
-        return header.toLowerCase()
-                    .replaceAll("[^a-zA-Z0-9]", " ")
-                    .trim()
-                    .replaceAll("\\s+", " ");
+        return HeaderMatcher.normalize(header);
     }
     
     /**
@@ -232,17 +478,10 @@ public class FlexibleExcelReader {
     public static String normalizeStatus(String status) {
         if (status == null) return "unknown";
         
-        String lowerStatus = status.toLowerCase().trim();
-        
-        // Positive indicators
-        if (lowerStatus.equals("present") || lowerStatus.equals("p") || lowerStatus.equals("yes") || 
-            lowerStatus.contains("present") || lowerStatus.contains("here") || lowerStatus.contains("active")) {
+        AttendanceStatus attendanceStatus = AttendanceStatus.of(status);
+        if (attendanceStatus.countsAsPresent()) {
             return "present";
-        }
-        // Negative indicators
-        else if (lowerStatus.equals("absent") || lowerStatus.equals("a") || lowerStatus.equals("no") || 
-                 lowerStatus.contains("absent") || lowerStatus.contains("leave") || lowerStatus.contains("off") ||
-                 lowerStatus.contains("sick") || lowerStatus.contains("holiday") || lowerStatus.contains("off")) {
+        } else if (attendanceStatus.countsAsAbsent()) {
             return "absent";
         }
         
@@ -288,29 +527,49 @@ public class FlexibleExcelReader {
      * Validates if the Excel file can be processed with flexible reading
      */
     public boolean validateFlexibleExcelFile(String filePath) throws IOException {
+        return readAndValidateFlexibleExcelFile(filePath).isValid();
+    }
+    
+    /**
+     * Validates and reads an Excel file in a single pass with flexible column detection.
+     * A file is valid when it has the required columns and at least one complete student row.
+     * @param filePath Path to the Excel file
+     * @return ExcelReadResult holding the attendance data when the file is valid, or the validation error otherwise
+     */
+    public ExcelReadResult<FlexibleAttendanceData> readAndValidateFlexibleExcelFile(String filePath) {
         System.out.println("Starting validation for file: " + filePath);
         try {
-            System.out.println("About to read file...");
-            FlexibleAttendanceData data = readFlexibleExcelFile(filePath);
-            System.out.println("File read successfully, checking data...");
-            boolean isValid = data.getStudents() != null && !data.getStudents().isEmpty();
-            System.out.println("Validation result: " + isValid + " (students: " + 
-                (data.getStudents() != null ? data.getStudents().size() : "null") + ")");
-            return isValid;
+            FlexibleAttendanceData data = readFlexibleExcelFileAuto(filePath);
+            int studentCount = data.getStudents() != null ? data.getStudents().size() : 0;
+            System.out.println("Validation result: " + (studentCount > 0) + " (students: " + studentCount + ")");
+            
+            if (studentCount == 0) {
+                return ExcelReadResult.failure("No student records with P.no, Name and Status values were found");
+            }
+            
+            List<String> diagnostics = new ArrayList<>();
+            diagnostics.add("Detected column mappings: " + data.getColumnMappings());
+            int skippedRows = data.getRowStore().getRowCount() - studentCount;
+            if (skippedRows > 0) {
+                diagnostics.add(skippedRows + " row(s) skipped because P.no, Name or Status was empty");
+            }
+            return ExcelReadResult.success(data, diagnostics);
         } catch (Exception e) {
             System.out.println("Validation failed with exception: " + e.getMessage());
             e.printStackTrace();
-            return false;
+            return ExcelReadResult.failure(e.getMessage());
         }
     }
     
     /**
-     * Data class to hold flexible attendance data and metadata
+     * Data class to hold flexible attendance data and metadata.
+     * Raw cell values are kept in a {@link ColumnarRowStore}; {@link #getRawData()}
+     * is a compatibility view that builds row maps on access.
      */
     public static class FlexibleAttendanceData {
         private List<String> originalHeaders;
         private Map<String, Integer> columnMappings;
-        private List<Map<String, String>> rawData;
+        private ColumnarRowStore rowStore;
         private List<Student> students;
         
         public FlexibleAttendanceData() {}
@@ -318,13 +577,18 @@ public class FlexibleExcelReader {
         public FlexibleAttendanceData(List<String> originalHeaders, Map<String, Integer> columnMappings, List<Map<String, String>> rawData) {
             this.originalHeaders = originalHeaders;
             this.columnMappings = columnMappings;
-            this.rawData = rawData;
+            setRawData(rawData);
         }
         
         public FlexibleAttendanceData(List<String> originalHeaders, Map<String, Integer> columnMappings, List<Map<String, String>> rawData, List<Student> students) {
+            this(originalHeaders, columnMappings, rawData);
+            this.students = students;
+        }
+        
+        public FlexibleAttendanceData(List<String> originalHeaders, Map<String, Integer> columnMappings, ColumnarRowStore rowStore, List<Student> students) {
             this.originalHeaders = originalHeaders;
             this.columnMappings = columnMappings;
-            this.rawData = rawData;
+            this.rowStore = rowStore;
             this.students = students;
         }
         
@@ -335,10 +599,24 @@ public class FlexibleExcelReader {
         public Map<String, Integer> getColumnMappings() { return columnMappings; }
         public void setColumnMappings(Map<String, Integer> columnMappings) { this.columnMappings = columnMappings; }
         
-        public List<Map<String, String>> getRawData() { return rawData; }
-        public void setRawData(List<Map<String, String>> rawData) { this.rawData = rawData; }
+        public ColumnarRowStore getRowStore() { return rowStore; }
+        public void setRowStore(ColumnarRowStore rowStore) { this.rowStore = rowStore; }
+        
+        /**
+         * @return a read-only view of the rows as maps keyed by original header;
+         *         prefer {@link #getRowStore()} which does not allocate per row
+         */
+        public List<Map<String, String>> getRawData() {
+            return rowStore != null ? rowStore.asMapList() : null;
+        }
+        
+        public void setRawData(List<Map<String, String>> rawData) {
+            setRowStore(rawData != null && originalHeaders != null
+                ? ColumnarRowStore.fromMaps(originalHeaders, rawData)
+                : null);
+        }
         
         public List<Student> getStudents() { return students; }
         public void setStudents(List<Student> students) { this.students = students; }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,274 @@
+package com.automatedattendance;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+
+/**
+ * HeaderMatcher maps sheet headers to canonical fields (P.no, Name, ...) using
+ * a precompiled Aho–Corasick automaton over the normalized header synonyms.
+ *
+ * A header is normalized and scanned once, finding every synonym it contains
+ * in a single pass regardless of how many synonyms there are. When a header
+ * contains synonyms of several fields, or several columns match the same field,
+ * matches are ranked so the result does not depend on map iteration order:
+ * a synonym equal to the whole header beats one that is a whole word, which
+ * beats one that is only part of a word; then the longer synonym wins; then
+ * the field listed first in the priority order; then the leftmost column.
+ * Each column is mapped to at most one field and each field to one column.
+ *
+ * Matchers are immutable and safe to share between threads.
+ */
+public class HeaderMatcher {
+
+    /** Normalized headers contain only a-z, 0-9 and single spaces */
+    private static final int ALPHABET_SIZE = 37;
+    private static final int SPACE = 36;
+
+    private static final int SCORE_SUBSTRING = 1;
+    private static final int SCORE_WORD = 2;
+    private static final int SCORE_EXACT = 3;
+
+    /** Normalized synonyms, indexed by pattern id */
+    private final String[] patterns;
+    /** Canonical fields, in priority order; a lower index wins ties */
+    private final String[] fields;
+    /** Index into fields of each pattern's field */
+    private final int[] patternFields;
+
+    /** Transition table with failure links folded in: next state = transitions[state][symbol] */
+    private final int[][] transitions;
+    /** Pattern ids ending at each state, including those reached through failure links */
+    private final int[][] outputs;
+
+    /**
+     * Compiles a matcher
+     * @param synonymsToFields Header synonym to field; synonyms are normalized like headers
+     * @param fieldPriority Fields in order of precedence when a header matches several equally well;
+     *                      fields not listed rank after the listed ones, by name
+     */
+    public HeaderMatcher(Map<String, String> synonymsToFields, List<String> fieldPriority) {
+        // Normalize and de-duplicate, sorted so that compilation is deterministic
+        Map<String, String> normalized = new LinkedHashMap<>();
+        List<String> synonyms = new ArrayList<>(synonymsToFields.keySet());
+        synonyms.sort(Comparator.naturalOrder());
+        for (String synonym : synonyms) {
+            String key = normalize(synonym);
+            if (!key.isEmpty()) {
+                normalized.putIfAbsent(key, synonymsToFields.get(synonym));
+            }
+        }
+
+        // Fields in priority order; unlisted fields follow, by name
+        List<String> orderedFields = new ArrayList<>();
+        for (String field : fieldPriority) {
+            if (normalized.containsValue(field) && !orderedFields.contains(field)) {
+                orderedFields.add(field);
+            }
+        }
+        for (String field : new TreeSet<>(normalized.values())) {
+            if (!orderedFields.contains(field)) {
+                orderedFields.add(field);
+            }
+        }
+        fields = orderedFields.toArray(new String[0]);
+
+        patterns = normalized.keySet().toArray(new String[0]);
+        patternFields = new int[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            patternFields[i] = orderedFields.indexOf(normalized.get(patterns[i]));
+        }
+
+        // Trie
+        List<int[]> gotoTable = new ArrayList<>();
+        List<List<Integer>> stateOutputs = new ArrayList<>();
+        gotoTable.add(newState());
+        stateOutputs.add(new ArrayList<>());
+        for (int id = 0; id < patterns.length; id++) {
+            int state = 0;
+            for (int i = 0; i < patterns[id].length(); i++) {
+                int symbol = symbol(patterns[id].charAt(i));
+                if (gotoTable.get(state)[symbol] < 0) {
+                    gotoTable.get(state)[symbol] = gotoTable.size();
+                    gotoTable.add(newState());
+                    stateOutputs.add(new ArrayList<>());
+                }
+                state = gotoTable.get(state)[symbol];
+            }
+            stateOutputs.get(state).add(id);
+        }
+
+        // Failure links, breadth first, folded into a complete transition table
+        int[][] table = gotoTable.toArray(new int[0][]);
+        int[] failure = new int[table.length];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < ALPHABET_SIZE; symbol++) {
+            int next = table[0][symbol];
+            if (next < 0) {
+                table[0][symbol] = 0;
+            } else {
+                failure[next] = 0;
+                queue.add(next);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            stateOutputs.get(state).addAll(stateOutputs.get(failure[state]));
+            for (int symbol = 0; symbol < ALPHABET_SIZE; symbol++) {
+                int next = table[state][symbol];
+                if (next < 0) {
+                    table[state][symbol] = table[failure[state]][symbol];
+                } else {
+                    failure[next] = table[failure[state]][symbol];
+                    queue.add(next);
+                }
+            }
+        }
+
+        transitions = table;
+        outputs = new int[table.length][];
+        for (int state = 0; state < table.length; state++) {
+            outputs[state] = stateOutputs.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET_SIZE];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= '0' && c <= '9') {
+            return 26 + (c - '0');
+        }
+        return SPACE;
+    }
+
+    /**
+     * Normalizes a header in one pass: lower case, every character other than
+     * a-z and 0-9 becomes a space, runs of spaces collapse and the ends are trimmed
+     * @param header Header text; null yields an empty string
+     */
+    public static String normalize(String header) {
+        if (header == null) {
+            return "";
+        }
+        char[] result = new char[header.length()];
+        int length = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < header.length(); i++) {
+            char c = Character.toLowerCase(header.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (pendingSpace && length > 0) {
+                    result[length++] = ' ';
+                }
+                pendingSpace = false;
+                result[length++] = c;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return new String(result, 0, length);
+    }
+
+    /**
+     * Finds the best field for a single header
+     * @return the field, or null if the header contains no synonym
+     */
+    public String matchField(String header) {
+        long[] bestRanks = new long[fields.length];
+        collectMatches(normalize(header), bestRanks);
+        int bestField = -1;
+        for (int field = 0; field < fields.length; field++) {
+            if (bestRanks[field] > 0 && (bestField < 0 || bestRanks[field] > bestRanks[bestField])) {
+                bestField = field;
+            }
+        }
+        return bestField >= 0 ? fields[bestField] : null;
+    }
+
+    /**
+     * Assigns columns to fields
+     * @param headers Header values indexed by column; null for missing cells
+     * @return field to column index, for every field found
+     */
+    public Map<String, Integer> mapColumns(List<String> headers) {
+        List<long[]> candidates = new ArrayList<>();
+        long[] bestRanks = new long[fields.length];
+        for (int column = 0; column < headers.size(); column++) {
+            String header = headers.get(column);
+            if (header == null) {
+                continue;
+            }
+            Arrays.fill(bestRanks, 0L);
+            collectMatches(normalize(header), bestRanks);
+            // A header may be a candidate for several fields
+            for (int field = 0; field < fields.length; field++) {
+                if (bestRanks[field] > 0) {
+                    candidates.add(new long[] {bestRanks[field], column, field});
+                }
+            }
+        }
+
+        // Strongest candidates first; ties go to the leftmost column
+        candidates.sort((a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(a[1], b[1]));
+
+        Map<String, Integer> columnMappings = new HashMap<>();
+        boolean[] columnTaken = new boolean[headers.size()];
+        for (long[] candidate : candidates) {
+            int column = (int) candidate[1];
+            String field = fields[(int) candidate[2]];
+            if (!columnTaken[column] && !columnMappings.containsKey(field)) {
+                columnMappings.put(field, column);
+                columnTaken[column] = true;
+            }
+        }
+        return columnMappings;
+    }
+
+    /**
+     * Runs the automaton over a normalized header
+     * @param bestRanks Receives, per field, the rank of the best synonym occurrence; 0 if none
+     */
+    private void collectMatches(String text, long[] bestRanks) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state][symbol(text.charAt(i))];
+            for (int pattern : outputs[state]) {
+                int end = i + 1;
+                long rank = rank(pattern, score(text, end - patterns[pattern].length(), end));
+                int field = patternFields[pattern];
+                if (rank > bestRanks[field]) {
+                    bestRanks[field] = rank;
+                }
+            }
+        }
+    }
+
+    /**
+     * Combines match quality, synonym length and field priority into one comparable, positive value
+     */
+    private long rank(int pattern, int score) {
+        return ((long) score << 40) | ((long) patterns[pattern].length() << 20) | (0xFFFFF - patternFields[pattern]);
+    }
+
+    private static int score(String text, int start, int end) {
+        if (start == 0 && end == text.length()) {
+            return SCORE_EXACT;
+        }
+        boolean wordStart = start == 0 || text.charAt(start - 1) == ' ';
+        boolean wordEnd = end == text.length() || text.charAt(end) == ' ';
+        return wordStart && wordEnd ? SCORE_WORD : SCORE_SUBSTRING;
+    }
+}
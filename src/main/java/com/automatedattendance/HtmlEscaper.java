@@ -0,0 +1,83 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+
+/**
+ * HtmlEscaper is an {@link Appendable} that writes text to another Appendable
+ * with the HTML special characters {@code & < > " '} replaced by entities.
+ *
+ * Text is escaped in a single scan: runs of characters that need no escaping
+ * are handed to the target as one {@code append(text, start, end)} call and
+ * only the special characters are replaced, so no intermediate strings are
+ * created. Report templates write their escaped slots through one.
+ */
+public final class HtmlEscaper implements Appendable {
+
+    /** Entity per ASCII character below '@', null for characters written as they are */
+    private static final String[] ENTITIES = new String['@'];
+
+    static {
+        ENTITIES['&'] = "&amp;";
+        ENTITIES['<'] = "&lt;";
+        ENTITIES['>'] = "&gt;";
+        ENTITIES['"'] = "&quot;";
+        ENTITIES['\''] = "&#x27;";
+    }
+
+    private final Appendable out;
+
+    /**
+     * @param out Target that receives the escaped text
+     */
+    public HtmlEscaper(Appendable out) {
+        this.out = out;
+    }
+
+    @Override
+    public HtmlEscaper append(CharSequence text) throws IOException {
+        if (text != null) {
+            escape(text, 0, text.length(), out);
+        }
+        return this;
+    }
+
+    @Override
+    public HtmlEscaper append(CharSequence text, int start, int end) throws IOException {
+        if (text != null) {
+            escape(text, start, end, out);
+        }
+        return this;
+    }
+
+    @Override
+    public HtmlEscaper append(char c) throws IOException {
+        String entity = entityFor(c);
+        if (entity != null) {
+            out.append(entity);
+        } else {
+            out.append(c);
+        }
+        return this;
+    }
+
+    private static void escape(CharSequence text, int start, int end, Appendable out) throws IOException {
+        int runStart = start;
+        for (int i = start; i < end; i++) {
+            String entity = entityFor(text.charAt(i));
+            if (entity != null) {
+                if (runStart < i) {
+                    out.append(text, runStart, i);
+                }
+                out.append(entity);
+                runStart = i + 1;
+            }
+        }
+        if (runStart < end) {
+            out.append(text, runStart, end);
+        }
+    }
+
+    private static String entityFor(char c) {
+        return c < ENTITIES.length ? ENTITIES[c] : null;
+    }
+}
@@ -18,12 +18,18 @@ import org.slf4j.LoggerFactory;
 /**
  * LoggerUtil class for logging system activities including timestamps, 
  * summary, and email status for auditing purposes.
+ * Processed files, attendance summaries, email status and errors are also
+ * recorded as typed entries in the indexed {@link AuditLog}.
  */
 public class LoggerUtil {
     private static final Logger logger = LoggerFactory.getLogger(LoggerUtil.class);
     private static final String LOG_FILE_PATH = "attendance_system.log";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     
+    // Background writer for the log file; null until first use or when async logging is disabled
+    private static volatile AsyncLogWriter asyncWriter;
+    private static volatile boolean asyncWriterInitialized;
+    
     /**
      * Logs an informational message
      * @param message The message to log
@@ -43,7 +49,8 @@ public class LoggerUtil {
         String formattedMessage = String.format("[%s] ERROR: %s", 
             LocalDateTime.now().format(DATE_FORMATTER), message);
         logger.error(message);
-        writeToFile(formattedMessage);
+        writeToFile(formattedMessage, true);
+        AuditLog.record(AuditLog.Type.ERROR, false, message, null);
     }
     
     /**
@@ -55,13 +62,14 @@ public class LoggerUtil {
         String formattedMessage = String.format("[%s] ERROR: %s - %s", 
             LocalDateTime.now().format(DATE_FORMATTER), message, throwable.getMessage());
         logger.error(message, throwable);
-        writeToFile(formattedMessage);
+        writeToFile(formattedMessage, true);
         
         // Also log the stack trace
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw);
         throwable.printStackTrace(pw);
-        writeToFile(sw.toString());
+        writeToFile(sw.toString(), true);
+        AuditLog.record(AuditLog.Type.ERROR, false, message, throwable.toString());
     }
     
     /**
@@ -76,14 +84,22 @@ public class LoggerUtil {
     }
     
     /**
-     * Logs attendance summary information
-     * @param summary The attendance summary text to log
+     * Logs attendance summary statistics
+     * @param filePath Path of the file the summary was calculated from
+     * @param summary The attendance summary to log
      */
-    public static void logAttendanceSummary(String summary) {
-        String formattedMessage = String.format("[%s] ATTENDANCE_SUMMARY:\n%s", 
-            LocalDateTime.now().format(DATE_FORMATTER), summary);
+    public static void logAttendanceSummary(String filePath, AttendanceProcessor.AttendanceSummary summary) {
+        String formattedMessage = String.format("[%s] ATTENDANCE_SUMMARY: File='%s', Total=%d, Present=%d, Absent=%d, Attendance=%.2f%%", 
+            LocalDateTime.now().format(DATE_FORMATTER), 
+            filePath, 
+            summary.getTotalStudents(), 
+            summary.getPresentCount(), 
+            summary.getAbsentCount(), 
+            summary.getAttendancePercentage());
         logger.info("Attendance summary logged");
         writeToFile(formattedMessage);
+        AuditLog.record(AuditLog.Type.ATTENDANCE_SUMMARY, true, filePath, summary.getTotalStudents(),
+            summary.getPresentCount(), summary.getAbsentCount(), summary.getAttendancePercentage());
     }
     
     /**
@@ -109,7 +125,8 @@ public class LoggerUtil {
         } else {
             logger.error("Email failed: " + subject);
         }
-        writeToFile(formattedMessage);
+        writeToFile(formattedMessage, !isSuccess);
+        AuditLog.record(AuditLog.Type.EMAIL_STATUS, isSuccess, subject, recipientList, additionalInfo);
     }
     
     /**
@@ -128,6 +145,7 @@ public class LoggerUtil {
         
         logger.info("Excel file processed: " + filePath);
         writeToFile(formattedMessage);
+        AuditLog.record(AuditLog.Type.FILE_PROCESSED, true, filePath, recordCount, additionalInfo);
     }
     
     /**
@@ -135,6 +153,23 @@ public class LoggerUtil {
      * @param message The message to write to the file
      */
     private static void writeToFile(String message) {
+        writeToFile(message, false);
+    }
+    
+    /**
+     * Writes a message to the log file, through the asynchronous writer when it is enabled
+     * @param message The message to write to the file
+     * @param error Whether the message reports an error, which may trigger an immediate flush
+     */
+    private static void writeToFile(String message, boolean error) {
+        AsyncLogWriter writer = getAsyncWriter();
+        if (writer != null && writer.append(message, error)) {
+            return;
+        }
+        writeToFileSynchronously(message);
+    }
+    
+    private static void writeToFileSynchronously(String message) {
         try (FileWriter writer = new FileWriter(LOG_FILE_PATH, true)) {
             writer.write(message + System.lineSeparator());
             writer.flush();
@@ -146,8 +181,12 @@ public class LoggerUtil {
     /**
      * Reads the log file and returns its content
      * @return List of log entries as strings
+     * @deprecated Reads the whole file; query the {@link AuditLog} for processed files, summaries,
+     *             email status and errors instead
      */
+    @Deprecated
     public static List<String> readLog() {
+        flush();
         List<String> logEntries = new ArrayList<>();
         File logFile = new File(LOG_FILE_PATH);
         
@@ -171,6 +210,17 @@ public class LoggerUtil {
      * Clears the log file
      */
     public static void clearLog() {
+        AsyncLogWriter asyncLogWriter = getAsyncWriter();
+        if (asyncLogWriter != null) {
+            try {
+                asyncLogWriter.truncate();
+                logger.info("Log file cleared");
+            } catch (IOException e) {
+                System.err.println("Failed to clear log file: " + e.getMessage());
+            }
+            return;
+        }
+        
         try (FileWriter writer = new FileWriter(LOG_FILE_PATH, false)) {
             // Writing an empty string effectively clears the file
             writer.write("");
@@ -180,4 +230,53 @@ public class LoggerUtil {
             System.err.println("Failed to clear log file: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Blocks until all log lines written so far have reached the log file
+     */
+    public static void flush() {
+        AsyncLogWriter writer = getAsyncWriter();
+        if (writer != null) {
+            writer.flush(5000);
+        }
+    }
+    
+    /**
+     * Drains pending log lines and closes the asynchronous writer.
+     * Later log lines are written synchronously.
+     */
+    public static synchronized void shutdown() {
+        if (asyncWriter != null) {
+            asyncWriter.close();
+            asyncWriter = null;
+        }
+    }
+    
+    /**
+     * Starts the asynchronous writer on first use if it is enabled in the configuration
+     */
+    private static AsyncLogWriter getAsyncWriter() {
+        if (asyncWriterInitialized) {
+            return asyncWriter;
+        }
+        synchronized (LoggerUtil.class) {
+            if (asyncWriterInitialized) {
+                return asyncWriter;
+            }
+            ConfigManager configManager = ConfigManager.getInstance();
+            if (configManager.isAsyncLogEnabled()) {
+                try {
+                    asyncWriter = new AsyncLogWriter(LOG_FILE_PATH,
+                        configManager.getAsyncLogBufferSize(),
+                        configManager.getAsyncLogFlushIntervalMillis(),
+                        configManager.isAsyncLogFlushOnError());
+                    Runtime.getRuntime().addShutdownHook(new Thread(LoggerUtil::shutdown, "async-log-shutdown"));
+                } catch (IOException e) {
+                    System.err.println("Failed to open log file for asynchronous writing: " + e.getMessage());
+                }
+            }
+            asyncWriterInitialized = true;
+            return asyncWriter;
+        }
+    }
+}
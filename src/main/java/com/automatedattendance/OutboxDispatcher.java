@@ -0,0 +1,240 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.mail.MessagingException;
+
+/**
+ * OutboxDispatcher drains the {@link EmailOutbox} in the background.
+ * A poller picks up entries that are due and hands them to a pool of worker
+ * threads; failed deliveries are rescheduled with exponential backoff and
+ * moved to the dead-letter queue after the maximum number of attempts.
+ */
+public class OutboxDispatcher {
+
+    private static OutboxDispatcher sharedInstance;
+
+    private final EmailOutbox outbox;
+    private final EmailSender emailSender;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final ScheduledExecutorService poller;
+    private final ExecutorService workers;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates and starts a dispatcher
+     * @param outbox The outbox to drain
+     * @param emailSender Sender used to deliver the queued emails
+     * @param workerThreads Number of concurrent deliveries
+     * @param maxAttempts Attempts before an entry is dead-lettered
+     * @param initialBackoffMillis Delay before the first retry; doubled after every further failure
+     * @param maxBackoffMillis Upper bound for the retry delay
+     * @param pollIntervalMillis How often the outbox is scanned for due entries
+     */
+    public OutboxDispatcher(EmailOutbox outbox, EmailSender emailSender, int workerThreads, int maxAttempts,
+                            long initialBackoffMillis, long maxBackoffMillis, long pollIntervalMillis) {
+        this.outbox = outbox;
+        this.emailSender = emailSender;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        this.poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, workerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "outbox-worker-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        poller.scheduleWithFixedDelay(this::dispatchDueEntries, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the dispatcher for the outbox configured in the ConfigManager, starting it on first use
+     * @throws IOException if the outbox directory cannot be opened
+     */
+    public static synchronized OutboxDispatcher getShared() throws IOException {
+        if (sharedInstance == null) {
+            ConfigManager configManager = ConfigManager.getInstance();
+            sharedInstance = new OutboxDispatcher(
+                new EmailOutbox(configManager.getOutboxDirectory()),
+                new EmailSender(),
+                configManager.getOutboxWorkerThreads(),
+                configManager.getOutboxMaxAttempts(),
+                configManager.getOutboxInitialBackoffMillis(),
+                configManager.getOutboxMaxBackoffMillis(),
+                configManager.getOutboxPollIntervalMillis());
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Starts the shared dispatcher if the outbox is enabled, so emails left pending by an
+     * earlier run are delivered without waiting for a new email to be queued
+     */
+    public static void startSharedIfEnabled() {
+        if (!ConfigManager.getInstance().isOutboxEnabled()) {
+            return;
+        }
+        try {
+            getShared();
+        } catch (IOException e) {
+            LoggerUtil.logError("Failed to open email outbox", e);
+        }
+    }
+
+    /**
+     * Stops the shared dispatcher if it was started, waiting for due entries to be attempted
+     * @param timeoutMillis Maximum time to wait for in-flight deliveries
+     */
+    public static synchronized void shutdownShared(long timeoutMillis) {
+        if (sharedInstance != null) {
+            sharedInstance.shutdown(timeoutMillis);
+            sharedInstance = null;
+        }
+    }
+
+    public EmailOutbox getOutbox() {
+        return outbox;
+    }
+
+    /**
+     * Triggers an immediate scan of the outbox, e.g. right after an email was queued
+     */
+    public void wakeUp() {
+        if (!poller.isShutdown()) {
+            poller.execute(this::dispatchDueEntries);
+        }
+    }
+
+    /**
+     * Submits every due, not yet in-flight entry to the worker pool
+     */
+    private void dispatchDueEntries() {
+        List<EmailOutbox.OutboxEntry> pending;
+        try {
+            pending = outbox.listPending();
+        } catch (IOException e) {
+            LoggerUtil.logError("Failed to scan email outbox", e);
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (EmailOutbox.OutboxEntry entry : pending) {
+            if (entry.getNextAttemptAt() <= now && inFlight.add(entry.getId())) {
+                try {
+                    workers.execute(() -> deliver(entry));
+                } catch (RuntimeException e) {
+                    // Worker pool is shutting down; the entry stays pending on disk
+                    inFlight.remove(entry.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Delivers a claimed entry. The listed copy may be stale: a worker that finished after
+     * the entry was listed may have delivered it, or rescheduled it with a later attempt time
+     * and a higher attempt count, so the entry is read again and skipped if it is not due.
+     * @param listed The entry as listed by the poller
+     */
+    private void deliver(EmailOutbox.OutboxEntry listed) {
+        try {
+            EmailOutbox.OutboxEntry entry = outbox.reload(listed.getId());
+            if (entry != null && entry.getNextAttemptAt() <= System.currentTimeMillis()) {
+                attempt(entry);
+            }
+        } catch (IOException e) {
+            LoggerUtil.logError("Failed to read outbox entry " + listed.getId(), e);
+        } finally {
+            inFlight.remove(listed.getId());
+        }
+    }
+
+    private void attempt(EmailOutbox.OutboxEntry entry) {
+        try {
+            emailSender.deliverHtmlToRecipients(entry.getSubject(), entry.getBody(), entry.getRecipients());
+            outbox.complete(entry);
+            LoggerUtil.logEmailStatus(entry.getSubject(), entry.getRecipients(), true,
+                "Delivered from outbox after " + (entry.getAttempts() + 1) + " attempt(s)");
+        } catch (MessagingException | RuntimeException e) {
+            handleFailure(entry, e);
+        } catch (IOException e) {
+            LoggerUtil.logError("Delivered outbox entry " + entry.getId() + " could not be removed", e);
+        }
+    }
+
+    private void handleFailure(EmailOutbox.OutboxEntry entry, Exception failure) {
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setLastError(failure.getMessage());
+
+        try {
+            if (entry.getAttempts() >= maxAttempts) {
+                outbox.moveToDeadLetter(entry);
+                LoggerUtil.logEmailStatus(entry.getSubject(), entry.getRecipients(), false,
+                    "Moved to dead-letter queue after " + entry.getAttempts() + " attempts: " + failure.getMessage());
+            } else {
+                long delay = computeBackoff(entry.getAttempts());
+                entry.setNextAttemptAt(System.currentTimeMillis() + delay);
+                outbox.update(entry);
+                LoggerUtil.logWarning("Outbox delivery of " + entry.getId() + " failed (attempt "
+                    + entry.getAttempts() + "), retrying in " + delay + " ms: " + failure.getMessage());
+            }
+        } catch (IOException e) {
+            LoggerUtil.logError("Failed to update outbox entry " + entry.getId(), e);
+        }
+    }
+
+    /**
+     * Exponential backoff with up to 20% jitter, so retries from several workers do not align
+     */
+    long computeBackoff(int attempts) {
+        long delay = initialBackoffMillis;
+        for (int i = 1; i < attempts && delay < maxBackoffMillis; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxBackoffMillis);
+        long jitter = delay / 5 > 0 ? ThreadLocalRandom.current().nextLong(delay / 5) : 0;
+        return delay + jitter;
+    }
+
+    /**
+     * Attempts every entry that is due one last time, then stops the poller and workers.
+     * Entries that are not delivered stay in the outbox for the next start.
+     * @param timeoutMillis Maximum time to wait for in-flight deliveries
+     */
+    public void shutdown(long timeoutMillis) {
+        try {
+            poller.submit(this::dispatchDueEntries).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            // Proceed with shutdown; undelivered entries remain on disk
+        }
+        poller.shutdownNow();
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,554 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * PipelineMetrics collects timings and counters of the processing pipeline so
+ * a slow run can be attributed to reading, aggregation, rendering or SMTP.
+ *
+ * Timers are aggregated into lock-free log-scale histograms (4 buckets per
+ * power of two, so percentiles are within 25% of the true value) and counters
+ * into {@link LongAdder}s. Each file processed is a {@link Run}: its stage
+ * durations, counters and heap usage are appended as one JSON line to the run
+ * log ({@code metrics.runLog}). The aggregates are exposed over JMX as
+ * {@code com.automatedattendance:type=PipelineMetrics} and, if
+ * {@code metrics.httpPort} is set, in the Prometheus text format on
+ * {@code http://127.0.0.1:<port>/metrics}.
+ *
+ * Timer names used by the pipeline: {@code stage.read}, {@code stage.validate},
+ * {@code stage.history}, {@code stage.analytics}, {@code stage.aggregate},
+ * {@code stage.render}, {@code stage.send},
+ * {@code smtp.borrowWait}, {@code smtp.connect} (TCP, STARTTLS and AUTH) and
+ * {@code smtp.send}.
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+
+    private static final String OBJECT_NAME = "com.automatedattendance:type=PipelineMetrics";
+
+    private static PipelineMetrics sharedInstance;
+
+    private final boolean enabled;
+    private final Path runLog;
+    private final Map<String, Histogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final LongAdder runCount = new LongAdder();
+    private final LongAdder failedRunCount = new LongAdder();
+    private final Object runLogLock = new Object();
+    private HttpServer httpServer;
+    private ObjectName registeredName;
+
+    /**
+     * @param enabled Whether anything is recorded
+     * @param runLog JSON-lines file the run records are appended to, or null for none
+     */
+    public PipelineMetrics(boolean enabled, String runLog) {
+        this.enabled = enabled;
+        this.runLog = runLog != null && !runLog.trim().isEmpty() ? Paths.get(runLog) : null;
+    }
+
+    /**
+     * Returns the metrics configured in the ConfigManager, registering the MBean and
+     * starting the HTTP endpoint on first use
+     */
+    public static synchronized PipelineMetrics getShared() {
+        if (sharedInstance == null) {
+            ConfigManager configManager = ConfigManager.getInstance();
+            PipelineMetrics metrics = new PipelineMetrics(configManager.isMetricsEnabled(), configManager.getMetricsRunLog());
+            if (metrics.enabled) {
+                metrics.registerMBean();
+                if (configManager.getMetricsHttpPort() > 0) {
+                    metrics.startHttpServer(configManager.getMetricsHttpPort());
+                }
+            }
+            sharedInstance = metrics;
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Stops the HTTP endpoint and unregisters the MBean of the shared metrics, e.g. on application shutdown
+     */
+    public static synchronized void closeShared() {
+        if (sharedInstance != null) {
+            sharedInstance.close();
+            sharedInstance = null;
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (JMException e) {
+            LoggerUtil.logWarning("Failed to register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Serves {@link #getPrometheusText()} on the loopback interface
+     * @param port TCP port to listen on
+     */
+    private void startHttpServer(int port) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = getPrometheusText().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            httpServer = server;
+            LoggerUtil.logInfo("Metrics available on http://127.0.0.1:" + port + "/metrics");
+        } catch (IOException e) {
+            LoggerUtil.logWarning("Failed to start metrics endpoint on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    private void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (registeredName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            } catch (JMException e) {
+                // Already unregistered
+            }
+            registeredName = null;
+        }
+    }
+
+    /**
+     * Starts recording one run of the pipeline
+     * @param source File being processed
+     */
+    public Run startRun(String source) {
+        return new Run(source);
+    }
+
+    /**
+     * Adds a sample to a timer
+     * @param timer Timer name
+     * @param nanos Duration in nanoseconds
+     */
+    public void recordTime(String timer, long nanos) {
+        if (enabled) {
+            timers.computeIfAbsent(timer, name -> new Histogram()).record(nanos);
+        }
+    }
+
+    /**
+     * Adds to a counter
+     * @param counter Counter name
+     * @param delta Amount to add
+     */
+    public void increment(String counter, long delta) {
+        if (enabled) {
+            counters.computeIfAbsent(counter, name -> new LongAdder()).add(delta);
+        }
+    }
+
+    /**
+     * @return the histogram of a timer, or null if it has no samples
+     */
+    public Histogram getTimer(String timer) {
+        return timers.get(timer);
+    }
+
+    @Override
+    public long getRunCount() {
+        return runCount.sum();
+    }
+
+    @Override
+    public long getFailedRunCount() {
+        return failedRunCount.sum();
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().sum());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Long> getTimerCounts() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : timers.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getCount());
+        }
+        return values;
+    }
+
+    @Override
+    public Map<String, Double> getTimerMeanMillis() {
+        return timerMillis(histogram -> histogram.getMean());
+    }
+
+    @Override
+    public Map<String, Double> getTimerP50Millis() {
+        return timerMillis(histogram -> histogram.getPercentile(0.50));
+    }
+
+    @Override
+    public Map<String, Double> getTimerP99Millis() {
+        return timerMillis(histogram -> histogram.getPercentile(0.99));
+    }
+
+    @Override
+    public Map<String, Double> getTimerMaxMillis() {
+        return timerMillis(histogram -> histogram.getMax());
+    }
+
+    private Map<String, Double> timerMillis(ToDoubleFunction<Histogram> nanos) {
+        Map<String, Double> values = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : timers.entrySet()) {
+            values.put(entry.getKey(), nanos.applyAsDouble(entry.getValue()) / 1_000_000.0);
+        }
+        return values;
+    }
+
+    @Override
+    public long getHeapHighWaterBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    @Override
+    public String getPrometheusText() {
+        StringBuilder text = new StringBuilder(2048);
+        text.append("# TYPE attendance_runs_total counter\n");
+        text.append("attendance_runs_total ").append(getRunCount()).append('\n');
+        text.append("# TYPE attendance_runs_failed_total counter\n");
+        text.append("attendance_runs_failed_total ").append(getFailedRunCount()).append('\n');
+        text.append("# TYPE attendance_heap_high_water_bytes gauge\n");
+        text.append("attendance_heap_high_water_bytes ").append(getHeapHighWaterBytes()).append('\n');
+
+        text.append("# TYPE attendance_counter_total counter\n");
+        for (Map.Entry<String, Long> entry : getCounters().entrySet()) {
+            text.append("attendance_counter_total{name=\"").append(entry.getKey()).append("\"} ")
+                .append(entry.getValue()).append('\n');
+        }
+
+        text.append("# TYPE attendance_timer_seconds summary\n");
+        for (Map.Entry<String, Histogram> entry : new TreeMap<>(timers).entrySet()) {
+            String label = "name=\"" + entry.getKey() + "\"";
+            Histogram histogram = entry.getValue();
+            for (double quantile : new double[] {0.5, 0.9, 0.99}) {
+                text.append("attendance_timer_seconds{").append(label).append(",quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(histogram.getPercentile(quantile))).append('\n');
+            }
+            text.append("attendance_timer_seconds_sum{").append(label).append("} ").append(seconds(histogram.getSum())).append('\n');
+            text.append("attendance_timer_seconds_count{").append(label).append("} ").append(histogram.getCount()).append('\n');
+            text.append("attendance_timer_seconds_max{").append(label).append("} ").append(seconds(histogram.getMax())).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String seconds(double nanos) {
+        return String.format(Locale.ROOT, "%.6f", nanos / 1_000_000_000.0);
+    }
+
+    @Override
+    public void reset() {
+        timers.clear();
+        counters.clear();
+        runCount.reset();
+        failedRunCount.reset();
+    }
+
+    private void appendRunRecord(String json) {
+        if (runLog == null) {
+            return;
+        }
+        synchronized (runLogLock) {
+            try {
+                Path parent = runLog.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                Files.write(runLog, (json + "\n").getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                LoggerUtil.logWarning("Failed to write run metrics to " + runLog + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * Timings and counters of one processed file. Stage durations are also added to the
+     * {@code stage.<name>} timers; {@link #finish(boolean)} writes the run record.
+     */
+    public final class Run {
+        private final String source;
+        private final Instant started = Instant.now();
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+        private final Map<String, Long> runCounters = new LinkedHashMap<>();
+        private long heapPeakBytes;
+        private boolean finished;
+
+        private Run(String source) {
+            this.source = source;
+            sampleHeap();
+        }
+
+        /**
+         * Runs a stage and adds its duration to the run, also when it fails
+         * @param name Stage name, e.g. "read"
+         * @param stage The work of the stage
+         * @return the stage's result
+         */
+        public <T> T time(String name, Callable<T> stage) throws Exception {
+            long stageStart = System.nanoTime();
+            try {
+                return stage.call();
+            } finally {
+                endStage(name, System.nanoTime() - stageStart);
+            }
+        }
+
+        /**
+         * Runs a stage without a result and adds its duration to the run, also when it fails
+         * @param name Stage name, e.g. "history"
+         * @param stage The work of the stage
+         */
+        public void time(String name, StageAction stage) throws Exception {
+            long stageStart = System.nanoTime();
+            try {
+                stage.run();
+            } finally {
+                endStage(name, System.nanoTime() - stageStart);
+            }
+        }
+
+        /**
+         * Adds to a counter of this run and to the global counter of the same name
+         */
+        public synchronized void count(String name, long delta) {
+            runCounters.merge(name, delta, Long::sum);
+            increment(name, delta);
+        }
+
+        private synchronized void endStage(String name, long nanos) {
+            stageNanos.merge(name, nanos, Long::sum);
+            recordTime("stage." + name, nanos);
+            sampleHeap();
+        }
+
+        /**
+         * Heap in use, sampled at stage boundaries
+         */
+        private synchronized void sampleHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            heapPeakBytes = Math.max(heapPeakBytes, runtime.totalMemory() - runtime.freeMemory());
+        }
+
+        /**
+         * Ends the run and writes its record to the run log
+         * @param success Whether the run completed successfully
+         */
+        public synchronized void finish(boolean success) {
+            if (finished || !enabled) {
+                return;
+            }
+            finished = true;
+            long totalNanos = System.nanoTime() - startNanos;
+            recordTime("run.total", totalNanos);
+            runCount.increment();
+            if (!success) {
+                failedRunCount.increment();
+            }
+
+            StringBuilder json = new StringBuilder(256);
+            json.append("{\"started\":");
+            appendJsonString(json, started.toString());
+            json.append(",\"source\":");
+            appendJsonString(json, source);
+            json.append(",\"success\":").append(success);
+            json.append(",\"totalMs\":").append(totalNanos / 1_000_000);
+            json.append(",\"stagesMs\":{");
+            String separator = "";
+            for (Map.Entry<String, Long> entry : stageNanos.entrySet()) {
+                json.append(separator);
+                appendJsonString(json, entry.getKey());
+                json.append(':').append(entry.getValue() / 1_000_000);
+                separator = ",";
+            }
+            json.append("},\"counters\":{");
+            separator = "";
+            for (Map.Entry<String, Long> entry : runCounters.entrySet()) {
+                json.append(separator);
+                appendJsonString(json, entry.getKey());
+                json.append(':').append(entry.getValue());
+                separator = ",";
+            }
+            json.append("},\"heapPeakBytes\":").append(heapPeakBytes);
+            json.append(",\"heapHighWaterBytes\":").append(getHeapHighWaterBytes());
+            json.append('}');
+
+            appendRunRecord(json.toString());
+            LoggerUtil.logInfo("Run metrics for " + source + ": total " + totalNanos / 1_000_000 + " ms, stages (ms) "
+                + stageMillis() + ", counters " + runCounters);
+        }
+
+        private Map<String, Long> stageMillis() {
+            Map<String, Long> millis = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> entry : stageNanos.entrySet()) {
+                millis.put(entry.getKey(), entry.getValue() / 1_000_000);
+            }
+            return millis;
+        }
+    }
+
+    /**
+     * Work of a stage that has no result, see {@link Run#time(String, StageAction)}
+     */
+    @FunctionalInterface
+    public interface StageAction {
+        void run() throws Exception;
+    }
+
+    /**
+     * Lock-free histogram of non-negative values with logarithmic buckets:
+     * values below 4 have a bucket each, larger ones 4 buckets per power of two
+     */
+    public static final class Histogram {
+        private static final int BUCKETS = 4 * 62 + 4;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long value) {
+            long sample = Math.max(0, value);
+            buckets.incrementAndGet(bucketFor(sample));
+            count.increment();
+            sum.add(sample);
+            max.accumulateAndGet(sample, Math::max);
+        }
+
+        static int bucketFor(long value) {
+            if (value < 4) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) ((value >>> (exponent - 2)) & 3);
+            return (exponent - 1) * 4 + subBucket;
+        }
+
+        /**
+         * @return the largest value that falls into a bucket
+         */
+        static long bucketUpperBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int exponent = bucket / 4 + 1;
+            long lower = (4L + bucket % 4) << (exponent - 2);
+            return lower + (1L << (exponent - 2)) - 1;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        public double getMean() {
+            long samples = getCount();
+            return samples > 0 ? (double) getSum() / samples : 0.0;
+        }
+
+        /**
+         * @param quantile Quantile between 0 and 1, e.g. 0.99
+         * @return the upper bound of the bucket holding the quantile, capped at the maximum; 0 if empty
+         */
+        public long getPercentile(double quantile) {
+            long samples = getCount();
+            if (samples == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(quantile * samples));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += buckets.get(bucket);
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(bucket), getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.automatedattendance;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link PipelineMetrics}, registered as
+ * {@code com.automatedattendance:type=PipelineMetrics}. Durations are in milliseconds.
+ */
+public interface PipelineMetricsMXBean {
+
+    long getRunCount();
+
+    long getFailedRunCount();
+
+    /**
+     * @return the value of every counter, e.g. rows read and report bytes
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * @return the number of samples of every timer
+     */
+    Map<String, Long> getTimerCounts();
+
+    Map<String, Double> getTimerMeanMillis();
+
+    Map<String, Double> getTimerP50Millis();
+
+    Map<String, Double> getTimerP99Millis();
+
+    Map<String, Double> getTimerMaxMillis();
+
+    /**
+     * @return the highest heap usage seen by the JVM, summed over the heap memory pools
+     */
+    long getHeapHighWaterBytes();
+
+    /**
+     * @return the metrics in the Prometheus text format, as served over HTTP
+     */
+    String getPrometheusText();
+
+    /**
+     * Clears all counters and timers
+     */
+    void reset();
+}
@@ -0,0 +1,177 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.mail.MessagingException;
+
+/**
+ * ReportFanOut sends personalized copies of the flexible report, e.g. one per
+ * shop manager listing only the absentees of that manager's shops.
+ *
+ * Recipients are mapped to shops in a properties file ({@code fanout.mappingFile})
+ * with one line per recipient; {@value #ALL_SHOPS} stands for all shops:
+ * <pre>
+ *   manager.a@example.com = Body Shop, Paint Shop
+ *   hr@example.com = *
+ * </pre>
+ *
+ * The report is prepared once and every distinct set of shops is rendered
+ * once from it, so recipients with the same shops share one body and the
+ * statistics, shop table and template markup are never recomputed. Each
+ * recipient gets a message of their own; messages are sent concurrently
+ * ({@code fanout.sendConcurrency}) over the pooled SMTP connections, or queued
+ * in the outbox when it is enabled.
+ */
+public class ReportFanOut {
+
+    /** Mapping value that stands for all shops */
+    public static final String ALL_SHOPS = "*";
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private final FlexibleEmailGenerator generator;
+    private final EmailSender emailSender;
+    private final int sendConcurrency;
+
+    /**
+     * @param generator Generator that prepared the report
+     * @param emailSender Sender to deliver (or queue) the messages with
+     * @param sendConcurrency Maximum number of messages sent at the same time
+     */
+    public ReportFanOut(FlexibleEmailGenerator generator, EmailSender emailSender, int sendConcurrency) {
+        this.generator = generator;
+        this.emailSender = emailSender;
+        this.sendConcurrency = Math.max(1, sendConcurrency);
+    }
+
+    /**
+     * Reads a recipient to shops mapping
+     * @param path Properties file with one "recipient = shop, shop, ..." line per recipient
+     * @return the shops of every recipient, ordered by recipient
+     * @throws IOException if the file cannot be read
+     */
+    public static Map<String, List<String>> loadMapping(String path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        Map<String, List<String>> mapping = new TreeMap<>();
+        for (String recipient : properties.stringPropertyNames()) {
+            List<String> shops = new ArrayList<>();
+            for (String shop : properties.getProperty(recipient).split(",")) {
+                if (!shop.trim().isEmpty()) {
+                    shops.add(shop.trim());
+                }
+            }
+            if (shops.isEmpty()) {
+                LoggerUtil.logWarning("No shops mapped to " + recipient + " in " + path + ", skipping");
+                continue;
+            }
+            mapping.put(recipient.trim(), shops);
+        }
+        return mapping;
+    }
+
+    /**
+     * Renders and sends one report per recipient
+     * @param report Report prepared by the generator
+     * @param subject Subject of the full report; scoped reports get their shops appended
+     * @param mapping Shops of every recipient, as returned by {@link #loadMapping(String)}
+     * @return true if every message was sent (or queued), false otherwise
+     */
+    public boolean send(FlexibleEmailGenerator.PreparedReport report, String subject, Map<String, List<String>> mapping) {
+        boolean useOutbox = ConfigManager.getInstance().isOutboxEnabled();
+        if (!useOutbox && !ConfigManager.getInstance().isConfigValid()) {
+            System.err.println("Email configuration is not valid. Please check Config.java");
+            return false;
+        }
+        if (mapping.isEmpty()) {
+            return true;
+        }
+
+        // Renders stay on this thread so they reuse its template buffer; only sending is concurrent
+        Map<String, String> bodies = new HashMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(sendConcurrency, mapping.size()), runnable -> {
+            Thread thread = new Thread(runnable, "report-fanout-" + THREAD_COUNTER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<Boolean>> results = new ArrayList<>(mapping.size());
+        try {
+            for (Map.Entry<String, List<String>> entry : mapping.entrySet()) {
+                String recipient = entry.getKey();
+                List<String> shops = entry.getValue().contains(ALL_SHOPS) ? null : entry.getValue();
+                String body = bodies.computeIfAbsent(renderKey(shops), key -> generator.renderReport(report, shops));
+                String recipientSubject = shops == null ? subject : subject + " - " + String.join(", ", shops);
+                results.add(executor.submit(() -> sendOne(recipientSubject, body, recipient, useOutbox)));
+            }
+
+            int sent = 0;
+            for (Future<Boolean> result : results) {
+                try {
+                    if (result.get()) {
+                        sent++;
+                    }
+                } catch (ExecutionException e) {
+                    LoggerUtil.logError("Failed to send personalized report: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            LoggerUtil.logInfo((useOutbox ? "Queued " : "Sent ") + sent + " of " + mapping.size()
+                + " personalized reports (" + bodies.size() + " distinct renders)");
+            return sent == mapping.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LoggerUtil.logError("Interrupted while sending personalized reports");
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean sendOne(String subject, String body, String recipient, boolean useOutbox) {
+        List<String> recipients = Collections.singletonList(recipient);
+        if (useOutbox) {
+            return emailSender.enqueueEmailToRecipients(subject, body, recipients);
+        }
+        try {
+            emailSender.deliverHtmlToRecipients(subject, body, recipients);
+            LoggerUtil.logEmailStatus(subject, recipients, true, "Personalized report sent successfully");
+            return true;
+        } catch (MessagingException e) {
+            LoggerUtil.logEmailStatus(subject, recipients, false, "Failed to send personalized report: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return the same key for shop lists that differ only in order, case or spacing; "*" for all shops
+     */
+    private static String renderKey(List<String> shops) {
+        if (shops == null) {
+            return ALL_SHOPS;
+        }
+        TreeSet<String> keys = new TreeSet<>();
+        for (String shop : shops) {
+            keys.add(FlexibleEmailGenerator.shopKey(shop));
+        }
+        return String.join("\n", keys);
+    }
+}
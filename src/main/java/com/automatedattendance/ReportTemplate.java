@@ -0,0 +1,704 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ReportTemplate is a compiled HTML report template.
+ *
+ * The template text is parsed once into static chunks, kept both as text and
+ * already encoded as UTF-8 bytes, and dynamic slots. Rendering to a stream
+ * copies the chunk bytes and encodes only the slot values, straight into a
+ * reusable byte buffer, so the markup and inline styles of a report cost a
+ * memory copy; rendering to a String appends to a reusable char buffer
+ * instead, so the report is never encoded and decoded again. Escaped slots go
+ * through {@link HtmlEscaper} into the same buffer.
+ *
+ * Syntax (a subset of Mustache):
+ * <pre>
+ *   {{name}}                  value of name, HTML-escaped
+ *   {{{name}}} or {{&amp;name}}   value of name, not escaped
+ *   {{#name}} ... {{/name}}   once per element if name is a collection, once with the
+ *                             entries of name visible if it is a map, once if it is true;
+ *                             skipped if it is missing, false or empty
+ *   {{^name}} ... {{/name}}   only if name is missing, false or empty
+ *   {{! comment }}
+ * </pre>
+ * Names are looked up in the innermost section first, then outwards. Section
+ * and comment tags on a line of their own do not leave an empty line behind.
+ *
+ * {@link #forName(String)} loads a template from the configured template
+ * directory ({@code templates.dir}) if the file exists there, otherwise from
+ * the templates bundled under {@code /templates} on the classpath, so reports
+ * can be restyled without recompiling. An edited template file is recompiled
+ * on its next use.
+ */
+public class ReportTemplate {
+
+    private static final String BUNDLED_TEMPLATES = "/templates/";
+
+    /** Buffers that grew beyond this are not kept for reuse */
+    private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+
+    private static final Map<String, ReportTemplate> BUNDLED = new ConcurrentHashMap<>();
+    private static final Map<Path, CompiledFile> OVERRIDES = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(() -> new Buffer(16 * 1024));
+    private static final ThreadLocal<TextBuffer> TEXT_BUFFERS = ThreadLocal.withInitial(() -> new TextBuffer(16 * 1024));
+
+    private final String name;
+    private final Node[] nodes;
+
+    private ReportTemplate(String name, Node[] nodes) {
+        this.name = name;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns the compiled template with the given file name, preferring a file in the
+     * configured template directory over the bundled template
+     * @param name Template file name, e.g. "flexible-report.html"
+     * @return the compiled template
+     * @throws IllegalStateException if there is no usable override and no bundled template of that name
+     */
+    public static ReportTemplate forName(String name) {
+        Path override = Paths.get(ConfigManager.getInstance().getTemplateDirectory(), name);
+        if (Files.isRegularFile(override)) {
+            ReportTemplate template = loadOverride(name, override);
+            if (template != null) {
+                return template;
+            }
+        }
+        return BUNDLED.computeIfAbsent(name, ReportTemplate::loadBundled);
+    }
+
+    /**
+     * @return the override compiled from the file, or null if it cannot be read or compiled
+     */
+    private static ReportTemplate loadOverride(String name, Path path) {
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            CompiledFile compiled = OVERRIDES.get(path);
+            if (compiled == null || !compiled.modified.equals(modified)) {
+                ReportTemplate template = null;
+                try {
+                    template = compile(name, new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+                    LoggerUtil.logInfo("Compiled report template " + path);
+                } catch (IllegalArgumentException e) {
+                    // Remembered per modification time so a broken file is reported once
+                    LoggerUtil.logWarning("Invalid report template " + path + ", using the bundled template: " + e.getMessage());
+                }
+                compiled = new CompiledFile(modified, template);
+                OVERRIDES.put(path, compiled);
+            }
+            return compiled.template;
+        } catch (IOException e) {
+            LoggerUtil.logWarning("Failed to read report template " + path + ", using the bundled template: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ReportTemplate loadBundled(String name) {
+        try (InputStream in = ReportTemplate.class.getResourceAsStream(BUNDLED_TEMPLATES + name)) {
+            if (in == null) {
+                throw new IllegalStateException("Bundled report template not found: " + name);
+            }
+            return compile(name, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read bundled report template " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Compiles template text
+     * @param name Name used in error messages
+     * @param source Template text
+     * @return the compiled template
+     * @throws IllegalArgumentException if a tag is unclosed, empty or mismatched
+     */
+    public static ReportTemplate compile(String name, String source) {
+        Deque<OpenSection> sections = new ArrayDeque<>();
+        List<Node> current = new ArrayList<>();
+        int textStart = 0;
+        int pos = 0;
+
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) {
+                break;
+            }
+            boolean triple = source.startsWith("{{{", open);
+            String closing = triple ? "}}}" : "}}";
+            int contentStart = open + (triple ? 3 : 2);
+            int close = source.indexOf(closing, contentStart);
+            if (close < 0) {
+                throw syntaxError(name, source, open, "unclosed tag");
+            }
+            String tag = source.substring(contentStart, close).trim();
+            int end = close + closing.length();
+
+            char type = triple ? '&' : tag.isEmpty() ? ' ' : tag.charAt(0);
+            String key = type == '#' || type == '^' || type == '/' || type == '!' || (type == '&' && !triple)
+                ? tag.substring(1).trim() : tag;
+            if (key.isEmpty() && type != '!') {
+                throw syntaxError(name, source, open, "empty tag");
+            }
+
+            int textEnd = open;
+            if (type == '#' || type == '^' || type == '/' || type == '!') {
+                int lineStart = source.lastIndexOf('\n', open - 1) + 1;
+                int lineEnd = standaloneLineEnd(source, end);
+                if (lineEnd >= 0 && source.substring(lineStart, open).trim().isEmpty()) {
+                    textEnd = lineStart;
+                    end = lineEnd;
+                }
+            }
+            addText(current, source.substring(textStart, textEnd));
+
+            switch (type) {
+                case '#':
+                case '^':
+                    sections.push(new OpenSection(key, type == '^', current, open));
+                    current = new ArrayList<>();
+                    break;
+                case '/':
+                    OpenSection section = sections.poll();
+                    if (section == null || !section.name.equals(key)) {
+                        throw syntaxError(name, source, open, section == null
+                            ? "{{/" + key + "}} without an open section"
+                            : "{{/" + key + "}} closes {{" + (section.inverted ? "^" : "#") + section.name + "}}");
+                    }
+                    section.parent.add(new Section(section.name, section.inverted, current.toArray(new Node[0])));
+                    current = section.parent;
+                    break;
+                case '!':
+                    break;
+                case '&':
+                    current.add(new Slot(key, false));
+                    break;
+                default:
+                    current.add(new Slot(key, true));
+                    break;
+            }
+            pos = textStart = end;
+        }
+
+        addText(current, source.substring(textStart));
+        if (!sections.isEmpty()) {
+            OpenSection section = sections.peek();
+            throw syntaxError(name, source, section.position, "section {{#" + section.name + "}} is never closed");
+        }
+        return new ReportTemplate(name, current.toArray(new Node[0]));
+    }
+
+    /**
+     * @return the index after the line break following a tag that ends at {@code from}, if only
+     *         spaces or tabs follow it on its line; -1 otherwise
+     */
+    private static int standaloneLineEnd(String source, int from) {
+        int i = from;
+        while (i < source.length() && (source.charAt(i) == ' ' || source.charAt(i) == '\t')) {
+            i++;
+        }
+        if (i == source.length()) {
+            return i;
+        }
+        if (source.charAt(i) == '\n') {
+            return i + 1;
+        }
+        if (source.startsWith("\r\n", i)) {
+            return i + 2;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds static text, merging it into a preceding chunk
+     */
+    private static void addText(List<Node> nodes, String text) {
+        if (text.isEmpty()) {
+            return;
+        }
+        int last = nodes.size() - 1;
+        if (last >= 0 && nodes.get(last) instanceof Chunk) {
+            nodes.set(last, new Chunk(((Chunk) nodes.get(last)).text + text));
+        } else {
+            nodes.add(new Chunk(text));
+        }
+    }
+
+    private static IllegalArgumentException syntaxError(String name, String source, int position, String message) {
+        int line = 1;
+        for (int i = 0; i < position; i++) {
+            if (source.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        return new IllegalArgumentException("Template " + name + " line " + line + ": " + message);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Renders the template, appending to a buffer
+     * @param model Values for the slots and sections
+     * @param out Buffer to append to
+     */
+    public void render(Map<String, ?> model, Buffer out) {
+        renderTo(model, out);
+    }
+
+    private void renderTo(Map<String, ?> model, Output out) {
+        Context context = new Context();
+        context.push(model);
+        renderAll(nodes, context, out);
+    }
+
+    /**
+     * Renders the template as UTF-8 to a stream
+     * @param model Values for the slots and sections
+     * @param out Stream to write to
+     * @throws IOException if writing fails
+     */
+    public void render(Map<String, ?> model, OutputStream out) throws IOException {
+        Buffer buffer = borrowBuffer(BUFFERS);
+        if (buffer == null) {
+            // Rendering from within a render
+            buffer = new Buffer(16 * 1024);
+        }
+        try {
+            renderTo(model, buffer);
+            buffer.writeTo(out);
+        } finally {
+            releaseBuffer(BUFFERS, buffer);
+        }
+    }
+
+    /**
+     * Renders the template into this thread's reusable char buffer
+     * @param model Values for the slots and sections
+     * @return the rendered text
+     */
+    public String renderToString(Map<String, ?> model) {
+        TextBuffer buffer = borrowBuffer(TEXT_BUFFERS);
+        if (buffer == null) {
+            buffer = new TextBuffer(16 * 1024);
+        }
+        try {
+            renderTo(model, buffer);
+            return buffer.toString();
+        } finally {
+            releaseBuffer(TEXT_BUFFERS, buffer);
+        }
+    }
+
+    /**
+     * @return this thread's buffer, reset, or null if it is already being rendered into
+     */
+    private static <T extends Output> T borrowBuffer(ThreadLocal<T> buffers) {
+        T buffer = buffers.get();
+        if (buffer.inUse) {
+            return null;
+        }
+        buffer.inUse = true;
+        buffer.reset();
+        return buffer;
+    }
+
+    private static <T extends Output> void releaseBuffer(ThreadLocal<T> buffers, T buffer) {
+        if (buffer != buffers.get()) {
+            return;
+        }
+        buffer.inUse = false;
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+    }
+
+    private static void renderAll(Node[] nodes, Context context, Output out) {
+        for (Node node : nodes) {
+            node.render(context, out);
+        }
+    }
+
+    private static boolean isEmpty(Object value) {
+        if (value == null || Boolean.FALSE.equals(value)) {
+            return true;
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).isEmpty();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).isEmpty();
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() == 0;
+        }
+        return false;
+    }
+
+    /**
+     * Target a template renders into
+     */
+    abstract static class Output {
+        boolean inUse;
+
+        abstract void write(Chunk chunk);
+
+        abstract Output append(CharSequence text);
+
+        /**
+         * Appends text with HTML special characters replaced by entities
+         */
+        abstract void appendEscaped(CharSequence text);
+
+        abstract void reset();
+
+        /**
+         * @return the current capacity, checked against MAX_RETAINED_BUFFER before the buffer is kept for reuse
+         */
+        abstract int capacity();
+    }
+
+    /**
+     * Growable UTF-8 byte buffer that templates render into. Text appended to it
+     * is encoded as UTF-8 directly into the buffer.
+     */
+    public static final class Buffer extends Output implements Appendable {
+        private final HtmlEscaper escaper = new HtmlEscaper(this);
+        private byte[] bytes;
+        private int length;
+        /** High surrogate whose low surrogate has not been appended yet, or 0 */
+        private char pendingHighSurrogate;
+
+        /**
+         * @param capacity Initial capacity in bytes
+         */
+        public Buffer(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        @Override
+        public void reset() {
+            length = 0;
+            pendingHighSurrogate = 0;
+        }
+
+        public int size() {
+            return length;
+        }
+
+        @Override
+        int capacity() {
+            return bytes.length;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            finishPendingSurrogate();
+            out.write(bytes, 0, length);
+        }
+
+        /**
+         * @return the buffer contents decoded as UTF-8
+         */
+        @Override
+        public String toString() {
+            finishPendingSurrogate();
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        void write(Chunk chunk) {
+            ensureCapacity(chunk.bytes.length);
+            System.arraycopy(chunk.bytes, 0, bytes, length, chunk.bytes.length);
+            length += chunk.bytes.length;
+        }
+
+        @Override
+        public Buffer append(CharSequence text) {
+            CharSequence value = text != null ? text : "null";
+            return append(value, 0, value.length());
+        }
+
+        @Override
+        public Buffer append(CharSequence text, int start, int end) {
+            // At most 3 bytes per char, plus a replaced surrogate left over from before
+            ensureCapacity((end - start) * 3 + 1);
+            for (int i = start; i < end; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80 && pendingHighSurrogate == 0) {
+                    bytes[length++] = (byte) c;
+                } else {
+                    encode(c);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public Buffer append(char c) {
+            ensureCapacity(4);
+            encode(c);
+            return this;
+        }
+
+        @Override
+        void appendEscaped(CharSequence text) {
+            try {
+                escaper.append(text);
+            } catch (IOException e) {
+                // Buffer does not throw
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void encode(char c) {
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                    return;
+                }
+                // Unpaired surrogate, encoded as String.getBytes would
+                bytes[length++] = '?';
+            }
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                bytes[length++] = '?';
+            } else {
+                bytes[length++] = (byte) (0xE0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        private void finishPendingSurrogate() {
+            if (pendingHighSurrogate != 0) {
+                pendingHighSurrogate = 0;
+                ensureCapacity(1);
+                bytes[length++] = '?';
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (bytes.length - length < extra) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    /**
+     * Growable char buffer that templates render into when the result is needed as a String
+     */
+    static final class TextBuffer extends Output {
+        private final StringBuilder text;
+        private final HtmlEscaper escaper;
+
+        TextBuffer(int capacity) {
+            text = new StringBuilder(capacity);
+            escaper = new HtmlEscaper(text);
+        }
+
+        @Override
+        void write(Chunk chunk) {
+            text.append(chunk.text);
+        }
+
+        @Override
+        TextBuffer append(CharSequence value) {
+            text.append(value);
+            return this;
+        }
+
+        @Override
+        void appendEscaped(CharSequence value) {
+            try {
+                escaper.append(value);
+            } catch (IOException e) {
+                // StringBuilder does not throw
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        void reset() {
+            text.setLength(0);
+        }
+
+        @Override
+        int capacity() {
+            return text.capacity();
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    /**
+     * Stack of the models of the enclosing sections
+     */
+    private static final class Context {
+        private Map<?, ?>[] frames = new Map<?, ?>[8];
+        private int depth;
+
+        void push(Map<?, ?> frame) {
+            if (depth == frames.length) {
+                frames = Arrays.copyOf(frames, depth * 2);
+            }
+            frames[depth++] = frame;
+        }
+
+        void pop() {
+            frames[--depth] = null;
+        }
+
+        Object lookup(String name) {
+            for (int i = depth - 1; i >= 0; i--) {
+                Object value = frames[i].get(name);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return null;
+        }
+    }
+
+    private abstract static class Node {
+        abstract void render(Context context, Output out);
+    }
+
+    private static final class Chunk extends Node {
+        private final String text;
+        private final byte[] bytes;
+
+        Chunk(String text) {
+            this.text = text;
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        void render(Context context, Output out) {
+            out.write(this);
+        }
+    }
+
+    private static final class Slot extends Node {
+        private final String name;
+        private final boolean escape;
+
+        Slot(String name, boolean escape) {
+            this.name = name;
+            this.escape = escape;
+        }
+
+        @Override
+        void render(Context context, Output out) {
+            Object value = context.lookup(name);
+            if (value != null) {
+                CharSequence text = value instanceof CharSequence ? (CharSequence) value : String.valueOf(value);
+                if (escape) {
+                    out.appendEscaped(text);
+                } else {
+                    out.append(text);
+                }
+            }
+        }
+    }
+
+    private static final class Section extends Node {
+        private final String name;
+        private final boolean inverted;
+        private final Node[] children;
+
+        Section(String name, boolean inverted, Node[] children) {
+            this.name = name;
+            this.inverted = inverted;
+            this.children = children;
+        }
+
+        @Override
+        void render(Context context, Output out) {
+            Object value = context.lookup(name);
+            if (inverted) {
+                if (isEmpty(value)) {
+                    renderAll(children, context, out);
+                }
+                return;
+            }
+            if (isEmpty(value)) {
+                return;
+            }
+            if (value instanceof Iterable) {
+                Iterator<?> items = ((Iterable<?>) value).iterator();
+                while (items.hasNext()) {
+                    renderWith(items.next(), context, out);
+                }
+            } else {
+                renderWith(value, context, out);
+            }
+        }
+
+        private void renderWith(Object item, Context context, Output out) {
+            if (item instanceof Map) {
+                context.push((Map<?, ?>) item);
+                renderAll(children, context, out);
+                context.pop();
+            } else {
+                renderAll(children, context, out);
+            }
+        }
+    }
+
+    private static final class OpenSection {
+        private final String name;
+        private final boolean inverted;
+        private final List<Node> parent;
+        private final int position;
+
+        OpenSection(String name, boolean inverted, List<Node> parent, int position) {
+            this.name = name;
+            this.inverted = inverted;
+            this.parent = parent;
+            this.position = position;
+        }
+    }
+
+    private static final class CompiledFile {
+        private final FileTime modified;
+        private final ReportTemplate template;
+
+        CompiledFile(FileTime modified, ReportTemplate template) {
+            this.modified = modified;
+            this.template = template;
+        }
+    }
+}
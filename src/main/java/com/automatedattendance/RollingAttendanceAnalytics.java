@@ -0,0 +1,443 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * RollingAttendanceAnalytics keeps per-employee and per-shop attendance
+ * counters over the last N recorded days, e.g. to answer "who has been absent
+ * 3 or more of the last 10 days" or "how has each shop's rate moved".
+ *
+ * Counters are maintained incrementally: adding a day adds that day's rows
+ * and subtracts the rows of any day that falls out of the window, so the cost
+ * of an update is proportional to the rows that changed, not to the history.
+ * A day can hold rows from several source files; re-adding a file for a day
+ * that already holds it replaces that file's rows, like the history store
+ * does. Days older than the window are ignored.
+ *
+ * The window counts recorded days (days a sheet was processed), so weekends
+ * and holidays without a sheet do not shorten it.
+ */
+public class RollingAttendanceAnalytics {
+
+    private static final byte PRESENT = 0;
+    private static final byte ABSENT = 1;
+    private static final byte OTHER = 2;
+
+    private static RollingAttendanceAnalytics sharedInstance;
+
+    private final int windowDays;
+    /** Rows of every source file, per day in the window */
+    private final NavigableMap<LocalDate, Map<String, Day>> days = new TreeMap<>();
+    private final Map<String, EmployeeStats> employees = new HashMap<>();
+    private final Map<String, int[]> shopTotals = new HashMap<>();
+
+    /**
+     * @param windowDays Number of most recent recorded days the counters cover
+     */
+    public RollingAttendanceAnalytics(int windowDays) {
+        this.windowDays = Math.max(1, windowDays);
+    }
+
+    /**
+     * Returns the analytics configured in the ConfigManager, loading the window
+     * from the shared history store on first use
+     */
+    public static synchronized RollingAttendanceAnalytics getShared() {
+        if (sharedInstance == null) {
+            ConfigManager configManager = ConfigManager.getInstance();
+            RollingAttendanceAnalytics analytics = new RollingAttendanceAnalytics(configManager.getAnalyticsWindowDays());
+            if (configManager.isHistoryEnabled()) {
+                try {
+                    analytics.loadFromHistory(AttendanceHistoryStore.getShared());
+                } catch (IOException e) {
+                    LoggerUtil.logWarning("Failed to load attendance history for analytics: " + e.getMessage());
+                }
+            }
+            sharedInstance = analytics;
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * Fills the window from the most recent days of a history store
+     * @param store History store to read
+     * @throws IOException if the history cannot be read
+     */
+    public synchronized void loadFromHistory(AttendanceHistoryStore store) throws IOException {
+        List<LocalDate> dates = store.getRecordedDates();
+        for (LocalDate date : dates.subList(Math.max(0, dates.size() - windowDays), dates.size())) {
+            Map<String, Day> bySource = new HashMap<>();
+            for (AttendanceHistoryStore.HistoryRecord record : store.getDay(date)) {
+                bySource.computeIfAbsent(record.getSource(), source -> new Day(16))
+                    .add(record.getPNo(), record.getName(), record.getShop(), record.getStatus());
+            }
+            for (Map.Entry<String, Day> entry : bySource.entrySet()) {
+                addDay(date, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Adds (or replaces) one file's attendance for a day
+     * @param date Attendance date
+     * @param source Name of the file the students were read from
+     * @param students Students of that day
+     */
+    public synchronized void addDay(LocalDate date, String source, List<Student> students) {
+        Day day = new Day(students.size());
+        for (Student student : students) {
+            day.add(student.getPNo(), student.getName(), student.getShop(), student.getAttendanceStatus());
+        }
+        addDay(date, source != null ? source : "", day);
+    }
+
+    private void addDay(LocalDate date, String source, Day day) {
+        Map<String, Day> bySource = days.get(date);
+        if (bySource == null && days.size() >= windowDays && date.isBefore(days.firstKey())) {
+            // Older than every day in a full window
+            return;
+        }
+        if (bySource == null) {
+            bySource = new HashMap<>();
+            days.put(date, bySource);
+        }
+        Day replaced = bySource.put(source, day);
+        if (replaced != null) {
+            apply(replaced, -1);
+        }
+        apply(day, 1);
+
+        while (days.size() > windowDays) {
+            for (Day evicted : days.pollFirstEntry().getValue().values()) {
+                apply(evicted, -1);
+            }
+        }
+    }
+
+    /**
+     * Adds (sign 1) or removes (sign -1) the contribution of one day
+     */
+    private void apply(Day day, int sign) {
+        for (int i = 0; i < day.size; i++) {
+            String pNo = day.pNos[i];
+            if (pNo == null) {
+                continue;
+            }
+            EmployeeStats stats = employees.computeIfAbsent(pNo, EmployeeStats::new);
+            stats.recordedDays += sign;
+            if (day.statuses[i] == PRESENT) {
+                stats.presentDays += sign;
+            } else if (day.statuses[i] == ABSENT) {
+                stats.absentDays += sign;
+            }
+            if (sign > 0) {
+                stats.name = day.names[i];
+                stats.shop = day.shops[i];
+            } else if (stats.recordedDays == 0) {
+                employees.remove(pNo);
+            }
+        }
+
+        for (Map.Entry<String, int[]> entry : day.shopCounts.entrySet()) {
+            int[] totals = shopTotals.computeIfAbsent(entry.getKey(), shop -> new int[3]);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += sign * entry.getValue()[i];
+            }
+            if (totals[OTHER] == 0 && totals[PRESENT] == 0 && totals[ABSENT] == 0) {
+                shopTotals.remove(entry.getKey());
+            }
+        }
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /**
+     * @return the dates currently in the window, oldest first
+     */
+    public synchronized List<LocalDate> getWindowDates() {
+        return new ArrayList<>(days.keySet());
+    }
+
+    /**
+     * @param pNo P.no of the employee
+     * @return the employee's counters over the window, or null if they have no record in it
+     */
+    public synchronized EmployeeWindowStats getEmployee(String pNo) {
+        EmployeeStats stats = employees.get(pNo);
+        return stats != null ? stats.snapshot() : null;
+    }
+
+    /**
+     * @param minAbsentDays Minimum number of absent days within the window
+     * @return employees absent at least that often, most absences first, then by P.no
+     */
+    public synchronized List<EmployeeWindowStats> getFrequentAbsentees(int minAbsentDays) {
+        List<EmployeeWindowStats> absentees = new ArrayList<>();
+        for (EmployeeStats stats : employees.values()) {
+            if (stats.absentDays >= minAbsentDays) {
+                absentees.add(stats.snapshot());
+            }
+        }
+        absentees.sort((a, b) -> a.getAbsentDays() != b.getAbsentDays()
+            ? Integer.compare(b.getAbsentDays(), a.getAbsentDays())
+            : a.getPNo().compareTo(b.getPNo()));
+        return absentees;
+    }
+
+    /**
+     * @return per-shop totals over the whole window, sorted by shop name
+     */
+    public synchronized List<ShopAttendanceAggregator.ShopSummary> getShopSummaries() {
+        List<ShopAttendanceAggregator.ShopSummary> summaries = new ArrayList<>();
+        for (Map.Entry<String, int[]> entry : new TreeMap<>(shopTotals).entrySet()) {
+            summaries.add(toSummary(entry.getKey(), entry.getValue()));
+        }
+        return summaries;
+    }
+
+    /**
+     * @param shop Shop name as reported by {@link ShopAttendanceAggregator}
+     * @return the shop's statistics for each day in the window on which it had rows, oldest first
+     */
+    public synchronized NavigableMap<LocalDate, ShopAttendanceAggregator.ShopSummary> getShopTrend(String shop) {
+        NavigableMap<LocalDate, ShopAttendanceAggregator.ShopSummary> trend = new TreeMap<>();
+        for (Map.Entry<LocalDate, Map<String, Day>> entry : days.entrySet()) {
+            int[] dayCounts = null;
+            for (Day day : entry.getValue().values()) {
+                int[] counts = day.shopCounts.get(shop);
+                if (counts != null) {
+                    if (dayCounts == null) {
+                        dayCounts = new int[3];
+                    }
+                    for (int i = 0; i < dayCounts.length; i++) {
+                        dayCounts[i] += counts[i];
+                    }
+                }
+            }
+            if (dayCounts != null) {
+                trend.put(entry.getKey(), toSummary(shop, dayCounts));
+            }
+        }
+        return trend;
+    }
+
+    /**
+     * Reads the dates, frequent absentees and per-shop rates of the window under one lock, so they
+     * agree with each other even while other threads keep adding days
+     * @param minAbsentDays Minimum number of absent days for an employee to be listed
+     * @return an immutable view of the window
+     */
+    public synchronized WindowSnapshot snapshot(int minAbsentDays) {
+        List<ShopWindowStats> shops = new ArrayList<>();
+        for (ShopAttendanceAggregator.ShopSummary window : getShopSummaries()) {
+            NavigableMap<LocalDate, ShopAttendanceAggregator.ShopSummary> trend = getShopTrend(window.getShop());
+            shops.add(new ShopWindowStats(window, trend.firstEntry().getValue(), trend.lastEntry().getValue()));
+        }
+        return new WindowSnapshot(getWindowDates(), getFrequentAbsentees(minAbsentDays), shops);
+    }
+
+    private static ShopAttendanceAggregator.ShopSummary toSummary(String shop, int[] counts) {
+        return new ShopAttendanceAggregator.ShopSummary(shop,
+            counts[PRESENT] + counts[ABSENT] + counts[OTHER], counts[PRESENT], counts[ABSENT]);
+    }
+
+    /**
+     * The rows of one day in compact form, kept so the day can be subtracted when it leaves the window
+     */
+    private static class Day {
+        private String[] pNos;
+        private String[] names;
+        private String[] shops;
+        private byte[] statuses;
+        private final Map<String, int[]> shopCounts = new HashMap<>();
+        private int size;
+
+        Day(int expectedRows) {
+            int capacity = Math.max(1, expectedRows);
+            pNos = new String[capacity];
+            names = new String[capacity];
+            shops = new String[capacity];
+            statuses = new byte[capacity];
+        }
+
+        void add(String pNo, String name, String shop, AttendanceStatus status) {
+            if (size == pNos.length) {
+                int capacity = size * 2;
+                pNos = Arrays.copyOf(pNos, capacity);
+                names = Arrays.copyOf(names, capacity);
+                shops = Arrays.copyOf(shops, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+            }
+            byte code = status.countsAsPresent() ? PRESENT : status.countsAsAbsent() ? ABSENT : OTHER;
+            String shopName = shop == null || shop.trim().isEmpty() ? ShopAttendanceAggregator.UNASSIGNED_SHOP : shop.trim();
+            pNos[size] = pNo;
+            names[size] = name;
+            shops[size] = shopName;
+            statuses[size] = code;
+            size++;
+            shopCounts.computeIfAbsent(shopName, key -> new int[3])[code]++;
+        }
+    }
+
+    private static class EmployeeStats {
+        private final String pNo;
+        private String name;
+        private String shop;
+        private int recordedDays;
+        private int presentDays;
+        private int absentDays;
+
+        EmployeeStats(String pNo) {
+            this.pNo = pNo;
+        }
+
+        EmployeeWindowStats snapshot() {
+            return new EmployeeWindowStats(pNo, name, shop, recordedDays, presentDays, absentDays);
+        }
+    }
+
+    /**
+     * The window as seen at one moment, see {@link #snapshot(int)}
+     */
+    public static class WindowSnapshot {
+        private final List<LocalDate> dates;
+        private final List<EmployeeWindowStats> frequentAbsentees;
+        private final List<ShopWindowStats> shops;
+
+        WindowSnapshot(List<LocalDate> dates, List<EmployeeWindowStats> frequentAbsentees, List<ShopWindowStats> shops) {
+            this.dates = Collections.unmodifiableList(dates);
+            this.frequentAbsentees = Collections.unmodifiableList(frequentAbsentees);
+            this.shops = Collections.unmodifiableList(shops);
+        }
+
+        /**
+         * @return the dates in the window, oldest first
+         */
+        public List<LocalDate> getDates() {
+            return dates;
+        }
+
+        /**
+         * @return employees absent at least the requested number of days, most absences first, then by P.no
+         */
+        public List<EmployeeWindowStats> getFrequentAbsentees() {
+            return frequentAbsentees;
+        }
+
+        /**
+         * @return the rates of every shop with rows in the window, sorted by shop name
+         */
+        public List<ShopWindowStats> getShops() {
+            return shops;
+        }
+    }
+
+    /**
+     * One shop's attendance over the whole window and on its oldest and latest day in it
+     */
+    public static class ShopWindowStats {
+        private final ShopAttendanceAggregator.ShopSummary window;
+        private final ShopAttendanceAggregator.ShopSummary oldestDay;
+        private final ShopAttendanceAggregator.ShopSummary latestDay;
+
+        ShopWindowStats(ShopAttendanceAggregator.ShopSummary window, ShopAttendanceAggregator.ShopSummary oldestDay,
+                        ShopAttendanceAggregator.ShopSummary latestDay) {
+            this.window = window;
+            this.oldestDay = oldestDay;
+            this.latestDay = latestDay;
+        }
+
+        public String getShop() {
+            return window.getShop();
+        }
+
+        public ShopAttendanceAggregator.ShopSummary getWindow() {
+            return window;
+        }
+
+        /**
+         * @return the shop's statistics on the oldest day in the window on which it had rows
+         */
+        public ShopAttendanceAggregator.ShopSummary getOldestDay() {
+            return oldestDay;
+        }
+
+        /**
+         * @return the shop's statistics on the latest day in the window on which it had rows
+         */
+        public ShopAttendanceAggregator.ShopSummary getLatestDay() {
+            return latestDay;
+        }
+    }
+
+    /**
+     * One employee's attendance over the window
+     */
+    public static class EmployeeWindowStats {
+        private final String pNo;
+        private final String name;
+        private final String shop;
+        private final int recordedDays;
+        private final int presentDays;
+        private final int absentDays;
+
+        public EmployeeWindowStats(String pNo, String name, String shop, int recordedDays, int presentDays, int absentDays) {
+            this.pNo = pNo;
+            this.name = name;
+            this.shop = shop;
+            this.recordedDays = recordedDays;
+            this.presentDays = presentDays;
+            this.absentDays = absentDays;
+        }
+
+        public String getPNo() {
+            return pNo;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getShop() {
+            return shop;
+        }
+
+        /**
+         * @return the number of days in the window with a record for the employee
+         */
+        public int getRecordedDays() {
+            return recordedDays;
+        }
+
+        public int getPresentDays() {
+            return presentDays;
+        }
+
+        public int getAbsentDays() {
+            return absentDays;
+        }
+
+        @Override
+        public String toString() {
+            return "EmployeeWindowStats{" +
+                    "pNo='" + pNo + '\'' +
+                    ", name='" + name + '\'' +
+                    ", shop='" + shop + '\'' +
+                    ", recordedDays=" + recordedDays +
+                    ", presentDays=" + presentDays +
+                    ", absentDays=" + absentDays +
+                    '}';
+        }
+    }
+}
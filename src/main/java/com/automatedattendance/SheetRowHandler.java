@@ -0,0 +1,30 @@
+package com.automatedattendance;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Callback interface for readers that deliver worksheet rows one at a time
+ * instead of materializing the whole workbook.
+ */
+public interface SheetRowHandler {
+
+    /**
+     * Called before the first row of a sheet is delivered
+     * @param sheetName Name of the sheet being read
+     */
+    void startSheet(String sheetName) throws IOException;
+
+    /**
+     * Called once for every non-empty row of the sheet, in order
+     * @param rowNum Zero-based row number in the sheet
+     * @param cellValues Cell values indexed by column; missing cells are null.
+     *                   The list may be reused by the caller after this method returns.
+     */
+    void handleRow(int rowNum, List<String> cellValues) throws IOException;
+
+    /**
+     * Called after the last row of a sheet has been delivered
+     */
+    void endSheet() throws IOException;
+}
@@ -0,0 +1,255 @@
+package com.automatedattendance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * ShopAttendanceAggregator groups attendance by Shop/Department and computes
+ * the total, present and absent count and attendance rate of every shop in a
+ * single pass over the roster.
+ *
+ * Rosters of at least the configured parallel threshold
+ * ({@code aggregation.parallelThreshold}) are split into
+ * partitions that are accumulated independently on the common fork/join pool
+ * and merged at the end, so no counter is shared between threads. Smaller
+ * rosters are counted on the calling thread.
+ */
+public class ShopAttendanceAggregator {
+
+    /** Shop reported for students without a shop value */
+    public static final String UNASSIGNED_SHOP = "Unassigned";
+
+    private static final int PRESENT = 0;
+    private static final int ABSENT = 1;
+    private static final int TOTAL = 2;
+
+    private final int parallelThreshold;
+
+    /**
+     * Creates an aggregator using the configured parallel threshold
+     */
+    public ShopAttendanceAggregator() {
+        this(ConfigManager.getInstance().getAggregationParallelThreshold());
+    }
+
+    /**
+     * @param parallelThreshold Minimum number of rows for partitioned parallel accumulation
+     */
+    public ShopAttendanceAggregator(int parallelThreshold) {
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+    }
+
+    /**
+     * Computes per-shop statistics from a list of students
+     * @param students Students to group; blank shops are reported as {@value #UNASSIGNED_SHOP}
+     * @return one summary per shop, sorted by shop name
+     */
+    public List<ShopSummary> aggregate(List<Student> students) {
+        if (students == null || students.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, int[]> counts;
+        if (students.size() >= parallelThreshold && students instanceof RandomAccess) {
+            counts = IntStream.range(0, partitionCount(students.size()))
+                .parallel()
+                .mapToObj(partition -> {
+                    int[] range = partitionRange(partition, students.size());
+                    return accumulate(students, range[0], range[1]);
+                })
+                .reduce(ShopAttendanceAggregator::merge)
+                .orElseGet(HashMap::new);
+        } else {
+            counts = accumulate(students, 0, students.size());
+        }
+
+        List<ShopSummary> summaries = new ArrayList<>(counts.size());
+        for (Map.Entry<String, int[]> entry : new TreeMap<>(counts).entrySet()) {
+            int[] shopCounts = entry.getValue();
+            summaries.add(new ShopSummary(entry.getKey(), shopCounts[TOTAL], shopCounts[PRESENT], shopCounts[ABSENT]));
+        }
+        return summaries;
+    }
+
+    /**
+     * Computes per-shop statistics from a compact roster, counting by shop and status codes
+     * @param roster Roster to group; rows without a shop are reported as {@value #UNASSIGNED_SHOP}
+     * @return one summary per shop, sorted by shop name
+     */
+    public List<ShopSummary> aggregate(CompactRoster roster) {
+        if (roster == null || roster.size() == 0) {
+            return new ArrayList<>();
+        }
+
+        // Classify every distinct status once
+        int statusCount = roster.getStatusCount();
+        int[] statusSlots = new int[statusCount];
+        for (int code = 0; code < statusCount; code++) {
+            AttendanceStatus kind = roster.getStatusKind(code);
+            statusSlots[code] = kind.countsAsPresent() ? PRESENT : kind.countsAsAbsent() ? ABSENT : -1;
+        }
+
+        int[][] counts;
+        if (roster.size() >= parallelThreshold) {
+            counts = IntStream.range(0, partitionCount(roster.size()))
+                .parallel()
+                .mapToObj(partition -> {
+                    int[] range = partitionRange(partition, roster.size());
+                    return accumulate(roster, statusSlots, range[0], range[1]);
+                })
+                .reduce(ShopAttendanceAggregator::merge)
+                .orElseGet(() -> new int[roster.getShopCount() + 1][3]);
+        } else {
+            counts = accumulate(roster, statusSlots, 0, roster.size());
+        }
+
+        // The last slot collects rows without a shop
+        Map<String, int[]> byName = new TreeMap<>();
+        for (int shop = 0; shop < counts.length; shop++) {
+            if (counts[shop][TOTAL] > 0) {
+                String name = shop < roster.getShopCount() ? shopName(roster.getShopName(shop)) : UNASSIGNED_SHOP;
+                int[] existing = byName.get(name);
+                if (existing == null) {
+                    byName.put(name, counts[shop].clone());
+                } else {
+                    // Values that differ only by surrounding spaces are one shop
+                    for (int i = 0; i < existing.length; i++) {
+                        existing[i] += counts[shop][i];
+                    }
+                }
+            }
+        }
+
+        List<ShopSummary> summaries = new ArrayList<>(byName.size());
+        for (Map.Entry<String, int[]> entry : byName.entrySet()) {
+            int[] shopCounts = entry.getValue();
+            summaries.add(new ShopSummary(entry.getKey(), shopCounts[TOTAL], shopCounts[PRESENT], shopCounts[ABSENT]));
+        }
+        return summaries;
+    }
+
+    private static Map<String, int[]> accumulate(List<Student> students, int from, int to) {
+        Map<String, int[]> counts = new HashMap<>();
+        for (Student student : students.subList(from, to)) {
+            int[] shopCounts = counts.computeIfAbsent(shopName(student.getShop()), shop -> new int[3]);
+            shopCounts[TOTAL]++;
+            if (student.isPresent()) {
+                shopCounts[PRESENT]++;
+            } else if (student.isAbsent()) {
+                shopCounts[ABSENT]++;
+            }
+        }
+        return counts;
+    }
+
+    private static int[][] accumulate(CompactRoster roster, int[] statusSlots, int from, int to) {
+        int unassigned = roster.getShopCount();
+        int[][] counts = new int[unassigned + 1][3];
+        for (int row = from; row < to; row++) {
+            int shop = roster.getShopCode(row);
+            int[] shopCounts = counts[shop == CompactRoster.NULL_CODE ? unassigned : shop];
+            shopCounts[TOTAL]++;
+            int status = roster.getStatusCode(row);
+            if (status != CompactRoster.NULL_CODE && statusSlots[status] >= 0) {
+                shopCounts[statusSlots[status]]++;
+            }
+        }
+        return counts;
+    }
+
+    private static Map<String, int[]> merge(Map<String, int[]> left, Map<String, int[]> right) {
+        for (Map.Entry<String, int[]> entry : right.entrySet()) {
+            int[] target = left.computeIfAbsent(entry.getKey(), shop -> new int[3]);
+            for (int i = 0; i < target.length; i++) {
+                target[i] += entry.getValue()[i];
+            }
+        }
+        return left;
+    }
+
+    private static int[][] merge(int[][] left, int[][] right) {
+        for (int shop = 0; shop < left.length; shop++) {
+            for (int i = 0; i < left[shop].length; i++) {
+                left[shop][i] += right[shop][i];
+            }
+        }
+        return left;
+    }
+
+    private static String shopName(String shop) {
+        if (shop == null || shop.trim().isEmpty()) {
+            return UNASSIGNED_SHOP;
+        }
+        return shop.trim();
+    }
+
+    /**
+     * A few partitions per core so uneven partitions still balance across the pool
+     */
+    private int partitionCount(int rows) {
+        int partitions = Runtime.getRuntime().availableProcessors() * 4;
+        return Math.max(1, Math.min(partitions, rows / Math.max(1, parallelThreshold / 4)));
+    }
+
+    private int[] partitionRange(int partition, int rows) {
+        int partitions = partitionCount(rows);
+        long from = (long) rows * partition / partitions;
+        long to = (long) rows * (partition + 1) / partitions;
+        return new int[] {(int) from, (int) to};
+    }
+
+    /**
+     * Attendance statistics of one shop
+     */
+    public static class ShopSummary {
+        private final String shop;
+        private final int totalCount;
+        private final int presentCount;
+        private final int absentCount;
+
+        public ShopSummary(String shop, int totalCount, int presentCount, int absentCount) {
+            this.shop = shop;
+            this.totalCount = totalCount;
+            this.presentCount = presentCount;
+            this.absentCount = absentCount;
+        }
+
+        public String getShop() {
+            return shop;
+        }
+
+        public int getTotalCount() {
+            return totalCount;
+        }
+
+        public int getPresentCount() {
+            return presentCount;
+        }
+
+        public int getAbsentCount() {
+            return absentCount;
+        }
+
+        /**
+         * @return present count as a percentage of the shop's total, 0 for an empty shop
+         */
+        public double getAttendanceRate() {
+            return totalCount > 0 ? (double) presentCount / totalCount * 100 : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return "ShopSummary{" +
+                    "shop='" + shop + '\'' +
+                    ", totalCount=" + totalCount +
+                    ", presentCount=" + presentCount +
+                    ", absentCount=" + absentCount +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.automatedattendance;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.mail.Authenticator;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.PasswordAuthentication;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+
+/**
+ * SmtpConnectionPool keeps authenticated SMTP connections open and reuses them
+ * across messages, so a mailing of hundreds of messages pays the
+ * TCP + STARTTLS + AUTH handshake only once per pooled connection.
+ *
+ * Connections idle for longer than the idle timeout are closed, connections
+ * idle for longer than the validation interval are checked with a NOOP before
+ * reuse, and at most maxSize connections are open at any time. A connection is
+ * only discarded after a connection-level failure; one whose message was
+ * rejected (e.g. an invalid recipient) goes back to the pool.
+ */
+public class SmtpConnectionPool implements AutoCloseable {
+
+    private final Session session;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final long borrowTimeoutMillis;
+
+    private final Semaphore permits;
+    private final Deque<PooledTransport> idleConnections = new ArrayDeque<>(); // guarded by this
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool for the given SMTP server
+     * @param host SMTP host name
+     * @param port SMTP port
+     * @param username User name for AUTH, or null to connect without authentication
+     * @param password Password for AUTH
+     * @param startTls Whether to upgrade connections with STARTTLS
+     * @param maxSize Maximum number of open connections
+     * @param idleTimeoutMillis How long an unused connection is kept open
+     * @param validationIntervalMillis Idle time after which a connection is health-checked before reuse
+     * @param borrowTimeoutMillis How long a sender waits for a free connection when the pool is exhausted
+     */
+    public SmtpConnectionPool(String host, int port, String username, String password, boolean startTls,
+                              int maxSize, long idleTimeoutMillis, long validationIntervalMillis,
+                              long borrowTimeoutMillis) {
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.maxSize = Math.max(1, maxSize);
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.permits = new Semaphore(this.maxSize, true);
+
+        Properties props = new Properties();
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        props.put("mail.smtp.auth", String.valueOf(username != null));
+        props.put("mail.smtp.starttls.enable", String.valueOf(startTls));
+        this.session = username != null
+            ? Session.getInstance(props, new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return new PasswordAuthentication(username, password);
+                }
+            })
+            : Session.getInstance(props);
+
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smtp-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long evictionPeriod = Math.max(1000, idleTimeoutMillis / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdleConnections, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a pool for the SMTP server and credentials currently held by the ConfigManager
+     */
+    public static SmtpConnectionPool fromConfig(ConfigManager configManager) {
+        return new SmtpConnectionPool(
+            configManager.getSmtpHost(),
+            configManager.getSmtpPort(),
+            configManager.getSenderEmail(),
+            configManager.getSenderAppPassword(),
+            configManager.isSmtpTlsEnabled(),
+            configManager.getSmtpPoolMaxSize(),
+            configManager.getSmtpPoolIdleTimeoutMillis(),
+            configManager.getSmtpPoolValidationIntervalMillis(),
+            configManager.getSmtpPoolBorrowTimeoutMillis());
+    }
+
+    /**
+     * @return the mail session used by the pooled connections; use it to create messages
+     */
+    public Session getSession() {
+        return session;
+    }
+
+    /**
+     * Sends a message over a pooled connection. If a reused connection turns out
+     * to be dead, the message is retried once on a freshly opened connection.
+     * @param message The message to send to all of its recipients
+     * @throws MessagingException if the message could not be delivered
+     */
+    public void send(Message message) throws MessagingException {
+        message.saveChanges();
+
+        PooledTransport connection = borrow();
+        try {
+            long sendStart = System.nanoTime();
+            connection.transport.sendMessage(message, message.getAllRecipients());
+            PipelineMetrics.getShared().recordTime("smtp.send", System.nanoTime() - sendStart);
+            release(connection, true);
+        } catch (MessagingException e) {
+            boolean connectionFailure = isConnectionFailure(e);
+            // A rejected message (e.g. SendFailedException for a bad recipient) leaves the connection usable
+            release(connection, !connectionFailure && connection.transport.isConnected());
+            if (!connection.reused || !connectionFailure) {
+                throw e;
+            }
+
+            // The server may have dropped an idle connection; retry on a new one
+            PooledTransport fresh = borrow(true);
+            try {
+                fresh.transport.sendMessage(message, message.getAllRecipients());
+                release(fresh, true);
+            } catch (MessagingException retryException) {
+                release(fresh, !isConnectionFailure(retryException) && fresh.transport.isConnected());
+                throw retryException;
+            }
+        }
+    }
+
+    /**
+     * @return the number of connections currently open and idle in the pool
+     */
+    public synchronized int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /**
+     * @return the number of connections currently lent out to senders
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        return borrow(false);
+    }
+
+    private PooledTransport borrow(boolean forceNew) throws MessagingException {
+        if (closed) {
+            throw new MessagingException("SMTP connection pool is closed");
+        }
+        try {
+            long waitStart = System.nanoTime();
+            boolean acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+            PipelineMetrics.getShared().recordTime("smtp.borrowWait", System.nanoTime() - waitStart);
+            if (!acquired) {
+                throw new MessagingException("Timed out waiting for a free SMTP connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for a free SMTP connection", e);
+        }
+
+        try {
+            while (!forceNew) {
+                PooledTransport candidate;
+                synchronized (this) {
+                    candidate = idleConnections.pollFirst();
+                }
+                if (candidate == null) {
+                    break;
+                }
+
+                long idleMillis = System.currentTimeMillis() - candidate.lastUsedMillis;
+                if (idleMillis > idleTimeoutMillis) {
+                    closeQuietly(candidate);
+                } else if (idleMillis > validationIntervalMillis && !candidate.transport.isConnected()) {
+                    // Health check: isConnected() issues a NOOP to the server
+                    closeQuietly(candidate);
+                } else {
+                    candidate.reused = true;
+                    return candidate;
+                }
+            }
+            return open();
+        } catch (MessagingException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledTransport open() throws MessagingException {
+        Transport transport = session.getTransport("smtp");
+        // Covers the TCP connect, STARTTLS and AUTH handshake
+        long connectStart = System.nanoTime();
+        if (username != null) {
+            transport.connect(host, port, username, password);
+        } else {
+            transport.connect(host, port, null, null);
+        }
+        PipelineMetrics.getShared().recordTime("smtp.connect", System.nanoTime() - connectStart);
+        return new PooledTransport(transport);
+    }
+
+    private void release(PooledTransport connection, boolean healthy) {
+        try {
+            if (healthy && !closed) {
+                connection.lastUsedMillis = System.currentTimeMillis();
+                synchronized (this) {
+                    // Most recently used connections are handed out first so stale ones age out
+                    idleConnections.addFirst(connection);
+                }
+            } else {
+                closeQuietly(connection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes idle connections that have exceeded the idle timeout
+     */
+    void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<PooledTransport> iterator = idleConnections.iterator();
+            while (iterator.hasNext()) {
+                PooledTransport connection = iterator.next();
+                if (now - connection.lastUsedMillis > idleTimeoutMillis) {
+                    iterator.remove();
+                    closeQuietly(connection);
+                }
+            }
+        }
+    }
+
+    private static boolean isConnectionFailure(MessagingException e) {
+        String message = e.getMessage() != null ? e.getMessage() : "";
+        return e.getCause() instanceof java.io.IOException
+            || e.getNextException() instanceof java.io.IOException
+            || message.contains("421")
+            || message.contains("Can't send command")
+            || message.contains("Not connected");
+    }
+
+    private static void closeQuietly(PooledTransport connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            // Connection is being discarded anyway
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops handing out new ones
+     */
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        synchronized (this) {
+            for (PooledTransport connection : idleConnections) {
+                closeQuietly(connection);
+            }
+            idleConnections.clear();
+        }
+    }
+
+    /**
+     * An open transport together with its pool bookkeeping
+     */
+    private static class PooledTransport {
+        private final Transport transport;
+        private long lastUsedMillis = System.currentTimeMillis();
+        private boolean reused;
+
+        PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
@@ -0,0 +1,334 @@
+package com.automatedattendance;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.poi.hssf.eventusermodel.AbortableHSSFListener;
+import org.apache.poi.hssf.eventusermodel.EventWorkbookBuilder.SheetRecordCollectingListener;
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.HSSFUserException;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.model.HSSFFormulaParser;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BlankRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.BoundSheetRecord;
+import org.apache.poi.hssf.record.DateWindow1904Record;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.SharedFormulaRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.formula.ptg.ExpPtg;
+import org.apache.poi.ss.formula.ptg.Ptg;
+
+/**
+ * StreamingXlsReader reads legacy .xls files through POI's HSSF event API
+ * (HSSFEventFactory + HSSFListener) instead of building an HSSFWorkbook.
+ * Records are processed as they are read from the file and every completed row
+ * is handed to a {@link SheetRowHandler}, so memory use does not grow with the
+ * number of rows. Only the shared string table, which the format stores up
+ * front for the whole workbook, is kept in memory.
+ *
+ * Numbers and dates are formatted by a {@link CellValueFormatter}, formula
+ * cells yield their formula text and booleans "true"/"false", as
+ * {@link FlexibleExcelReader#getCellValueAsString} does for a loaded workbook.
+ * Cells of a shared formula group yield the group's formula moved to the cell,
+ * as in {@link StreamingXlsxReader}.
+ */
+public class StreamingXlsReader {
+
+    /**
+     * Streams the rows of the first sheet of an .xls file to the given handler.
+     * Parsing stops at the end of the first sheet.
+     * @param filePath Path to the .xls file
+     * @param handler Receiver of the sheet rows
+     * @throws IOException if the file cannot be opened or parsed, or the handler fails
+     */
+    public static void readFirstSheet(String filePath, SheetRowHandler handler) throws IOException {
+        boolean[] sheetSeen = new boolean[1];
+        process(filePath, () -> {
+            if (sheetSeen[0]) {
+                return null;
+            }
+            sheetSeen[0] = true;
+            return handler;
+        }, true);
+        if (!sheetSeen[0]) {
+            throw new IOException("Excel file contains no sheets");
+        }
+    }
+
+    /**
+     * Streams every sheet of an .xls file to its own handler in a single pass over the file.
+     * Sheets are read one after another, as they are stored sequentially in the file.
+     * @param filePath Path to the .xls file
+     * @param handlerFactory Creates one handler per sheet
+     * @return the handlers in workbook sheet order, each having received its sheet's rows
+     * @throws IOException if the file cannot be opened or parsed, or a handler fails
+     */
+    public static <H extends SheetRowHandler> List<H> readAllSheets(String filePath, Supplier<H> handlerFactory) throws IOException {
+        List<H> handlers = new ArrayList<>();
+        process(filePath, () -> {
+            H handler = handlerFactory.get();
+            handlers.add(handler);
+            return handler;
+        }, false);
+        if (handlers.isEmpty()) {
+            throw new IOException("Excel file contains no sheets");
+        }
+        return handlers;
+    }
+
+    /**
+     * Runs the event parser over the workbook stream
+     * @param handlers Supplies the handler for each sheet in turn, or null to skip the sheet
+     * @param stopAfterFirstSheet Whether parsing is aborted after the first sheet
+     */
+    private static void process(String filePath, Supplier<SheetRowHandler> handlers, boolean stopAfterFirstSheet) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new IOException("File does not exist: " + filePath);
+        }
+
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            RecordForwarder forwarder = new RecordForwarder(handlers, stopAfterFirstSheet);
+            FormatTrackingHSSFListener formatListener = new FormatTrackingHSSFListener(forwarder);
+            forwarder.formatListener = formatListener;
+            // Collects the records needed to turn parsed formulas back into text
+            SheetRecordCollectingListener workbookBuilder = new SheetRecordCollectingListener(
+                new MissingRecordAwareHSSFListener(formatListener));
+            forwarder.workbookBuilder = workbookBuilder;
+
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(new StoppableListener(workbookBuilder, forwarder));
+            new HSSFEventFactory().abortableProcessWorkbookEvents(request, fs);
+
+            if (forwarder.failure != null) {
+                throw forwarder.failure;
+            }
+        } catch (HSSFUserException e) {
+            throw new IOException("Error reading Excel file: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            // Malformed records surface as unchecked exceptions from the record factory
+            throw new IOException("Error reading Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Outermost listener: passes every record down the listener chain and aborts
+     * parsing once the forwarder is done or a handler has failed
+     */
+    private static class StoppableListener extends AbortableHSSFListener {
+        private final HSSFListener delegate;
+        private final RecordForwarder forwarder;
+
+        StoppableListener(HSSFListener delegate, RecordForwarder forwarder) {
+            this.delegate = delegate;
+            this.forwarder = forwarder;
+        }
+
+        @Override
+        public short abortableProcessRecord(Record record) {
+            delegate.processRecord(record);
+            return (short) (forwarder.done || forwarder.failure != null ? 1 : 0);
+        }
+    }
+
+    /**
+     * Turns the cell records of each sheet into rows. The cell list is reused
+     * between rows so only one row is ever buffered.
+     */
+    private static class RecordForwarder implements HSSFListener {
+        private final Supplier<SheetRowHandler> handlers;
+        private final boolean stopAfterFirstSheet;
+        private FormatTrackingHSSFListener formatListener;
+        private SheetRecordCollectingListener workbookBuilder;
+        private HSSFWorkbook stubWorkbook;
+        private boolean date1904;
+
+        private final List<BoundSheetRecord> boundSheets = new ArrayList<>();
+        private BoundSheetRecord[] sheetsInFileOrder;
+        private SSTRecord sharedStrings;
+        private int sheetIndex = -1;
+
+        private SheetRowHandler currentHandler;
+        private final List<String> currentRow = new ArrayList<>();
+        private boolean rowHasCells;
+        /** Shared formula groups of the current sheet, keyed by their first cell */
+        private final Map<Long, SharedFormulaRecord> sharedFormulas = new HashMap<>();
+        /** First cell of a shared formula group, read before the record defining the group */
+        private FormulaRecord pendingSharedFormula;
+
+        private boolean done;
+        private IOException failure;
+
+        RecordForwarder(Supplier<SheetRowHandler> handlers, boolean stopAfterFirstSheet) {
+            this.handlers = handlers;
+            this.stopAfterFirstSheet = stopAfterFirstSheet;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (done || failure != null) {
+                return;
+            }
+            try {
+                handle(record);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        private void handle(Record record) throws IOException {
+            if (record instanceof BoundSheetRecord) {
+                boundSheets.add((BoundSheetRecord) record);
+            } else if (record instanceof SSTRecord) {
+                sharedStrings = (SSTRecord) record;
+            } else if (record instanceof DateWindow1904Record) {
+                date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+            } else if (record instanceof BOFRecord) {
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                    startSheet();
+                }
+            } else if (record instanceof EOFRecord) {
+                endSheet();
+            } else if (currentHandler != null) {
+                handleSheetRecord(record);
+            }
+        }
+
+        private void startSheet() throws IOException {
+            if (sheetsInFileOrder == null) {
+                sheetsInFileOrder = BoundSheetRecord.orderByBofPosition(boundSheets);
+            }
+            sheetIndex++;
+            currentHandler = handlers.get();
+            currentRow.clear();
+            rowHasCells = false;
+            sharedFormulas.clear();
+            pendingSharedFormula = null;
+            if (currentHandler != null) {
+                String sheetName = sheetIndex < sheetsInFileOrder.length
+                    ? sheetsInFileOrder[sheetIndex].getSheetname()
+                    : "Sheet" + (sheetIndex + 1);
+                currentHandler.startSheet(sheetName);
+            }
+        }
+
+        private void endSheet() throws IOException {
+            if (currentHandler == null) {
+                // End of the workbook globals or of a skipped sheet
+                return;
+            }
+            currentHandler.endSheet();
+            currentHandler = null;
+            if (stopAfterFirstSheet) {
+                done = true;
+            }
+        }
+
+        private void handleSheetRecord(Record record) throws IOException {
+            if (record instanceof LabelSSTRecord) {
+                LabelSSTRecord label = (LabelSSTRecord) record;
+                setCell(label.getColumn(), sharedStrings != null
+                    ? sharedStrings.getString(label.getSSTIndex()).getString() : "");
+            } else if (record instanceof LabelRecord) {
+                LabelRecord label = (LabelRecord) record;
+                setCell(label.getColumn(), label.getValue());
+            } else if (record instanceof NumberRecord) {
+                NumberRecord number = (NumberRecord) record;
+                setCell(number.getColumn(), CellValueFormatter.formatNumber(number.getValue(),
+                    formatListener.getFormatIndex(number), formatListener.getFormatString(number), date1904));
+            } else if (record instanceof FormulaRecord) {
+                FormulaRecord formula = (FormulaRecord) record;
+                setCell(formula.getColumn(), formulaText(formula));
+            } else if (record instanceof SharedFormulaRecord) {
+                SharedFormulaRecord shared = (SharedFormulaRecord) record;
+                sharedFormulas.put(cellKey(shared.getFirstRow(), shared.getFirstColumn()), shared);
+                // The group's formula follows its first cell, which read as empty until now
+                if (pendingSharedFormula != null
+                        && shared.isInRange(pendingSharedFormula.getRow(), pendingSharedFormula.getColumn())) {
+                    setCell(pendingSharedFormula.getColumn(), formulaText(pendingSharedFormula));
+                }
+                pendingSharedFormula = null;
+            } else if (record instanceof BoolErrRecord) {
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                // Error cells read as missing, as in the workbook reader
+                setCell(boolErr.getColumn(), boolErr.isBoolean() ? String.valueOf(boolErr.getBooleanValue()) : null);
+            } else if (record instanceof BlankRecord) {
+                setCell(((BlankRecord) record).getColumn(), "");
+            } else if (record instanceof LastCellOfRowDummyRecord) {
+                endRow(((LastCellOfRowDummyRecord) record).getRow());
+            }
+        }
+
+        /**
+         * @return the formula text, or an empty string for an array formula cell or a shared
+         * formula cell whose group has not been read yet
+         */
+        private String formulaText(FormulaRecord formula) {
+            if (stubWorkbook == null) {
+                stubWorkbook = workbookBuilder.getStubHSSFWorkbook();
+            }
+            Ptg[] tokens = formula.getParsedExpression();
+            if (formula.isSharedFormula() && tokens.length == 1 && tokens[0] instanceof ExpPtg) {
+                // The cell only refers to the first cell of its group
+                ExpPtg first = (ExpPtg) tokens[0];
+                SharedFormulaRecord shared = sharedFormulas.get(cellKey(first.getRow(), first.getColumn()));
+                if (shared == null) {
+                    pendingSharedFormula = formula;
+                    return "";
+                }
+                tokens = shared.getFormulaTokens(formula);
+            }
+            try {
+                return HSSFFormulaParser.toFormulaString(stubWorkbook, tokens);
+            } catch (RuntimeException e) {
+                // Array formulas only hold a reference to the defining cell
+                return "";
+            }
+        }
+
+        private static long cellKey(int row, int column) {
+            return ((long) row << 16) | column;
+        }
+
+        /**
+         * @param value Cell value, or null for a cell that reads as missing
+         */
+        private void setCell(int column, String value) {
+            while (currentRow.size() < column) {
+                currentRow.add(null);
+            }
+            if (column < currentRow.size()) {
+                currentRow.set(column, value);
+            } else {
+                currentRow.add(value);
+            }
+            rowHasCells = true;
+        }
+
+        private void endRow(int rowNum) throws IOException {
+            if (rowHasCells) {
+                currentHandler.handleRow(rowNum, currentRow);
+            }
+            currentRow.clear();
+            rowHasCells = false;
+        }
+    }
+}
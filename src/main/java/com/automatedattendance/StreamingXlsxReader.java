@@ -0,0 +1,517 @@
+package com.automatedattendance;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * StreamingXlsxReader reads .xlsx files through POI's event model
+ * (XSSFReader + shared strings + SAX sheet handler). Only the row currently
+ * being parsed is held in memory; every row is handed to a {@link SheetRowHandler}.
+ *
+ * Numeric cells are formatted by a {@link CellValueFormatter}, formula cells
+ * yield their formula text and booleans "true"/"false", as
+ * {@link FlexibleExcelReader#getCellValueAsString} does for a loaded workbook.
+ * Cells that reuse a shared formula yield the defining cell's formula with its
+ * relative references moved to the reusing cell.
+ */
+public class StreamingXlsxReader {
+
+    /** A1-style cell reference, e.g. B7 or $B$7 */
+    private static final Pattern CELL_REFERENCE = Pattern.compile("(\\$?)([A-Za-z]{1,3})(\\$?)([0-9]{1,7})");
+    /** Column of a whole-column range, e.g. the A in A:C */
+    private static final Pattern COLUMN_REFERENCE = Pattern.compile("(\\$?)([A-Za-z]{1,3})");
+    /** Row of a whole-row range, e.g. the 1 in 1:3 */
+    private static final Pattern ROW_REFERENCE = Pattern.compile("(\\$?)([0-9]{1,7})");
+
+    /**
+     * Streams the rows of the first sheet of an .xlsx file to the given handler
+     * @param filePath Path to the .xlsx file
+     * @param handler Receiver of the sheet rows
+     * @throws IOException if the file cannot be opened or parsed, or the handler fails
+     */
+    public static void readFirstSheet(String filePath, SheetRowHandler handler) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new IOException("File does not exist: " + filePath);
+        }
+
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            StylesTable styles = xssfReader.getStylesTable();
+            boolean date1904 = isDate1904(xssfReader);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+
+            if (!sheets.hasNext()) {
+                throw new IOException("Excel file contains no sheets");
+            }
+
+            try (InputStream sheetStream = sheets.next()) {
+                parseSheet(sheets.getSheetName(), sheetStream, sharedStrings, styles, date1904, handler);
+            }
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException("Error reading Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streams every sheet of an .xlsx file to its own handler, parsing the sheets concurrently.
+     * The shared strings and styles are loaded once and shared (read-only) by all sheets;
+     * each sheet is parsed from its own package part stream on the given pool.
+     * @param filePath Path to the .xlsx file
+     * @param handlerFactory Creates one handler per sheet
+     * @param pool Pool the sheets are parsed on
+     * @return the handlers in workbook sheet order, each having received its sheet's rows
+     * @throws IOException if the file cannot be opened or parsed, or a handler fails
+     */
+    public static <H extends SheetRowHandler> List<H> readAllSheets(String filePath, Supplier<H> handlerFactory,
+                                                                    ForkJoinPool pool) throws IOException {
+        File file = new File(filePath);
+        if (!file.exists()) {
+            throw new IOException("File does not exist: " + filePath);
+        }
+
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader xssfReader = new XSSFReader(pkg);
+            StylesTable styles = xssfReader.getStylesTable();
+            boolean date1904 = isDate1904(xssfReader);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+
+            // The iterator opens a stream per sheet; close those and let every task open its own part
+            List<String> sheetNames = new ArrayList<>();
+            List<PackagePart> sheetParts = new ArrayList<>();
+            while (sheets.hasNext()) {
+                InputStream iteratorStream = sheets.next();
+                try {
+                    sheetNames.add(sheets.getSheetName());
+                    sheetParts.add(sheets.getSheetPart());
+                } finally {
+                    iteratorStream.close();
+                }
+            }
+            if (sheetParts.isEmpty()) {
+                throw new IOException("Excel file contains no sheets");
+            }
+
+            List<H> handlers = new ArrayList<>(sheetParts.size());
+            List<Callable<Void>> tasks = new ArrayList<>(sheetParts.size());
+            for (int i = 0; i < sheetParts.size(); i++) {
+                H handler = handlerFactory.get();
+                handlers.add(handler);
+                String sheetName = sheetNames.get(i);
+                PackagePart part = sheetParts.get(i);
+                tasks.add(() -> {
+                    try (InputStream sheetStream = part.getInputStream()) {
+                        parseSheet(sheetName, sheetStream, sharedStrings, styles, date1904, handler);
+                    }
+                    return null;
+                });
+            }
+
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                try {
+                    result.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException("Error reading Excel sheet: " + cause.getMessage(), cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while reading Excel sheets", e);
+                }
+            }
+            return handlers;
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException("Error reading Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Parses a single sheet XML stream, forwarding each row to the handler
+     * @param date1904 Whether the workbook uses the 1904 date system
+     */
+    static void parseSheet(String sheetName, InputStream sheetStream, ReadOnlySharedStringsTable sharedStrings,
+                           StylesTable styles, boolean date1904, SheetRowHandler handler) throws IOException, SAXException {
+        handler.startSheet(sheetName);
+
+        RowForwarder forwarder = new RowForwarder(handler);
+        XMLReader parser;
+        try {
+            parser = XMLHelper.newXMLReader();
+        } catch (ParserConfigurationException e) {
+            throw new IOException("Could not create XML parser: " + e.getMessage(), e);
+        }
+        parser.setContentHandler(new CellTracker(new XSSFSheetXMLHandler(styles, sharedStrings, forwarder,
+            new CellValueFormatter(date1904), true), forwarder));
+
+        try {
+            parser.parse(new InputSource(sheetStream));
+        } catch (RowHandlingException e) {
+            throw e.getCause();
+        }
+
+        handler.endSheet();
+    }
+
+    /**
+     * Reads the date1904 flag from the workbook part (workbookPr element)
+     */
+    private static boolean isDate1904(XSSFReader xssfReader) throws IOException, OpenXML4JException, SAXException {
+        XMLReader parser;
+        try {
+            parser = XMLHelper.newXMLReader();
+        } catch (ParserConfigurationException e) {
+            throw new IOException("Could not create XML parser: " + e.getMessage(), e);
+        }
+        boolean[] date1904 = new boolean[1];
+        parser.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startElement(String uri, String localName, String qName, Attributes attributes) {
+                if ("workbookPr".equals(localName)) {
+                    String value = attributes.getValue("date1904");
+                    date1904[0] = "1".equals(value) || "true".equalsIgnoreCase(value);
+                }
+            }
+        });
+        try (InputStream workbookStream = xssfReader.getWorkbookData()) {
+            parser.parse(new InputSource(workbookStream));
+        }
+        return date1904[0];
+    }
+
+    /**
+     * Moves the relative cell references of a shared formula by the offset between the
+     * first cell of the shared range and the cell reusing it, as Excel does when filling
+     * a formula. String literals, quoted sheet names, bracketed parts, function and sheet
+     * names and absolute ($) parts are kept; a reference moved off the sheet becomes #REF!.
+     * @param formula Formula text of the defining cell
+     * @param rowDelta Rows between the first cell of the shared range and the reusing cell
+     * @param columnDelta Columns between the first cell of the shared range and the reusing cell
+     * @return the formula of the reusing cell
+     */
+    static String shiftFormula(String formula, int rowDelta, int columnDelta) {
+        if (rowDelta == 0 && columnDelta == 0) {
+            return formula;
+        }
+        int length = formula.length();
+        StringBuilder shifted = new StringBuilder(length + 8);
+        int i = 0;
+        while (i < length) {
+            char c = formula.charAt(i);
+            if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < length) {
+                    if (formula.charAt(end) == c) {
+                        // A doubled quote is an escaped quote inside the literal
+                        if (end + 1 < length && formula.charAt(end + 1) == c) {
+                            end += 2;
+                            continue;
+                        }
+                        end++;
+                        break;
+                    }
+                    end++;
+                }
+                shifted.append(formula, i, end);
+                i = end;
+            } else if (c == '[') {
+                // External workbook index or structured table reference, possibly nested
+                int depth = 0;
+                int end = i;
+                while (end < length) {
+                    char b = formula.charAt(end++);
+                    if (b == '[') {
+                        depth++;
+                    } else if (b == ']' && --depth == 0) {
+                        break;
+                    }
+                }
+                shifted.append(formula, i, end);
+                i = end;
+            } else if (isNameChar(c)) {
+                int end = i + 1;
+                while (end < length && isNameChar(formula.charAt(end))) {
+                    end++;
+                }
+                char before = i > 0 ? formula.charAt(i - 1) : 0;
+                char after = end < length ? formula.charAt(end) : 0;
+                shifted.append(shiftReference(formula.substring(i, end), before, after, rowDelta, columnDelta));
+                i = end;
+            } else {
+                shifted.append(c);
+                i++;
+            }
+        }
+        return shifted.toString();
+    }
+
+    /**
+     * @param token A run of name characters from a formula
+     * @param before The character preceding the token, or 0
+     * @param after The character following the token, or 0
+     * @return the token moved by the offset if it is a relative reference, otherwise the token itself
+     */
+    private static String shiftReference(String token, char before, char after, int rowDelta, int columnDelta) {
+        if (after == '(' || after == '!') {
+            // Function or sheet name
+            return token;
+        }
+        SpreadsheetVersion version = SpreadsheetVersion.EXCEL2007;
+        Matcher cell = CELL_REFERENCE.matcher(token);
+        if (cell.matches()) {
+            int column = CellReference.convertColStringToIndex(cell.group(2));
+            int row = Integer.parseInt(cell.group(4)) - 1;
+            if (column > version.getLastColumnIndex() || row > version.getLastRowIndex()) {
+                // A defined name such as TAX2020 past the last column, not a cell
+                return token;
+            }
+            column += cell.group(1).isEmpty() ? columnDelta : 0;
+            row += cell.group(3).isEmpty() ? rowDelta : 0;
+            if (column < 0 || column > version.getLastColumnIndex() || row < 0 || row > version.getLastRowIndex()) {
+                return "#REF!";
+            }
+            return cell.group(1) + CellReference.convertNumToColString(column) + cell.group(3) + (row + 1);
+        }
+        if (before != ':' && after != ':') {
+            return token;
+        }
+        Matcher wholeColumn = COLUMN_REFERENCE.matcher(token);
+        if (wholeColumn.matches()) {
+            int column = CellReference.convertColStringToIndex(wholeColumn.group(2));
+            if (column > version.getLastColumnIndex()) {
+                return token;
+            }
+            column += wholeColumn.group(1).isEmpty() ? columnDelta : 0;
+            if (column < 0 || column > version.getLastColumnIndex()) {
+                return "#REF!";
+            }
+            return wholeColumn.group(1) + CellReference.convertNumToColString(column);
+        }
+        Matcher wholeRow = ROW_REFERENCE.matcher(token);
+        if (wholeRow.matches()) {
+            int row = Integer.parseInt(wholeRow.group(2)) - 1 + (wholeRow.group(1).isEmpty() ? rowDelta : 0);
+            if (row < 0 || row > version.getLastRowIndex()) {
+                return "#REF!";
+            }
+            return wholeRow.group(1) + (row + 1);
+        }
+        return token;
+    }
+
+    private static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$' || c == '\\';
+    }
+
+    /**
+     * Passes the sheet XML to POI's handler while tracking each cell's type and formula,
+     * so the forwarder can format booleans and receives the formula text of every formula
+     * cell: POI's handler reports no cell for a formula without a cached value, the cached
+     * value for boolean and error results and nothing usable for a shared formula
+     */
+    private static class CellTracker extends DefaultHandler {
+        private final XSSFSheetXMLHandler delegate;
+        private final RowForwarder forwarder;
+        private final StringBuilder formula = new StringBuilder();
+        /** Shared formulas of the sheet by their si index, recorded at their defining cell */
+        private final Map<String, SharedFormula> sharedFormulas = new HashMap<>();
+        private String cellReference;
+        private boolean formulaOpen;
+        /** si of the shared formula the current cell defines or reuses, or null */
+        private String sharedIndex;
+        /** Shared range (ref) when the current cell defines a shared formula, or null */
+        private String sharedRange;
+
+        CellTracker(XSSFSheetXMLHandler delegate, RowForwarder forwarder) {
+            this.delegate = delegate;
+            this.forwarder = forwarder;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if ("c".equals(localName)) {
+                cellReference = attributes.getValue("r");
+                forwarder.cellType = attributes.getValue("t");
+                formula.setLength(0);
+                sharedIndex = null;
+                sharedRange = null;
+            } else if ("f".equals(localName)) {
+                formulaOpen = true;
+                if ("shared".equals(attributes.getValue("t"))) {
+                    sharedIndex = attributes.getValue("si");
+                    sharedRange = attributes.getValue("ref");
+                }
+            }
+            delegate.startElement(uri, localName, qName, attributes);
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            if ("f".equals(localName)) {
+                formulaOpen = false;
+            }
+            delegate.endElement(uri, localName, qName);
+            if ("c".equals(localName)) {
+                String text = cellFormula();
+                forwarder.cellType = null;
+                if (!text.isEmpty()) {
+                    // Formula cells read as their formula whatever the type of the cached result
+                    forwarder.cell(cellReference, text, null);
+                }
+            }
+        }
+
+        /**
+         * @return the formula of the cell that just ended, or an empty string for a cell without one
+         */
+        private String cellFormula() {
+            if (sharedIndex == null) {
+                return formula.toString();
+            }
+            if (sharedRange != null) {
+                CellRangeAddress range = CellRangeAddress.valueOf(sharedRange);
+                sharedFormulas.put(sharedIndex,
+                    new SharedFormula(formula.toString(), range.getFirstRow(), range.getFirstColumn()));
+                return formula.toString();
+            }
+            SharedFormula shared = sharedFormulas.get(sharedIndex);
+            if (shared == null || cellReference == null) {
+                return "";
+            }
+            CellReference cell = new CellReference(cellReference);
+            return shiftFormula(shared.text, cell.getRow() - shared.firstRow, cell.getCol() - shared.firstColumn);
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (formulaOpen) {
+                formula.append(ch, start, length);
+            }
+            delegate.characters(ch, start, length);
+        }
+    }
+
+    /**
+     * Formula text of the cell defining a shared formula and the first cell of the range sharing it
+     */
+    private static class SharedFormula {
+        private final String text;
+        private final int firstRow;
+        private final int firstColumn;
+
+        SharedFormula(String text, int firstRow, int firstColumn) {
+            this.text = text;
+            this.firstRow = firstRow;
+            this.firstColumn = firstColumn;
+        }
+    }
+
+    /**
+     * Collects the cells of the current row and forwards completed rows to the handler.
+     * The cell list is reused between rows so only one row is ever buffered.
+     */
+    private static class RowForwarder implements SheetContentsHandler {
+        private final SheetRowHandler handler;
+        private final List<String> currentRow = new ArrayList<>();
+        private boolean rowHasCells;
+        /** Type attribute of the cell being parsed, set by the {@link CellTracker} */
+        private String cellType;
+
+        RowForwarder(SheetRowHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            currentRow.clear();
+            rowHasCells = false;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (!rowHasCells) {
+                return;
+            }
+            try {
+                handler.handleRow(rowNum, currentRow);
+            } catch (IOException e) {
+                throw new RowHandlingException(e);
+            }
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null
+                ? new CellReference(cellReference).getCol()
+                : currentRow.size();
+            while (currentRow.size() < column) {
+                currentRow.add(null);
+            }
+            String value = formattedValue != null ? formattedValue : "";
+            if ("b".equals(cellType)) {
+                value = value.toLowerCase();
+            } else if ("e".equals(cellType)) {
+                // Error cells read as missing, as in the workbook reader
+                value = null;
+            }
+            if (column < currentRow.size()) {
+                currentRow.set(column, value);
+            } else {
+                currentRow.add(value);
+            }
+            rowHasCells = true;
+        }
+    }
+
+    /**
+     * Carries a handler IOException through the SAX callbacks, which cannot throw checked exceptions
+     */
+    private static class RowHandlingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        RowHandlingException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
@@ -2,13 +2,15 @@ package com.automatedattendance;
 
 /**
  * Student class to represent attendance data from Excel files.
- * Contains P.no, Name, Status, and optional Email fields.
+ * Contains P.no, Name, Status, and optional Email and Shop fields.
  */
 public class Student {
     private String pNo;      // P.no - student identifier
     private String name;     // Name - student name
     private String status;   // Status - attendance status (Present/Absent)
     private String email;    // Email - optional email field
+    private String shop;     // Shop - optional shop/department the student belongs to
+    private AttendanceStatus attendanceStatus = AttendanceStatus.UNKNOWN; // Status classified when it is set
     
     // Default constructor
     public Student() {
@@ -19,6 +21,7 @@ public class Student {
         this.pNo = pNo;
         this.name = name;
         this.status = status;
+        this.attendanceStatus = AttendanceStatus.of(status);
     }
     
     // Constructor with all fields
@@ -26,6 +29,7 @@ public class Student {
         this.pNo = pNo;
         this.name = name;
         this.status = status;
+        this.attendanceStatus = AttendanceStatus.of(status);
         this.email = email;
     }
     
@@ -46,6 +50,14 @@ public class Student {
         return email;
     }
     
+    public String getShop() {
+        return shop;
+    }
+    
+    public AttendanceStatus getAttendanceStatus() {
+        return attendanceStatus;
+    }
+    
     // Setters
     public void setPNo(String pNo) {
         this.pNo = pNo;
@@ -57,26 +69,39 @@ public class Student {
     
     public void setStatus(String status) {
         this.status = status;
+        this.attendanceStatus = AttendanceStatus.of(status);
     }
     
     public void setEmail(String email) {
         this.email = email;
     }
     
+    public void setShop(String shop) {
+        this.shop = shop;
+    }
+    
+    /**
+     * Overrides the classification derived from the status text, for readers that
+     * store a normalized status but classified the original cell value
+     */
+    public void setAttendanceStatus(AttendanceStatus attendanceStatus) {
+        this.attendanceStatus = attendanceStatus != null ? attendanceStatus : AttendanceStatus.UNKNOWN;
+    }
+    
     /**
      * Checks if the student's attendance status is marked as present
-     * @return true if status is "Present" (case-insensitive), false otherwise
+     * @return true if the status was classified as present when it was set
      */
     public boolean isPresent() {
-        return status != null && status.trim().equalsIgnoreCase("Present");
+        return attendanceStatus.countsAsPresent();
     }
     
     /**
      * Checks if the student's attendance status is marked as absent
-     * @return true if status is "Absent" (case-insensitive), false otherwise
+     * @return true if the status was classified as absent (including leave, sick, holiday and off)
      */
     public boolean isAbsent() {
-        return status != null && status.trim().equalsIgnoreCase("Absent");
+        return attendanceStatus.countsAsAbsent();
     }
     
     @Override
@@ -86,6 +111,7 @@ public class Student {
                 ", name='" + name + '\'' +
                 ", status='" + status + '\'' +
                 ", email='" + email + '\'' +
+                ", shop='" + shop + '\'' +
                 '}';
     }
     
@@ -99,7 +125,8 @@ public class Student {
         if (pNo != null ? !pNo.equals(student.pNo) : student.pNo != null) return false;
         if (name != null ? !name.equals(student.name) : student.name != null) return false;
         if (status != null ? !status.equals(student.status) : student.status != null) return false;
-        return email != null ? email.equals(student.email) : student.email == null;
+        if (email != null ? !email.equals(student.email) : student.email != null) return false;
+        return shop != null ? shop.equals(student.shop) : student.shop == null;
     }
     
     @Override
@@ -108,6 +135,7 @@ public class Student {
         result = 31 * result + (name != null ? name.hashCode() : 0);
         result = 31 * result + (status != null ? status.hashCode() : 0);
         result = 31 * result + (email != null ? email.hashCode() : 0);
+        result = 31 * result + (shop != null ? shop.hashCode() : 0);
         return result;
     }
 }
\ No newline at end of file
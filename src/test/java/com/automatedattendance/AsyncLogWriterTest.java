@@ -0,0 +1,117 @@
+package com.automatedattendance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncLogWriterTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int ROUNDS = 200;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void everyLineIsEitherWrittenOrRejectedWhileCloseRaces() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Path logFile = tempDir.resolve("race-" + round + ".log");
+            AsyncLogWriter writer = new AsyncLogWriter(logFile.toString(), 64, 1000, false);
+            Set<String> accepted = ConcurrentHashMap.newKeySet();
+            CountDownLatch started = new CountDownLatch(PRODUCERS);
+
+            List<Thread> producers = new ArrayList<>();
+            for (int p = 0; p < PRODUCERS; p++) {
+                int producer = p;
+                Thread thread = new Thread(() -> {
+                    started.countDown();
+                    for (int i = 0; ; i++) {
+                        String line = "producer-" + producer + "-line-" + i;
+                        if (!writer.append(line, false)) {
+                            break;
+                        }
+                        accepted.add(line);
+                    }
+                });
+                producers.add(thread);
+                thread.start();
+            }
+
+            started.await();
+            writer.close();
+            for (Thread thread : producers) {
+                thread.join(10000);
+            }
+
+            Set<String> lines = new HashSet<>(Files.readAllLines(logFile, StandardCharsets.UTF_8));
+            Set<String> lost = new HashSet<>(accepted);
+            lost.removeAll(lines);
+            Set<String> unexpected = new HashSet<>(lines);
+            unexpected.removeAll(accepted);
+            assertEquals(Set.of(), lost, "accepted but not written in round " + round);
+            assertEquals(Set.of(), unexpected, "rejected but written in round " + round);
+        }
+    }
+
+    @Test
+    void appendAfterCloseIsRejected() throws Exception {
+        Path logFile = tempDir.resolve("closed.log");
+        AsyncLogWriter writer = new AsyncLogWriter(logFile.toString(), 16, 1000, false);
+        assertTrue(writer.append("before close", false));
+        writer.close();
+
+        assertFalse(writer.append("after close", false));
+        assertEquals(List.of("before close"), Files.readAllLines(logFile, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void errorLinesAreWrittenWithoutWaitingForTheFlushInterval() throws Exception {
+        Path logFile = tempDir.resolve("errors.log");
+        AsyncLogWriter writer = new AsyncLogWriter(logFile.toString(), 16, 60000, true);
+        try {
+            writer.append("INFO: processing started", false);
+            Thread.sleep(300);
+            // Info lines wait in the write buffer for the flush interval
+            assertEquals(0, Files.size(logFile));
+
+            writer.append("ERROR: processing failed", true);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (Files.size(logFile) == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertEquals(List.of("INFO: processing started", "ERROR: processing failed"),
+                Files.readAllLines(logFile, StandardCharsets.UTF_8));
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    void errorLinesWaitForTheFlushIntervalWhenFlushOnErrorIsOff() throws Exception {
+        Path logFile = tempDir.resolve("no-flush-on-error.log");
+        AsyncLogWriter writer = new AsyncLogWriter(logFile.toString(), 16, 60000, false);
+        try {
+            writer.append("ERROR: processing failed", true);
+            Thread.sleep(300);
+
+            assertEquals(0, Files.size(logFile));
+        } finally {
+            writer.close();
+        }
+        assertEquals(List.of("ERROR: processing failed"), Files.readAllLines(logFile, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,146 @@
+package com.automatedattendance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Records that cross the reader's 64 KB read window are parsed again after a refill;
+ * these tests place the interesting bytes right at the window boundary.
+ */
+class CsvAttendanceReaderTest {
+
+    private static final int WINDOW = 64 * 1024;
+    private static final String HEADER = "P.no,Name,Status";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordStraddlingTheReadWindowIsReadWhole() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        int fillerRows = padTo(csv, WINDOW - 10, "\n");
+        csv.append("123456,Straddling Name,Absent\n");
+        csv.append("123457,Next Name,Present\n");
+
+        List<Row> rows = read(csv, "straddle.csv");
+
+        Row straddling = rows.get(fillerRows + 1);
+        assertEquals(Arrays.asList("123456", "Straddling Name", "Absent"), straddling.values);
+        assertEquals(fillerRows + 1, straddling.rowNum);
+        assertEquals(Arrays.asList("123457", "Next Name", "Present"), rows.get(fillerRows + 2).values);
+        assertEquals(fillerRows + 3, rows.size());
+    }
+
+    @Test
+    void quotedFieldWithANewlineAcrossTheWindowIsReadWhole() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append('\n');
+        // The embedded newline is the first byte of the second window
+        int fillerRows = padTo(csv, WINDOW - "123456,\"Line one".length(), "\n");
+        csv.append("123456,\"Line one\nLine two\",Absent\n");
+        csv.append("123457,Next Name,Present\n");
+        assertEquals('\n', csv.charAt(WINDOW));
+
+        List<Row> rows = read(csv, "quoted.csv");
+
+        assertEquals(Arrays.asList("123456", "Line one\nLine two", "Absent"), rows.get(fillerRows + 1).values);
+        assertEquals(Arrays.asList("123457", "Next Name", "Present"), rows.get(fillerRows + 2).values);
+        assertEquals(fillerRows + 3, rows.size());
+    }
+
+    @Test
+    void crlfSplitAcrossTwoReadsEndsOneRecord() throws IOException {
+        StringBuilder csv = new StringBuilder(HEADER).append("\r\n");
+        // The record's \r is the last byte of the first window and its \n the first of the second
+        int fillerRows = padTo(csv, WINDOW - "123456,Split Name,Absent".length() - 1, "\r\n");
+        csv.append("123456,Split Name,Absent\r\n");
+        csv.append("123457,Next Name,Present\r\n");
+        assertEquals('\r', csv.charAt(WINDOW - 1));
+        assertEquals('\n', csv.charAt(WINDOW));
+
+        List<Row> rows = read(csv, "crlf.csv");
+
+        assertEquals(Arrays.asList("123456", "Split Name", "Absent"), rows.get(fillerRows + 1).values);
+        Row next = rows.get(fillerRows + 2);
+        assertEquals(Arrays.asList("123457", "Next Name", "Present"), next.values);
+        // No empty record between the two
+        assertEquals(fillerRows + 2, next.rowNum);
+        assertEquals(fillerRows + 3, rows.size());
+    }
+
+    @Test
+    void recordLargerThanTheReadBufferIsReadWhole() throws IOException {
+        char[] remarks = new char[3 * WINDOW];
+        Arrays.fill(remarks, 'r');
+        StringBuilder csv = new StringBuilder("P.no,Name,Status,Remarks\n");
+        csv.append("123455,Before,Present,short\n");
+        csv.append("123456,Large Record,Absent,\"").append(remarks).append("\"\n");
+        csv.append("123457,After,Present,short\n");
+
+        List<Row> rows = read(csv, "large.csv");
+
+        assertEquals(4, rows.size());
+        assertEquals(Arrays.asList("123456", "Large Record", "Absent", new String(remarks)), rows.get(2).values);
+        assertEquals(Arrays.asList("123457", "After", "Present", "short"), rows.get(3).values);
+    }
+
+    /**
+     * Appends filler records until the text is exactly the given length
+     * @return the number of filler records appended
+     */
+    private static int padTo(StringBuilder csv, int length, String lineEnd) {
+        String filler = "100000,Filler Name,Present" + lineEnd;
+        int rows = 0;
+        while (length - csv.length() > 2 * filler.length()) {
+            csv.append(filler);
+            rows++;
+        }
+        // One last record whose name takes up the rest
+        int nameLength = length - csv.length() - "100001,,Present".length() - lineEnd.length();
+        char[] name = new char[nameLength];
+        Arrays.fill(name, 'n');
+        csv.append("100001,").append(name).append(",Present").append(lineEnd);
+        assertEquals(length, csv.length());
+        return rows + 1;
+    }
+
+    private List<Row> read(CharSequence csv, String fileName) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+        List<Row> rows = new ArrayList<>();
+        CsvAttendanceReader.readRows(file.toString(), new SheetRowHandler() {
+            @Override
+            public void startSheet(String sheetName) {
+            }
+
+            @Override
+            public void handleRow(int rowNum, List<String> cellValues) {
+                rows.add(new Row(rowNum, new ArrayList<>(cellValues)));
+            }
+
+            @Override
+            public void endSheet() {
+            }
+        });
+        return rows;
+    }
+
+    private static class Row {
+        private final int rowNum;
+        private final List<String> values;
+
+        Row(int rowNum, List<String> values) {
+            this.rowNum = rowNum;
+            this.values = values;
+        }
+    }
+}
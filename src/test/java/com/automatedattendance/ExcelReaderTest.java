@@ -0,0 +1,93 @@
+package com.automatedattendance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExcelReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ExcelReader reader = new ExcelReader();
+
+    @Test
+    void csvRowsAreReadStraightIntoACompactRoster() throws IOException {
+        Path file = write("roster.csv", "P.no,Name,Status,Email\n"
+            + "1001,Asha,Present,asha@example.com\n"
+            + "1002,Ravi,Sick Leave,\n"
+            + "1003,Meena,Absent,meena@example.com\n");
+
+        ExcelReadResult<CompactRoster> result = reader.readAndValidateCompactRoster(file.toString());
+
+        assertTrue(result.isValid(), result.getErrorMessage());
+        CompactRoster roster = result.getData();
+        assertEquals(3, roster.size());
+        assertEquals("1002", roster.getPNo(1));
+        assertEquals("Ravi", roster.getName(1));
+        assertEquals("Sick Leave", roster.getStatus(1));
+        assertEquals(AttendanceStatus.of("Sick Leave"), roster.getAttendanceStatus(1));
+        assertNull(roster.getEmail(1));
+        assertEquals(1, roster.countPresent());
+        assertEquals(2, roster.countAbsent());
+    }
+
+    @Test
+    void xlsxRowsAreReadStraightIntoACompactRoster() throws IOException {
+        Path file = tempDir.resolve("roster.xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Attendance");
+            String[][] values = {
+                {"P.no", "Name", "Status"},
+                {"1001", "Asha", "Present"},
+                {"1002", "Ravi", "Absent"}
+            };
+            for (int i = 0; i < values.length; i++) {
+                Row row = sheet.createRow(i);
+                for (int j = 0; j < values[i].length; j++) {
+                    row.createCell(j).setCellValue(values[i][j]);
+                }
+            }
+            workbook.write(out);
+        }
+
+        ExcelReadResult<CompactRoster> result = reader.readAndValidateCompactRoster(file.toString());
+
+        assertTrue(result.isValid(), result.getErrorMessage());
+        assertEquals(2, result.getData().size());
+        assertEquals("Ravi", result.getData().absentStudents().get(0).getName());
+    }
+
+    @Test
+    void compactRosterReadAppliesTheSameValidation() throws IOException {
+        Path missingColumn = write("missing.csv", "P.no,Name\n1001,Asha\n");
+        Path emptyName = write("empty.csv", "P.no,Name,Status\n1001,Asha,Present\n1002,,Absent\n");
+
+        ExcelReadResult<CompactRoster> missing = reader.readAndValidateCompactRoster(missingColumn.toString());
+        ExcelReadResult<CompactRoster> empty = reader.readAndValidateCompactRoster(emptyName.toString());
+
+        assertFalse(missing.isValid());
+        assertEquals("Missing required columns. Required: P.no, Name, Status", missing.getErrorMessage());
+        assertFalse(empty.isValid());
+        assertEquals("Invalid data at row 3: Name cannot be empty", empty.getErrorMessage());
+    }
+
+    private Path write(String fileName, String content) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,74 @@
+package com.automatedattendance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+class RollingAttendanceAnalyticsTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void snapshotHoldsTheWindowRatesAndAbsentees() {
+        RollingAttendanceAnalytics analytics = new RollingAttendanceAnalytics(2);
+        analytics.addDay(START, "day1.xlsx", List.of(student("1", "Absent", "North"), student("2", "Present", "South")));
+        analytics.addDay(START.plusDays(1), "day2.xlsx", List.of(student("1", "Absent", "North"), student("2", "Absent", "South")));
+        analytics.addDay(START.plusDays(2), "day3.xlsx", List.of(student("1", "Absent", "North"), student("3", "Present", "North")));
+
+        RollingAttendanceAnalytics.WindowSnapshot snapshot = analytics.snapshot(2);
+
+        assertEquals(List.of(START.plusDays(1), START.plusDays(2)), snapshot.getDates());
+        assertEquals(1, snapshot.getFrequentAbsentees().size());
+        assertEquals("1", snapshot.getFrequentAbsentees().get(0).getPNo());
+
+        assertEquals(2, snapshot.getShops().size());
+        RollingAttendanceAnalytics.ShopWindowStats north = snapshot.getShops().get(0);
+        assertEquals("North", north.getShop());
+        assertEquals(3, north.getWindow().getTotalCount());
+        assertEquals(0.0, north.getOldestDay().getAttendanceRate());
+        assertEquals(50.0, north.getLatestDay().getAttendanceRate());
+        // South only had rows on the day that is still in the window
+        RollingAttendanceAnalytics.ShopWindowStats south = snapshot.getShops().get(1);
+        assertEquals(south.getOldestDay().getAttendanceRate(), south.getLatestDay().getAttendanceRate());
+    }
+
+    @Test
+    void everyShopInASnapshotHasDaysWhileOtherThreadsEvictThem() throws Exception {
+        RollingAttendanceAnalytics analytics = new RollingAttendanceAnalytics(1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            // Each day has a different shop, so every new day evicts the only shop of the previous one
+            for (int i = 0; i < 20000; i++) {
+                analytics.addDay(START.plusDays(i), "day.xlsx", List.of(student("1", "Present", "Shop " + i)));
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        while (!done.get() && failure.get() == null) {
+            try {
+                for (RollingAttendanceAnalytics.ShopWindowStats shop : analytics.snapshot(1).getShops()) {
+                    assertEquals(shop.getShop(), shop.getLatestDay().getShop());
+                }
+            } catch (Throwable t) {
+                failure.set(t);
+            }
+        }
+        writer.join();
+
+        assertNull(failure.get());
+    }
+
+    private static Student student(String pNo, String status, String shop) {
+        Student student = new Student(pNo, "Employee " + pNo, status);
+        student.setShop(shop);
+        return student;
+    }
+}
@@ -0,0 +1,131 @@
+package com.automatedattendance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.function.LongSupplier;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SmtpConnectionPoolTest {
+
+    private SmtpStubServer server;
+    private SmtpConnectionPool pool;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        server = new SmtpStubServer();
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        if (pool != null) {
+            pool.close();
+        }
+        server.close();
+    }
+
+    @Test
+    void reusesOneConnectionForConsecutiveMessages() throws Exception {
+        pool = newPool(60000L, 60000L);
+
+        for (int i = 0; i < 5; i++) {
+            pool.send(message());
+        }
+
+        assertEquals(5, server.getMessagesReceived());
+        assertEquals(1, server.getConnectionsAccepted());
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    @Test
+    void closesConnectionsIdleLongerThanTheIdleTimeout() throws Exception {
+        pool = newPool(100L, 60000L);
+        pool.send(message());
+        assertEquals(1, pool.getIdleCount());
+
+        Thread.sleep(200);
+        pool.evictIdleConnections();
+
+        assertEquals(0, pool.getIdleCount());
+        awaitAtLeast(1, server::getConnectionsClosed);
+
+        pool.send(message());
+        assertEquals(2, server.getConnectionsAccepted());
+    }
+
+    @Test
+    void checksConnectionsIdleLongerThanTheValidationIntervalWithNoop() throws Exception {
+        pool = newPool(60000L, 100L);
+        pool.send(message());
+        pool.send(message());
+        assertEquals(0, server.getNoopsReceived());
+
+        Thread.sleep(200);
+        pool.send(message());
+
+        assertEquals(1, server.getNoopsReceived());
+        assertEquals(1, server.getConnectionsAccepted());
+        assertEquals(3, server.getMessagesReceived());
+    }
+
+    @Test
+    void replacesAnIdleConnectionThatFailsTheNoopCheck() throws Exception {
+        pool = newPool(60000L, 100L);
+        pool.send(message());
+        server.dropConnections();
+        awaitAtLeast(1, server::getConnectionsClosed);
+
+        Thread.sleep(200);
+        pool.send(message());
+
+        assertEquals(2, server.getConnectionsAccepted());
+        assertEquals(2, server.getMessagesReceived());
+    }
+
+    @Test
+    void retriesOnAFreshConnectionWhenThePooledOneIsDead() throws Exception {
+        // No NOOP check before reuse, so the dead connection is only noticed when sending
+        pool = newPool(60000L, 60000L);
+        pool.send(message());
+        server.dropConnections();
+        awaitAtLeast(1, server::getConnectionsClosed);
+
+        pool.send(message());
+
+        assertEquals(2, server.getConnectionsAccepted());
+        assertEquals(2, server.getMessagesReceived());
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(0, pool.getActiveCount());
+    }
+
+    private SmtpConnectionPool newPool(long idleTimeoutMillis, long validationIntervalMillis) {
+        return new SmtpConnectionPool("localhost", server.getPort(), null, null, false,
+            2, idleTimeoutMillis, validationIntervalMillis, 5000L);
+    }
+
+    private MimeMessage message() throws MessagingException {
+        MimeMessage message = new MimeMessage(pool.getSession());
+        message.setFrom(new InternetAddress("sender@example.com"));
+        message.setRecipient(Message.RecipientType.TO, new InternetAddress("manager@example.com"));
+        message.setSubject("Attendance Summary Report");
+        message.setText("Report");
+        return message;
+    }
+
+    private static void awaitAtLeast(long expected, LongSupplier counter) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (counter.getAsLong() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(counter.getAsLong() >= expected, "expected at least " + expected + " but was " + counter.getAsLong());
+    }
+}
@@ -0,0 +1,148 @@
+package com.automatedattendance;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process SMTP server that accepts and discards every message.
+ * It speaks just enough of RFC 5321 (EHLO, MAIL, RCPT, DATA, RSET, NOOP, QUIT)
+ * for Jakarta Mail to deliver over plain, unauthenticated connections, and
+ * counts connections, NOOPs and messages so tests can check how a client uses it.
+ * Also used by the send benchmark in the benchmarks module.
+ */
+public final class SmtpStubServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "smtp-stub");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final AtomicLong connectionsAccepted = new AtomicLong();
+    private final AtomicLong connectionsClosed = new AtomicLong();
+    private final AtomicLong noopsReceived = new AtomicLong();
+    private final AtomicLong messagesReceived = new AtomicLong();
+
+    public SmtpStubServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        connections.execute(this::acceptLoop);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return the number of connections accepted so far
+     */
+    public long getConnectionsAccepted() {
+        return connectionsAccepted.get();
+    }
+
+    /**
+     * @return the number of connections that have ended, by QUIT, client close or {@link #dropConnections()}
+     */
+    public long getConnectionsClosed() {
+        return connectionsClosed.get();
+    }
+
+    public long getNoopsReceived() {
+        return noopsReceived.get();
+    }
+
+    public long getMessagesReceived() {
+        return messagesReceived.get();
+    }
+
+    /**
+     * Closes every open client connection without a reply, as a server dropping idle clients does
+     */
+    public void dropConnections() throws IOException {
+        for (Socket socket : openSockets) {
+            socket.close();
+        }
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionsAccepted.incrementAndGet();
+                openSockets.add(socket);
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                // Server socket closed
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII))) {
+            OutputStream out = s.getOutputStream();
+            reply(out, "220 localhost SMTP stub ready");
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO":
+                        reply(out, "250-localhost\r\n250 8BITMIME");
+                        break;
+                    case "HELO":
+                        reply(out, "250 localhost");
+                        break;
+                    case "DATA":
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Discard message content
+                        }
+                        messagesReceived.incrementAndGet();
+                        reply(out, "250 OK queued");
+                        break;
+                    case "NOOP":
+                        noopsReceived.incrementAndGet();
+                        reply(out, "250 OK");
+                        break;
+                    case "QUIT":
+                        reply(out, "221 Bye");
+                        return;
+                    default:
+                        // MAIL, RCPT and RSET
+                        reply(out, "250 OK");
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            // Client went away or the connection was dropped
+        } finally {
+            openSockets.remove(socket);
+            connectionsClosed.incrementAndGet();
+        }
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+        connections.shutdownNow();
+    }
+}
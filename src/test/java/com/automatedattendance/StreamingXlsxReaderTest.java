@@ -0,0 +1,60 @@
+package com.automatedattendance;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.poi.xssf.model.StylesTable;
+import org.junit.jupiter.api.Test;
+
+class StreamingXlsxReaderTest {
+
+    @Test
+    void cellsReusingASharedFormulaReadAsTheMovedFormula() throws Exception {
+        String sheet = "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+            + "<row r=\"1\"><c r=\"A1\"><v>1</v></c>"
+            + "<c r=\"B1\"><f t=\"shared\" ref=\"B1:B3\" si=\"0\">A1*$A$1+SUM(A$1:A1)</f><v>2</v></c></row>"
+            + "<row r=\"2\"><c r=\"A2\"><v>2</v></c><c r=\"B2\"><f t=\"shared\" si=\"0\"/><v>6</v></c></row>"
+            + "<row r=\"3\"><c r=\"A3\"><v>3</v></c><c r=\"B3\" t=\"b\"><f t=\"shared\" si=\"0\"/><v>1</v></c></row>"
+            + "</sheetData></worksheet>";
+
+        List<List<String>> rows = parse(sheet);
+
+        assertEquals(Arrays.asList("1", "A1*$A$1+SUM(A$1:A1)"), rows.get(0));
+        assertEquals(Arrays.asList("2", "A2*$A$1+SUM(A$1:A2)"), rows.get(1));
+        assertEquals(Arrays.asList("3", "A3*$A$1+SUM(A$1:A3)"), rows.get(2));
+    }
+
+    @Test
+    void shiftFormulaMovesOnlyRelativeReferences() {
+        assertEquals("C3+$A$1+B$1+$A3", StreamingXlsxReader.shiftFormula("B2+$A$1+A$1+$A2", 1, 1));
+        assertEquals("COUNT(B:B)+ROWS(3:4)", StreamingXlsxReader.shiftFormula("COUNT(A:A)+ROWS(1:2)", 2, 1));
+        assertEquals("LOG10(B2)&\"A1\"&'Sheet A1'!B2", StreamingXlsxReader.shiftFormula("LOG10(A1)&\"A1\"&'Sheet A1'!A1", 1, 1));
+        assertEquals("Table1[[#This Row],[A1]]+B1", StreamingXlsxReader.shiftFormula("Table1[[#This Row],[A1]]+A1", 0, 1));
+        assertEquals("1.5E+3*#REF!", StreamingXlsxReader.shiftFormula("1.5E+3*A2", -2, 0));
+    }
+
+    private static List<List<String>> parse(String sheetXml) throws Exception {
+        List<List<String>> rows = new ArrayList<>();
+        StreamingXlsxReader.parseSheet("Sheet1", new ByteArrayInputStream(sheetXml.getBytes(StandardCharsets.UTF_8)),
+            null, new StylesTable(), false, new SheetRowHandler() {
+                @Override
+                public void startSheet(String sheetName) {
+                }
+
+                @Override
+                public void handleRow(int rowNum, List<String> cellValues) {
+                    rows.add(new ArrayList<>(cellValues));
+                }
+
+                @Override
+                public void endSheet() {
+                }
+            });
+        return rows;
+    }
+}